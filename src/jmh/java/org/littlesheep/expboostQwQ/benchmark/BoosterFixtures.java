@@ -0,0 +1,73 @@
+package org.littlesheep.expboostQwQ.benchmark;
+
+import org.bukkit.entity.Player;
+import org.littlesheep.expboostQwQ.data.BoosterClock;
+import org.littlesheep.expboostQwQ.data.PlayerBooster;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * 基准测试数据生成工具
+ * 使用固定的随机种子，保证每次运行生成相同的加成分布
+ */
+public final class BoosterFixtures {
+    
+    // 加成可能限制的等级组，空字符串表示所有等级组
+    static final String[] LEVEL_GROUPS = {"", "default", "vip"};
+    // 加成可能限制的经验来源，空字符串表示所有来源
+    static final String[] SOURCES = {"", "MINING", "KILL"};
+    // 查询时使用的等级组和来源组合，包含不匹配任何限制的组合
+    static final String[][] QUERIES = {
+            {"default", "MINING"},
+            {"vip", "KILL"},
+            {"default", "SMELT"},
+            {"pvp", "MINING"}
+    };
+    
+    private BoosterFixtures() {
+    }
+    
+    /**
+     * 安装停在当前时间的手动时钟
+     * 测试期间加成不会过期，每次测量的加成数量保持不变
+     */
+    public static void installClock() {
+        BoosterClock.install(new BoosterClock.ManualClock(System.currentTimeMillis()));
+    }
+    
+    /**
+     * 生成测试玩家
+     * @param count 玩家数量
+     * @return 测试玩家数组
+     */
+    public static Player[] createPlayers(int count) {
+        Random random = new Random(42L);
+        Player[] players = new Player[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = HeadlessServer.createPlayer(new UUID(random.nextLong(), random.nextLong()), "Player" + i);
+        }
+        return players;
+    }
+    
+    /**
+     * 生成一个玩家的加成
+     * 约四分之一为永久加成，其余在1到2小时后到期，等级组和来源限制随机分布
+     *
+     * @param count 加成数量
+     * @param random 随机数生成器
+     * @return 加成数组
+     */
+    public static PlayerBooster[] createBoosters(int count, Random random) {
+        long now = BoosterClock.millis();
+        PlayerBooster[] boosters = new PlayerBooster[count];
+        for (int i = 0; i < count; i++) {
+            double multiplier = 1.0 + 0.1 * (1 + random.nextInt(20));
+            long endTime = random.nextInt(4) == 0 ? -1 : now + 3600000L + random.nextInt(3600000);
+            boosters[i] = new PlayerBooster(multiplier, endTime,
+                    LEVEL_GROUPS[random.nextInt(LEVEL_GROUPS.length)],
+                    SOURCES[random.nextInt(SOURCES.length)]);
+        }
+        return boosters;
+    }
+}
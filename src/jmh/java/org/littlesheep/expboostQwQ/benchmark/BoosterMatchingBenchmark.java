@@ -0,0 +1,98 @@
+package org.littlesheep.expboostQwQ.benchmark;
+
+import org.littlesheep.expboostQwQ.data.MultiplePlayerBoosters;
+import org.littlesheep.expboostQwQ.data.PlayerBooster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个玩家加成匹配的基准测试
+ * 分别测量条件匹配、匹配加成列表以及三种计算方式在倍率快照上的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoosterMatchingBenchmark {
+    
+    // 玩家的加成数量
+    @Param({"0", "1", "5", "50"})
+    public int boosters;
+    
+    private PlayerBooster[] boosterArray;
+    private MultiplePlayerBoosters playerBoosters;
+    private int next = 0;
+    
+    /**
+     * 生成玩家的加成
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        BoosterFixtures.installClock();
+        boosterArray = BoosterFixtures.createBoosters(boosters, new Random(7L));
+        playerBoosters = new MultiplePlayerBoosters(UUID.randomUUID());
+        for (PlayerBooster booster : boosterArray) {
+            playerBoosters.addBooster(booster);
+        }
+    }
+    
+    /**
+     * 轮换查询的等级组和来源
+     */
+    private String[] nextQuery() {
+        return BoosterFixtures.QUERIES[next++ & (BoosterFixtures.QUERIES.length - 1)];
+    }
+    
+    @Benchmark
+    public int matchesConditions() {
+        String[] query = nextQuery();
+        int matched = 0;
+        for (PlayerBooster booster : boosterArray) {
+            if (booster.matchesConditions(query[0], query[1])) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+    
+    @Benchmark
+    public List<PlayerBooster> getMatchingBoosters() {
+        String[] query = nextQuery();
+        return playerBoosters.getMatchingBoosters(query[0], query[1]);
+    }
+    
+    @Benchmark
+    public double resolveMultiply() {
+        String[] query = nextQuery();
+        return playerBoosters.getSnapshot().resolveMultiply(query[0], query[1]);
+    }
+    
+    @Benchmark
+    public double resolveAdd() {
+        String[] query = nextQuery();
+        return playerBoosters.getSnapshot().resolveAdd(query[0], query[1]);
+    }
+    
+    @Benchmark
+    public double resolveHighest() {
+        String[] query = nextQuery();
+        return playerBoosters.getSnapshot().resolveHighest(query[0], query[1]);
+    }
+}
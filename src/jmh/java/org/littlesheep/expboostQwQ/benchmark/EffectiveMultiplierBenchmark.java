@@ -0,0 +1,110 @@
+package org.littlesheep.expboostQwQ.benchmark;
+
+import org.bukkit.entity.Player;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.data.BoosterManager;
+import org.littlesheep.expboostQwQ.data.PlayerBooster;
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 最终倍率计算的基准测试
+ * 测量经验事件的完整计算路径 {@link BoosterManager#getEffectiveMultiplier}，
+ * 覆盖三种计算方式以及不同的在线玩家数量和每个玩家的加成数量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EffectiveMultiplierBenchmark {
+    
+    // 在线玩家数量
+    @Param({"100", "1000", "10000"})
+    public int players;
+    
+    // 每个玩家的加成数量
+    @Param({"0", "1", "5", "50"})
+    public int boostersPerPlayer;
+    
+    // 加成计算方式
+    @Param({"multiply", "add", "highest"})
+    public String calculation;
+    
+    private Path dataFolder;
+    private BoosterManager boosterManager;
+    private Player[] onlinePlayers;
+    
+    /**
+     * 创建无头服务器和加成管理器，并为每个在线玩家添加加成
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataFolder = Files.createTempDirectory("expboostqwq-jmh");
+        onlinePlayers = BoosterFixtures.createPlayers(players);
+        HeadlessServer.install();
+        HeadlessServer.setOnlinePlayers(onlinePlayers);
+        BoosterFixtures.installClock();
+        
+        ExpboostQwQ plugin = HeadlessServer.createPlugin(dataFolder.toFile(), calculation);
+        LogUtil.init(plugin);
+        boosterManager = new BoosterManager(plugin);
+        
+        Random random = new Random(7L);
+        for (Player player : onlinePlayers) {
+            for (PlayerBooster booster : BoosterFixtures.createBoosters(boostersPerPlayer, random)) {
+                boosterManager.addPlayerBooster(player.getUniqueId(), booster);
+            }
+        }
+    }
+    
+    /**
+     * 关闭加成管理器并删除临时数据
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        boosterManager.shutdown();
+        LogUtil.shutdown();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    /**
+     * 每个线程独立轮换查询的玩家和条件
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+    
+    @Benchmark
+    public double effectiveMultiplier(Cursor cursor) {
+        int index = cursor.next++;
+        Player player = onlinePlayers[index % onlinePlayers.length];
+        String[] query = BoosterFixtures.QUERIES[index & (BoosterFixtures.QUERIES.length - 1)];
+        return boosterManager.getEffectiveMultiplier(player, query[0], query[1]);
+    }
+}
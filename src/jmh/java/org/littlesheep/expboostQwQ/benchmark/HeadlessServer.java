@@ -0,0 +1,218 @@
+package org.littlesheep.expboostQwQ.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.Settings;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 无头服务器环境
+ * 用动态代理实现的 Server、Player 和调度器替代真实服务器，
+ * 让基准测试不启动Minecraft服务器也能创建加成管理器
+ */
+public final class HeadlessServer {
+    
+    // 基准测试使用的日志记录器，只输出警告以上的信息
+    private static final Logger LOGGER = Logger.getLogger("ExpboostQwQ-Benchmark");
+    // 当前在线的测试玩家
+    private static final Map<UUID, Player> ONLINE_PLAYERS = new ConcurrentHashMap<>();
+    
+    static {
+        LOGGER.setLevel(Level.WARNING);
+    }
+    
+    private HeadlessServer() {
+    }
+    
+    /**
+     * 安装无头服务器，同一个JVM中只会安装一次
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(proxy(Server.class, HeadlessServer::handleServer));
+        }
+    }
+    
+    /**
+     * 替换在线玩家列表
+     * @param players 在线的测试玩家
+     */
+    public static void setOnlinePlayers(Player[] players) {
+        ONLINE_PLAYERS.clear();
+        for (Player player : players) {
+            ONLINE_PLAYERS.put(player.getUniqueId(), player);
+        }
+    }
+    
+    /**
+     * 创建测试玩家，只实现名称和UUID，其余方法返回默认值
+     * @param uuid 玩家UUID
+     * @param name 玩家名称
+     * @return 测试玩家
+     */
+    public static Player createPlayer(UUID uuid, String name) {
+        return proxy(Player.class, (self, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                case "getDisplayName":
+                case "toString":
+                    return name;
+                case "isOnline":
+                    return true;
+                default:
+                    return defaultValue(self, method, args);
+            }
+        });
+    }
+    
+    /**
+     * 创建插件实例
+     * 插件不会被启用，因此加成管理器不会注册任何定时任务，数据只在关闭时写入
+     *
+     * @param dataFolder 数据文件夹
+     * @param calculation 加成计算方式: multiply / add / highest
+     * @return 插件实例
+     */
+    public static ExpboostQwQ createPlugin(File dataFolder, String calculation) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("settings.debug_mode", false);
+        config.set("settings.log_exp_boost", false);
+        config.set("settings.boost_calculation", calculation);
+        config.set("settings.storage.type", "yaml");
+        config.set("settings.logs.auto_delete", false);
+        config.set("settings.logs.check_on_startup", false);
+        // 基准测试不统计每tick耗时，计时调用直接返回
+        config.set("settings.profiler.enabled", false);
+        
+        // 只做桩不记录调用，避免准备数据时积累大量调用记录
+        ExpboostQwQ plugin = mock(ExpboostQwQ.class, withSettings().stubOnly());
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getSettings()).thenReturn(Settings.load(config));
+        TickProfiler profiler = new TickProfiler(plugin);
+        when(plugin.getTickProfiler()).thenReturn(profiler);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(LOGGER);
+        when(plugin.getName()).thenReturn("ExpboostQwQ");
+        when(plugin.isEnabled()).thenReturn(false);
+        return plugin;
+    }
+    
+    /**
+     * 处理 Server 接口的调用
+     */
+    private static Object handleServer(Object self, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getLogger":
+                return LOGGER;
+            case "getName":
+            case "getVersion":
+            case "getBukkitVersion":
+                return "Benchmark";
+            case "getPlayer":
+                return args[0] instanceof UUID ? ONLINE_PLAYERS.get(args[0]) : findPlayer((String) args[0]);
+            case "getOnlinePlayers":
+                return Collections.unmodifiableCollection(new ArrayList<>(ONLINE_PLAYERS.values()));
+            case "getScheduler":
+                return proxy(BukkitScheduler.class, HeadlessServer::handleScheduler);
+            default:
+                return defaultValue(self, method, args);
+        }
+    }
+    
+    /**
+     * 处理调度器的调用，提交的任务不会执行
+     */
+    private static Object handleScheduler(Object self, Method method, Object[] args) {
+        if (method.getReturnType() == BukkitTask.class) {
+            return proxy(BukkitTask.class, HeadlessServer::defaultValue);
+        }
+        return defaultValue(self, method, args);
+    }
+    
+    /**
+     * 按名称查找在线测试玩家
+     */
+    private static Player findPlayer(String name) {
+        Collection<Player> players = ONLINE_PLAYERS.values();
+        for (Player player : players) {
+            if (player.getName().equalsIgnoreCase(name)) {
+                return player;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 未实现方法的默认返回值，Object 的方法按对象身份处理
+     */
+    private static Object defaultValue(Object self, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return self == args[0];
+            case "hashCode":
+                return System.identityHashCode(self);
+            case "toString":
+                return method.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+            default:
+                break;
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return (char) 0;
+        }
+        return null;
+    }
+    
+    /**
+     * 创建接口的动态代理
+     */
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(HeadlessServer.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> handler.invoke(self, method, args)));
+    }
+    
+    /**
+     * 代理方法处理器
+     */
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Object self, Method method, Object[] args);
+    }
+}
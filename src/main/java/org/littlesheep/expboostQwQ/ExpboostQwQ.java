@@ -1,20 +1,30 @@
 package org.littlesheep.expboostQwQ;
 
 import org.bstats.bukkit.Metrics;
+import org.bstats.charts.SimplePie;
+import org.bstats.charts.SingleLineChart;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.littlesheep.expboostQwQ.commands.ExpBoosterCommand;
+import org.littlesheep.expboostQwQ.data.AuditLog;
+import org.littlesheep.expboostQwQ.data.BoosterClock;
 import org.littlesheep.expboostQwQ.data.BoosterManager;
 import org.littlesheep.expboostQwQ.hooks.PlaceholderAPIHook;
 import org.littlesheep.expboostQwQ.listeners.ExpGainListener;
+import org.littlesheep.expboostQwQ.listeners.PlayerDataListener;
+import org.littlesheep.expboostQwQ.utils.ExpBoostNotifier;
 import org.littlesheep.expboostQwQ.utils.LanguageManager;
 import org.littlesheep.expboostQwQ.utils.LogUtil;
 import org.littlesheep.expboostQwQ.utils.LevelApiUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+import org.littlesheep.expboostQwQ.utils.PrometheusExporter;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
 import org.littlesheep.expboostQwQ.utils.UpdateChecker;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ExpboostQwQ 插件主类
@@ -25,14 +35,26 @@ public final class ExpboostQwQ extends JavaPlugin {
     
     // 插件单例实例
     private static ExpboostQwQ instance;
+    // 插件设置快照，重载时整体替换
+    private volatile Settings settings;
     // 经验加成管理器
     private BoosterManager boosterManager;
+    // 加成审计日志
+    private AuditLog auditLog;
+    // 经验加成提示合并器
+    private ExpBoostNotifier expBoostNotifier;
+    // 经验事件监听器
+    private ExpGainListener expGainListener;
+    // 每tick耗时统计
+    private TickProfiler tickProfiler;
     // 语言管理器
     private LanguageManager languageManager;
     private boolean bStatsEnabled;
     // 更新检查器
     private UpdateChecker updateChecker;
-
+    // Prometheus指标接口，未启用时为null
+    private PrometheusExporter prometheusExporter;
+    
     private void printLogo() {
         String[] logo = {
             "§b ______                ____                    _    ____        ____  ",
@@ -53,7 +75,7 @@ public final class ExpboostQwQ extends JavaPlugin {
             Bukkit.getConsoleSender().sendMessage(line);
         }
     }
-
+    
     /**
      * 插件启用时执行
      * 初始化配置、管理器、命令和监听器
@@ -68,6 +90,7 @@ public final class ExpboostQwQ extends JavaPlugin {
         
         // 保存默认配置文件
         saveDefaultConfig();
+        settings = Settings.load(getConfig());
         
         // 初始化日志工具类
         LogUtil.init(this);
@@ -78,19 +101,37 @@ public final class ExpboostQwQ extends JavaPlugin {
         // 初始化 LevelApiUtil
         LevelApiUtil.init(this);
         
+        // 初始化加成审计日志
+        auditLog = new AuditLog(new File(getDataFolder(), "audit"), getConfig().getBoolean("settings.audit.enabled", true));
+        
+        // 安装加成时钟，每tick采样一次时间，供所有加成检查共用
+        BoosterClock.TickClock boosterClock = new BoosterClock.TickClock();
+        BoosterClock.install(boosterClock);
+        getServer().getScheduler().runTaskTimer(this, boosterClock::refresh, 1L, 1L);
+        
+        // 初始化每tick耗时统计，需要在其他组件开始工作之前创建
+        tickProfiler = new TickProfiler(this);
+        
         // 初始化加成管理器
         boosterManager = new BoosterManager(this);
         
+        // 初始化经验加成提示合并器
+        expBoostNotifier = new ExpBoostNotifier(this);
+        
         // 注册命令
         getCommand("expbooster").setExecutor(new ExpBoosterCommand(this));
         getCommand("expbooster").setTabCompleter(new ExpBoosterCommand(this));
         
         // 注册事件监听器
-        getServer().getPluginManager().registerEvents(new ExpGainListener(this), this);
+        expGainListener = new ExpGainListener(this);
+        getServer().getPluginManager().registerEvents(expGainListener, this);
+        getServer().getPluginManager().registerEvents(new PlayerDataListener(this), this);
         
         // 注册PAPI扩展
         if (Bukkit.getPluginManager().getPlugin("PlaceholderAPI") != null) {
-            new PlaceholderAPIHook(this).register();
+            PlaceholderAPIHook placeholderHook = new PlaceholderAPIHook(this);
+            placeholderHook.register();
+            getServer().getPluginManager().registerEvents(placeholderHook, this);
             LogUtil.info("§b[ExpboostQwQ] §fPlaceholderAPI扩展已注册");
         }
         
@@ -98,10 +139,22 @@ public final class ExpboostQwQ extends JavaPlugin {
         bStatsEnabled = getConfig().getBoolean("settings.enable_bstats", true);
         if (bStatsEnabled) {
             int pluginId = 25432;
-            new Metrics(this, pluginId);
+            Metrics metrics = new Metrics(this, pluginId);
+            registerCustomCharts(metrics);
             LogUtil.info("§b[ExpboostQwQ] §fbStats统计已启用");
         }
         
+        // 启动Prometheus指标接口
+        if (getConfig().getBoolean("settings.metrics.prometheus.enabled", false)) {
+            int port = getConfig().getInt("settings.metrics.prometheus.port", 9464);
+            try {
+                prometheusExporter = PrometheusExporter.start(port);
+                LogUtil.info("§b[ExpboostQwQ] §fPrometheus指标接口已启动: http://127.0.0.1:" + port + "/metrics");
+            } catch (IOException e) {
+                LogUtil.error("无法启动Prometheus指标接口: " + e.getMessage());
+            }
+        }
+        
         // 检查更新
         if (getConfig().getBoolean("settings.check_update", true)) {
             updateChecker = new UpdateChecker(this);
@@ -122,8 +175,9 @@ public final class ExpboostQwQ extends JavaPlugin {
         }
         
         // 显示启用消息
-        String enableMessage = languageManager.getMessage("messages.plugin.enabled", "§a插件已启用！默认语言: %language%");
-        enableMessage = enableMessage.replace("%language%", languageManager.getDefaultLanguage());
+        String enableMessage = languageManager.format(languageManager.getDefaultLanguage(),
+                "messages.plugin.enabled", "§a插件已启用！默认语言: %language%",
+                "%language%", languageManager.getDefaultLanguage());
         LogUtil.info("§b[ExpboostQwQ] §f" + enableMessage);
         
         // 显示启动完成消息
@@ -131,24 +185,78 @@ public final class ExpboostQwQ extends JavaPlugin {
         Bukkit.getConsoleSender().sendMessage("§b[ExpboostQwQ] §f插件启动完成！");
         Bukkit.getConsoleSender().sendMessage("§e━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
     }
-
+    
     /**
      * 插件禁用时执行
      * 保存所有数据
      */
     @Override
     public void onDisable() {
-        // 取消所有定时任务
+        // 发放合并中尚未发放的经验，对应的原事件已被取消
+        if (expGainListener != null) {
+            expGainListener.flushAggregatedExp();
+        }
+        
+        // 停止发送经验加成提示
+        if (expBoostNotifier != null) {
+            expBoostNotifier.cancel();
+        }
+        
+        // 停止每tick耗时统计
+        if (tickProfiler != null) {
+            tickProfiler.cancel();
+        }
+        
+        // 停止Prometheus指标接口
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+            prometheusExporter = null;
+        }
+        
+        // 取消所有定时任务并保存所有加成数据
         if (boosterManager != null) {
-            boosterManager.cancelTasks();
-            // 保存所有加成数据
-            boosterManager.saveAll();
+            boosterManager.shutdown();
+        }
+        
+        // 恢复系统时钟，采样任务已随插件禁用取消
+        BoosterClock.install(BoosterClock.SYSTEM);
+        
+        // 写完剩余的审计记录
+        if (auditLog != null) {
+            auditLog.shutdown(5000L);
+        }
+        
+        // 保存玩家语言设置
+        if (languageManager != null) {
+            languageManager.shutdown();
         }
         
+        // 写完剩余日志并关闭日志文件
+        LogUtil.shutdown();
+        
         // 输出插件已禁用的消息
         getLogger().info("ExpboostQwQ v" + getDescription().getVersion() + " 已禁用!");
     }
     
+    /**
+     * 注册bStats自定义图表
+     * @param metrics bStats统计实例
+     */
+    private void registerCustomCharts(Metrics metrics) {
+        metrics.addCustomChart(new SimplePie("storage_type",
+                () -> getConfig().getString("settings.storage.type", "yaml").toLowerCase()));
+        metrics.addCustomChart(new SimplePie("boost_calculation",
+                () -> settings.getCalculationMode().getConfigName()));
+        metrics.addCustomChart(new SimplePie("exp_aggregation",
+                () -> settings.isExpAggregationEnabled() ? "enabled" : "disabled"));
+        // 每次上报自上次上报以来得到加成的经验事件数量
+        AtomicLong reportedBoostedEvents = new AtomicLong();
+        metrics.addCustomChart(new SingleLineChart("boosted_exp_events", () -> {
+            long total = PluginMetrics.getBoostedExpEvents();
+            return (int) Math.min(Integer.MAX_VALUE, total - reportedBoostedEvents.getAndSet(total));
+        }));
+    }
+    
     /**
      * 重载插件配置
      */
@@ -167,8 +275,12 @@ public final class ExpboostQwQ extends JavaPlugin {
             }
         }
         
+        settings = Settings.load(getConfig());
+        LevelApiUtil.refresh();
         languageManager.reload();
         boosterManager.loadData();
+        expBoostNotifier.reload();
+        tickProfiler.reload();
         LogUtil.info("插件配置已重载！");
     }
     
@@ -182,6 +294,15 @@ public final class ExpboostQwQ extends JavaPlugin {
         return instance;
     }
     
+    /**
+     * 获取插件设置快照
+     * 
+     * @return 当前的设置快照
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+    
     /**
      * 获取经验加成管理器
      * 
@@ -191,6 +312,33 @@ public final class ExpboostQwQ extends JavaPlugin {
         return boosterManager;
     }
     
+    /**
+     * 获取加成审计日志
+     * 
+     * @return 加成审计日志实例
+     */
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+    
+    /**
+     * 获取经验加成提示合并器
+     * 
+     * @return 经验加成提示合并器实例
+     */
+    public ExpBoostNotifier getExpBoostNotifier() {
+        return expBoostNotifier;
+    }
+    
+    /**
+     * 获取每tick耗时统计
+     * 
+     * @return 每tick耗时统计实例
+     */
+    public TickProfiler getTickProfiler() {
+        return tickProfiler;
+    }
+    
     /**
      * 获取语言管理器
      * 
@@ -0,0 +1,149 @@
+package org.littlesheep.expboostQwQ;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.littlesheep.expboostQwQ.data.CalculationMode;
+
+/**
+ * 插件设置快照
+ * 不可变对象，插件启用和执行重载命令时从配置文件构建一次，
+ * 经验事件等频繁执行的代码直接读取字段，不再每次按路径查询配置
+ */
+public final class Settings {
+    
+    private final CalculationMode calculationMode;   // 加成计算方式
+    private final boolean showExpBoostMessage;       // 是否提示经验加成
+    private final boolean silentMode;                // 全局静默模式
+    private final boolean logExpBoost;               // 是否记录加成变更日志
+    private final long expBoostMessageWindowTicks;   // 经验加成提示的合并窗口（tick）
+    private final boolean expBoostMessageActionBar;  // 是否在动作栏显示经验加成提示
+    private final long levelGroupCacheMillis;        // 等级组目录的缓存时间（毫秒）
+    private final boolean aggregateExpEvents;        // 是否合并同一tick内的经验事件
+    private final long storageLoadTimeoutMillis;     // 读取未加载玩家数据的最长等待时间（毫秒）
+    private final int resolveSampleInterval;         // 每多少次倍率计算记录一次耗时，0表示不记录
+    private final boolean tickProfilerEnabled;       // 是否统计每tick耗时
+    private final int tickProfilerWindowTicks;       // 每tick耗时统计保留的tick数
+    private final double tickProfilerWarnPercent;    // 单tick耗时超过预算的百分比时警告
+    
+    private Settings(FileConfiguration config) {
+        this.calculationMode = CalculationMode.fromString(config.getString("settings.boost_calculation", "multiply"));
+        this.showExpBoostMessage = config.getBoolean("settings.show_exp_boost_message", true);
+        this.silentMode = config.getBoolean("settings.silent_mode", false);
+        this.logExpBoost = config.getBoolean("settings.log_exp_boost", true);
+        double windowSeconds = config.getDouble("settings.exp_boost_message.window_seconds", 3.0);
+        this.expBoostMessageWindowTicks = Math.max(0L, Math.round(windowSeconds * 20));
+        this.expBoostMessageActionBar = config.getString("settings.exp_boost_message.display", "chat").equalsIgnoreCase("actionbar");
+        this.levelGroupCacheMillis = Math.max(0L, config.getLong("settings.level_group_cache_seconds", 300L)) * 1000L;
+        this.aggregateExpEvents = config.getBoolean("settings.aggregate_exp_events", false);
+        this.storageLoadTimeoutMillis = Math.max(50L, config.getLong("settings.storage.load_timeout_ms", 1000L));
+        this.resolveSampleInterval = Math.max(0, config.getInt("settings.metrics.resolve_sample_interval", 0));
+        this.tickProfilerEnabled = config.getBoolean("settings.profiler.enabled", false);
+        this.tickProfilerWindowTicks = Math.max(20, config.getInt("settings.profiler.window_ticks", 1200));
+        this.tickProfilerWarnPercent = Math.max(0.0, config.getDouble("settings.profiler.warn_threshold_percent", 10.0));
+    }
+    
+    /**
+     * 从配置文件构建设置快照
+     * @param config 插件配置
+     * @return 设置快照
+     */
+    public static Settings load(FileConfiguration config) {
+        return new Settings(config);
+    }
+    
+    /**
+     * 获取加成计算方式
+     * @return 加成计算方式
+     */
+    public CalculationMode getCalculationMode() {
+        return calculationMode;
+    }
+    
+    /**
+     * 是否向玩家提示经验加成，开启静默模式时不提示
+     * @return 是否提示
+     */
+    public boolean isExpBoostMessageEnabled() {
+        return showExpBoostMessage && !silentMode;
+    }
+    
+    /**
+     * 是否记录加成变更日志
+     * @return 是否记录
+     */
+    public boolean isLogExpBoost() {
+        return logExpBoost;
+    }
+    
+    /**
+     * 获取经验加成提示的合并窗口
+     * @return 窗口长度（tick），0表示每次都立即提示
+     */
+    public long getExpBoostMessageWindowTicks() {
+        return expBoostMessageWindowTicks;
+    }
+    
+    /**
+     * 是否在动作栏显示经验加成提示
+     * @return 是否使用动作栏
+     */
+    public boolean isExpBoostMessageActionBar() {
+        return expBoostMessageActionBar;
+    }
+    
+    /**
+     * 获取等级组目录的缓存时间
+     * @return 缓存时间（毫秒），0表示只在重载插件时刷新
+     */
+    public long getLevelGroupCacheMillis() {
+        return levelGroupCacheMillis;
+    }
+    
+    /**
+     * 是否合并同一tick内的经验事件后统一加成
+     * @return 是否合并
+     */
+    public boolean isExpAggregationEnabled() {
+        return aggregateExpEvents;
+    }
+    
+    /**
+     * 获取读取未加载玩家数据时等待写入线程的最长时间
+     * 在主线程为离线玩家修改加成时，等待时间会直接占用tick
+     * @return 等待时间（毫秒），至少为50
+     */
+    public long getStorageLoadTimeoutMillis() {
+        return storageLoadTimeoutMillis;
+    }
+    
+    /**
+     * 获取倍率计算耗时的采样间隔
+     * @return 每多少次计算记录一次耗时，0表示不记录
+     */
+    public int getResolveSampleInterval() {
+        return resolveSampleInterval;
+    }
+    
+    /**
+     * 是否统计插件每tick的耗时
+     * @return 是否统计
+     */
+    public boolean isTickProfilerEnabled() {
+        return tickProfilerEnabled;
+    }
+    
+    /**
+     * 获取每tick耗时统计保留的tick数
+     * @return tick数，至少为20
+     */
+    public int getTickProfilerWindowTicks() {
+        return tickProfilerWindowTicks;
+    }
+    
+    /**
+     * 获取发出耗时警告的阈值
+     * @return 占50ms tick预算的百分比，0表示不警告
+     */
+    public double getTickProfilerWarnPercent() {
+        return tickProfilerWarnPercent;
+    }
+}
@@ -1,22 +1,30 @@
 package org.littlesheep.expboostQwQ.commands;
 
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.data.AuditEntry;
+import org.littlesheep.expboostQwQ.data.CalculationMode;
 import org.littlesheep.expboostQwQ.data.PlayerBooster;
 import org.littlesheep.expboostQwQ.data.ServerBooster;
 import org.littlesheep.expboostQwQ.data.MultiplePlayerBoosters;
 import org.littlesheep.expboostQwQ.utils.LevelApiUtil;
 import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.MessageTemplate;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
 import org.littlesheep.expboostQwQ.utils.TimeUtils;
 import org.littlesheep.expboostQwQ.utils.UpdateChecker;
 
 import java.io.File;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -49,9 +57,26 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
      */
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            dispatch(sender, args);
+        } finally {
+            profiler.stop(TickProfiler.Section.COMMAND, start);
+        }
+        return true;
+    }
+    
+    /**
+     * 按子命令分发到对应的处理方法
+     * 
+     * @param sender 命令发送者
+     * @param args 命令参数
+     */
+    private void dispatch(CommandSender sender, String[] args) {
         if (args.length == 0) {
             sendHelpMessage(sender);
-            return true;
+            return;
         }
         
         switch (args[0].toLowerCase()) {
@@ -98,12 +123,19 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             case "removebooster":
                 handleRemoveBooster(sender, args);
                 break;
+            case "audit":
+                handleAudit(sender, args);
+                break;
+            case "metrics":
+                handleMetrics(sender);
+                break;
+            case "profiler":
+                handleProfiler(sender);
+                break;
             default:
                 sendHelpMessage(sender);
                 break;
         }
-        
-        return true;
     }
     
     /**
@@ -115,7 +147,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handlePlayerBooster(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.command.player")) {
@@ -137,11 +169,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         // 获取目标玩家
         Player target = Bukkit.getPlayer(args[1]);
         if (target == null) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.player_not_found",
-                    "§c[ExpboostQwQ] 找不到玩家 '%player%'!")
-                    .replace("%player%", args[1]));
+                    "§c[ExpboostQwQ] 找不到玩家 '%player%'!",
+                    "%player%", args[1]));
             return;
         }
         
@@ -200,11 +232,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 levelGroup = arg.substring("-levelGroup=".length());
                 // 验证等级组是否存在
                 if (!levelGroup.isEmpty() && !LevelApiUtil.isLevelGroupExists(levelGroup)) {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.command.invalid_level_group",
-                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组")
-                            .replace("%group%", levelGroup));
+                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组",
+                            "%group%", levelGroup));
                 }
             } else if (arg.startsWith("-source=")) {
                 source = arg.substring("-source=".length());
@@ -224,6 +256,10 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 如果指定了替换模式，首先移除现有加成
         if (replace && existingBoosters != null) {
+            for (PlayerBooster oldBooster : existingBoosters.getActiveBoosters()) {
+                plugin.getAuditLog().recordPlayer(AuditEntry.Action.REMOVE, target.getUniqueId(), target.getName(),
+                        sender.getName(), oldBooster);
+            }
             plugin.getBoosterManager().removePlayerBooster(target.getUniqueId());
             LogUtil.debug("管理员 " + sender.getName() + " 移除了玩家 " + target.getName() + " 的所有现有加成");
         }
@@ -272,6 +308,8 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         // 创建并应用加成
         PlayerBooster booster = new PlayerBooster(multiplier, endTime, levelGroup, source);
         plugin.getBoosterManager().addPlayerBooster(target.getUniqueId(), booster);
+        plugin.getAuditLog().recordPlayer(AuditEntry.Action.GRANT, target.getUniqueId(), target.getName(),
+                sender.getName(), booster);
         
         // 记录加成变化
         String operationType = replace ? "替换" : (oldBoosterCount > 0 ? "累加" : "设置");
@@ -289,28 +327,28 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                              (oldBoosterCount > 0 ? "§a[ExpboostQwQ] 已为玩家 §e%player% §a累加 §e%multiplier%x §a经验加成，持续时间: §e%duration%" :
                                                  "§a[ExpboostQwQ] 已为玩家 §e%player% §a设置 §e%multiplier%x §a经验加成，持续时间: §e%duration%");
         
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 messageKey,
-                defaultMessage)
-                .replace("%player%", target.getName())
-                .replace("%multiplier%", String.valueOf(multiplier))
-                .replace("%duration%", durationStr));
+                defaultMessage,
+                "%player%", target.getName(),
+                "%multiplier%", multiplier,
+                "%duration%", durationStr));
         
         if (!silent && !sender.equals(target)) {
-            String targetLangCode = plugin.getLanguageManager().getPlayerLanguage(target.getUniqueId().toString());
+            String targetLangCode = plugin.getLanguageManager().getPlayerLanguage(target.getUniqueId());
             String playerMessageKey = replace ? "messages.exp_boost.player_booster_received_replaced" : 
                                     (oldBoosterCount > 0 ? "messages.exp_boost.player_booster_received_added" : "messages.exp_boost.player_booster_received");
             String playerDefaultMessage = replace ? "§a[ExpboostQwQ] 你的经验加成已被替换为 §e%multiplier%x §a，持续时间: §e%duration%" :
                                         (oldBoosterCount > 0 ? "§a[ExpboostQwQ] 你获得了额外的 §e%multiplier%x §a经验加成，持续时间: §e%duration%" :
                                                            "§a[ExpboostQwQ] 你获得了 §e%multiplier%x §a经验加成，持续时间: §e%duration%");
             
-            target.sendMessage(plugin.getLanguageManager().getMessage(
+            target.sendMessage(plugin.getLanguageManager().format(
                     targetLangCode,
                     playerMessageKey,
-                    playerDefaultMessage)
-                    .replace("%multiplier%", String.valueOf(multiplier))
-                    .replace("%duration%", durationStr));
+                    playerDefaultMessage,
+                    "%multiplier%", multiplier,
+                    "%duration%", durationStr));
         }
     }
     
@@ -323,7 +361,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleServerBooster(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.command.server")) {
@@ -396,11 +434,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 levelGroup = arg.substring("-levelGroup=".length());
                 // 验证等级组是否存在
                 if (!levelGroup.isEmpty() && !LevelApiUtil.isLevelGroupExists(levelGroup)) {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.command.invalid_level_group",
-                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组")
-                            .replace("%group%", levelGroup));
+                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组",
+                            "%group%", levelGroup));
                 }
             } else if (arg.startsWith("-source=")) {
                 source = arg.substring("-source=".length());
@@ -452,6 +490,8 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         // 创建并应用加成
         ServerBooster booster = new ServerBooster(multiplier, endTime, levelGroup, source);
         plugin.getBoosterManager().setServerBooster(booster);
+        plugin.getAuditLog().recordServer(AuditEntry.Action.GRANT, "server", "", sender.getName(),
+                multiplier, endTime, levelGroup, source);
         
         // 记录倍率变化
         LogUtil.multiplierChange(null, oldMultiplier, multiplier, duration, "全服");
@@ -459,20 +499,20 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         // 发送确认消息
         String durationStr = (duration == -1) ? "永久" : TimeUtils.formatDuration(duration);
         
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.server_booster_set",
-                "§a[ExpboostQwQ] 已为全服设置 §e%multiplier%x §a经验加成，持续时间: §e%duration%")
-                .replace("%multiplier%", String.valueOf(multiplier))
-                .replace("%duration%", durationStr));
+                "§a[ExpboostQwQ] 已为全服设置 §e%multiplier%x §a经验加成，持续时间: §e%duration%",
+                "%multiplier%", multiplier,
+                "%duration%", durationStr));
         
         if (!silent) {
-            String broadcastMessage = plugin.getLanguageManager().getMessage(
+            String broadcastMessage = plugin.getLanguageManager().format(
                     plugin.getLanguageManager().getDefaultLanguage(),
                     "messages.exp_boost.server_booster_broadcast",
-                    "§a[ExpboostQwQ] 全服获得了 §e%multiplier%x §a经验加成，持续时间: §e%duration%")
-                    .replace("%multiplier%", String.valueOf(multiplier))
-                    .replace("%duration%", durationStr);
+                    "§a[ExpboostQwQ] 全服获得了 §e%multiplier%x §a经验加成，持续时间: §e%duration%",
+                    "%multiplier%", multiplier,
+                    "%duration%", durationStr);
             Bukkit.broadcastMessage(broadcastMessage);
         }
         
@@ -489,7 +529,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleCheck(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.command.check")) {
@@ -519,27 +559,27 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 String endTimeStr = serverBooster.getEndTime() == -1 ? "永久" : 
                         TimeUtils.formatDuration((serverBooster.getEndTime() - System.currentTimeMillis()) / 1000);
                 
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_server",
-                        "§a[ExpboostQwQ] 全服经验加成: §e%multiplier%x§a, 剩余时间: §e%time%")
-                        .replace("%multiplier%", String.valueOf(serverBooster.getMultiplier()))
-                        .replace("%time%", endTimeStr));
+                        "§a[ExpboostQwQ] 全服经验加成: §e%multiplier%x§a, 剩余时间: §e%time%",
+                        "%multiplier%", serverBooster.getMultiplier(),
+                        "%time%", endTimeStr));
                 
                 if (!serverBooster.getLevelGroup().isEmpty()) {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.exp_boost.check_level_group",
-                            "§a[ExpboostQwQ] 等级组: §e%group%")
-                            .replace("%group%", serverBooster.getLevelGroup()));
+                            "§a[ExpboostQwQ] 等级组: §e%group%",
+                            "%group%", serverBooster.getLevelGroup()));
                 }
                 
                 if (!serverBooster.getSource().isEmpty()) {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.exp_boost.check_source",
-                            "§a[ExpboostQwQ] 来源: §e%source%")
-                            .replace("%source%", serverBooster.getSource()));
+                            "§a[ExpboostQwQ] 来源: §e%source%",
+                            "%source%", serverBooster.getSource()));
                 }
             } else {
                 sender.sendMessage(plugin.getLanguageManager().getMessage(
@@ -557,34 +597,34 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 String endTimeStr = groupBooster.getEndTime() == -1 ? "永久" : 
                         TimeUtils.formatDuration((groupBooster.getEndTime() - System.currentTimeMillis()) / 1000);
                 
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_level_group_multiplier",
-                        "§a[ExpboostQwQ] 等级组 §e%group% §a的倍率: §e%multiplier%x")
-                        .replace("%group%", groupName)
-                        .replace("%multiplier%", String.valueOf(groupBooster.getMultiplier())));
+                        "§a[ExpboostQwQ] 等级组 §e%group% §a的倍率: §e%multiplier%x",
+                        "%group%", groupName,
+                        "%multiplier%", groupBooster.getMultiplier()));
                 
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.booster_detail_duration",
-                        "§7- §f剩余时间: §e%duration%")
-                        .replace("%duration%", endTimeStr));
+                        "§7- §f剩余时间: §e%duration%",
+                        "%duration%", endTimeStr));
             } else {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.no_group_booster",
-                        "§a[ExpboostQwQ] 等级组 §e%group% §a当前没有特定经验加成")
-                        .replace("%group%", groupName));
+                        "§a[ExpboostQwQ] 等级组 §e%group% §a当前没有特定经验加成",
+                        "%group%", groupName));
             }
             return;
         } else if (targetName.equalsIgnoreCase("global")) {
             // 检查全局默认倍率
             double globalMultiplier = plugin.getBoosterManager().getGlobalDefaultMultiplier();
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.check_global_multiplier",
-                    "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x")
-                    .replace("%multiplier%", String.valueOf(globalMultiplier)));
+                    "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x",
+                    "%multiplier%", globalMultiplier));
             return;
         }
         
@@ -592,11 +632,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         Player target = Bukkit.getPlayer(targetName);
         
         if (target == null) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.player_not_found",
-                    "§c[ExpboostQwQ] 找不到玩家 %player%!")
-                    .replace("%player%", targetName));
+                    "§c[ExpboostQwQ] 找不到玩家 %player%!",
+                    "%player%", targetName));
             return;
         }
         
@@ -609,35 +649,35 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             String endTimeStr = booster.getEndTime() == -1 ? "永久" : 
                     TimeUtils.formatDuration((booster.getEndTime() - System.currentTimeMillis()) / 1000);
             
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.check_player",
-                    "§a[ExpboostQwQ] 玩家 §e%player% §a的经验加成: §e%multiplier%x§a, 剩余时间: §e%time%")
-                    .replace("%player%", target.getName())
-                    .replace("%multiplier%", String.valueOf(booster.getMultiplier()))
-                    .replace("%time%", endTimeStr));
+                    "§a[ExpboostQwQ] 玩家 §e%player% §a的经验加成: §e%multiplier%x§a, 剩余时间: §e%time%",
+                    "%player%", target.getName(),
+                    "%multiplier%", booster.getMultiplier(),
+                    "%time%", endTimeStr));
             
             if (!booster.getLevelGroup().isEmpty()) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_level_group",
-                        "§a[ExpboostQwQ] 等级组: §e%group%")
-                        .replace("%group%", booster.getLevelGroup()));
+                        "§a[ExpboostQwQ] 等级组: §e%group%",
+                        "%group%", booster.getLevelGroup()));
             }
             
             if (!booster.getSource().isEmpty()) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_source",
-                        "§a[ExpboostQwQ] 来源: §e%source%")
-                        .replace("%source%", booster.getSource()));
+                        "§a[ExpboostQwQ] 来源: §e%source%",
+                        "%source%", booster.getSource()));
             }
         } else {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.no_player_booster",
-                    "§a[ExpboostQwQ] 玩家 §e%player% §a当前没有个人经验加成")
-                    .replace("%player%", target.getName()));
+                    "§a[ExpboostQwQ] 玩家 §e%player% §a当前没有个人经验加成",
+                    "%player%", target.getName()));
         }
         
         // 显示全服加成信息
@@ -645,27 +685,27 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             String endTimeStr = serverBooster.getEndTime() == -1 ? "永久" : 
                     TimeUtils.formatDuration((serverBooster.getEndTime() - System.currentTimeMillis()) / 1000);
             
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.check_server",
-                    "§a[ExpboostQwQ] 全服经验加成: §e%multiplier%x§a, 剩余时间: §e%time%")
-                    .replace("%multiplier%", String.valueOf(serverBooster.getMultiplier()))
-                    .replace("%time%", endTimeStr));
+                    "§a[ExpboostQwQ] 全服经验加成: §e%multiplier%x§a, 剩余时间: §e%time%",
+                    "%multiplier%", serverBooster.getMultiplier(),
+                    "%time%", endTimeStr));
             
             if (!serverBooster.getLevelGroup().isEmpty()) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_level_group",
-                        "§a[ExpboostQwQ] 等级组: §e%group%")
-                        .replace("%group%", serverBooster.getLevelGroup()));
+                        "§a[ExpboostQwQ] 等级组: §e%group%",
+                        "%group%", serverBooster.getLevelGroup()));
             }
             
             if (!serverBooster.getSource().isEmpty()) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_source",
-                        "§a[ExpboostQwQ] 来源: §e%source%")
-                        .replace("%source%", serverBooster.getSource()));
+                        "§a[ExpboostQwQ] 来源: §e%source%",
+                        "%source%", serverBooster.getSource()));
             }
         } else {
             sender.sendMessage(plugin.getLanguageManager().getMessage(
@@ -689,41 +729,41 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 if (groupBooster != null && groupBooster.isActive()) {
                     globalOrGroupMultiplier = groupBooster.getMultiplier();
                     
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.exp_boost.check_level_group_multiplier",
-                            "§a[ExpboostQwQ] 等级组 §e%group% §a的倍率: §e%multiplier%x")
-                            .replace("%group%", levelGroup)
-                            .replace("%multiplier%", String.valueOf(globalOrGroupMultiplier)));
+                            "§a[ExpboostQwQ] 等级组 §e%group% §a的倍率: §e%multiplier%x",
+                            "%group%", levelGroup,
+                            "%multiplier%", globalOrGroupMultiplier));
                 } else {
                     // 如果玩家的等级组没有特定倍率，使用全局默认倍率
                     globalOrGroupMultiplier = plugin.getBoosterManager().getGlobalDefaultMultiplier();
                     
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.exp_boost.check_global_multiplier",
-                            "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x")
-                            .replace("%multiplier%", String.valueOf(globalOrGroupMultiplier)));
+                            "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x",
+                            "%multiplier%", globalOrGroupMultiplier));
                 }
             } else {
                 // 如果没有找到玩家的等级组，使用全局默认倍率
                 globalOrGroupMultiplier = plugin.getBoosterManager().getGlobalDefaultMultiplier();
                 
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.check_global_multiplier",
-                        "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x")
-                        .replace("%multiplier%", String.valueOf(globalOrGroupMultiplier)));
+                        "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x",
+                        "%multiplier%", globalOrGroupMultiplier));
             }
         } else {
             // 如果等级组功能未启用，显示全局默认倍率
             globalOrGroupMultiplier = plugin.getBoosterManager().getGlobalDefaultMultiplier();
             
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.check_global_multiplier",
-                    "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x")
-                    .replace("%multiplier%", String.valueOf(globalOrGroupMultiplier)));
+                    "§a[ExpboostQwQ] 全局默认倍率: §e%multiplier%x",
+                    "%multiplier%", globalOrGroupMultiplier));
         }
         
         // 计算并显示总倍率
@@ -731,63 +771,63 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         double playerMultiplier = booster != null && booster.isActive() ? booster.getMultiplier() : 1.0;
         double serverMultiplier = serverBooster != null && serverBooster.isActive() ? serverBooster.getMultiplier() : 1.0;
         
-        String calculationType = plugin.getConfig().getString("settings.boost_calculation", "multiply");
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        CalculationMode calculationMode = plugin.getSettings().getCalculationMode();
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.check_calculation_type",
-                "§a[ExpboostQwQ] 加成计算方式: §e%type%")
-                .replace("%type%", calculationType));
+                "§a[ExpboostQwQ] 加成计算方式: §e%type%",
+                "%type%", calculationMode.getConfigName()));
         
         // 根据计算方式计算总倍率
-        switch (calculationType.toLowerCase()) {
-            case "highest":
+        switch (calculationMode) {
+            case HIGHEST:
                 totalMultiplier = Math.max(Math.max(globalOrGroupMultiplier, serverMultiplier), playerMultiplier);
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.total_multiplier_highest",
-                        "§a[ExpboostQwQ] 三种倍率: §e全局/组(%global%)§a, §e服务器(%server%)§a, §e玩家(%player%)§a")
-                        .replace("%global%", String.valueOf(globalOrGroupMultiplier))
-                        .replace("%server%", String.valueOf(serverMultiplier))
-                        .replace("%player%", String.valueOf(playerMultiplier)));
+                        "§a[ExpboostQwQ] 三种倍率: §e全局/组(%global%)§a, §e服务器(%server%)§a, §e玩家(%player%)§a",
+                        "%global%", globalOrGroupMultiplier,
+                        "%server%", serverMultiplier,
+                        "%player%", playerMultiplier));
                 
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.total_multiplier_calculation",
-                        "§a[ExpboostQwQ] 计算方式: §f取最高 = §e%multiplier%x")
-                        .replace("%multiplier%", String.valueOf(totalMultiplier)));
+                        "§a[ExpboostQwQ] 计算方式: §f取最高 = §e%multiplier%x",
+                        "%multiplier%", totalMultiplier));
                 break;
                 
-            case "add":
+            case ADD:
                 totalMultiplier = 1.0 + (globalOrGroupMultiplier - 1.0) + (serverMultiplier - 1.0) + (playerMultiplier - 1.0);
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.total_multiplier_add",
-                        "§a[ExpboostQwQ] 计算方式: §f1.0 + (%global% - 1.0) + (%server% - 1.0) + (%player% - 1.0) = §e%multiplier%x")
-                        .replace("%global%", String.valueOf(globalOrGroupMultiplier))
-                        .replace("%server%", String.valueOf(serverMultiplier))
-                        .replace("%player%", String.valueOf(playerMultiplier))
-                        .replace("%multiplier%", String.valueOf(totalMultiplier)));
+                        "§a[ExpboostQwQ] 计算方式: §f1.0 + (%global% - 1.0) + (%server% - 1.0) + (%player% - 1.0) = §e%multiplier%x",
+                        "%global%", globalOrGroupMultiplier,
+                        "%server%", serverMultiplier,
+                        "%player%", playerMultiplier,
+                        "%multiplier%", totalMultiplier));
                 break;
                 
-            case "multiply":
+            case MULTIPLY:
             default:
                 totalMultiplier = globalOrGroupMultiplier * serverMultiplier * playerMultiplier;
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.total_multiplier_multiply",
-                        "§a[ExpboostQwQ] 计算方式: §f%global% × %server% × %player% = §e%multiplier%x")
-                        .replace("%global%", String.valueOf(globalOrGroupMultiplier))
-                        .replace("%server%", String.valueOf(serverMultiplier))
-                        .replace("%player%", String.valueOf(playerMultiplier))
-                        .replace("%multiplier%", String.valueOf(totalMultiplier)));
+                        "§a[ExpboostQwQ] 计算方式: §f%global% × %server% × %player% = §e%multiplier%x",
+                        "%global%", globalOrGroupMultiplier,
+                        "%server%", serverMultiplier,
+                        "%player%", playerMultiplier,
+                        "%multiplier%", totalMultiplier));
                 break;
         }
         
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.total_multiplier",
-                "§a[ExpboostQwQ] 总经验倍率: §e%multiplier%x")
-                .replace("%multiplier%", String.valueOf(totalMultiplier)));
+                "§a[ExpboostQwQ] 总经验倍率: §e%multiplier%x",
+                "%multiplier%", totalMultiplier));
     }
     
     /**
@@ -799,7 +839,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleGlobalMultiplier(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.admin")) {
@@ -872,11 +912,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 levelGroup = arg.substring("-levelGroup=".length());
                 // 验证等级组是否存在
                 if (!levelGroup.isEmpty() && !LevelApiUtil.isLevelGroupExists(levelGroup)) {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.command.invalid_level_group",
-                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组")
-                            .replace("%group%", levelGroup));
+                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组",
+                            "%group%", levelGroup));
                 }
             } else if (arg.startsWith("-source=")) {
                 source = arg.substring("-source=".length());
@@ -916,42 +956,44 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 设置全局默认倍率
         plugin.getBoosterManager().setGlobalDefaultMultiplier(multiplier, duration);
+        plugin.getAuditLog().recordServer(AuditEntry.Action.CHANGE, "global", "", sender.getName(),
+                multiplier, plugin.getBoosterManager().getGlobalBooster().getEndTime(), "", "");
         
         // 发送确认消息
         String durationStr = (duration == -1) ? "永久" : TimeUtils.formatDuration(duration);
-        String message = plugin.getLanguageManager().getMessage(
+        String message = plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.global_multiplier_set", 
-                "§a[ExpboostQwQ] 全局默认经验倍率已设置为 §e%multiplier%x§a，持续时间: §e%duration%")
-                .replace("%multiplier%", String.valueOf(multiplier))
-                .replace("%duration%", durationStr);
+                "§a[ExpboostQwQ] 全局默认经验倍率已设置为 §e%multiplier%x§a，持续时间: §e%duration%",
+                "%multiplier%", multiplier,
+                "%duration%", durationStr);
         
         // 添加选项信息
         if (!levelGroup.isEmpty()) {
-            message += plugin.getLanguageManager().getMessage(
+            message += plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.level_group_restriction",
-                    "\n§7- 限制等级组: §e%group%")
-                    .replace("%group%", levelGroup);
+                    "\n§7- 限制等级组: §e%group%",
+                    "%group%", levelGroup);
         }
         if (!source.isEmpty()) {
-            message += plugin.getLanguageManager().getMessage(
+            message += plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.source_restriction",
-                    "\n§7- 限制来源: §e%source%")
-                    .replace("%source%", source);
+                    "\n§7- 限制来源: §e%source%",
+                    "%source%", source);
         }
         
         sender.sendMessage(message);
         
         // 如果不是静默模式，广播消息
         if (!silent) {
-            String broadcastMessage = plugin.getLanguageManager().getMessage(
+            String broadcastMessage = plugin.getLanguageManager().format(
                     plugin.getLanguageManager().getDefaultLanguage(),
                     "messages.exp_boost.global_multiplier_broadcast",
-                    "§a[ExpboostQwQ] 全局默认经验倍率已设置为 §e%multiplier%x§a，持续时间: §e%duration%")
-                    .replace("%multiplier%", String.valueOf(multiplier))
-                    .replace("%duration%", durationStr);
+                    "§a[ExpboostQwQ] 全局默认经验倍率已设置为 §e%multiplier%x§a，持续时间: §e%duration%",
+                    "%multiplier%", multiplier,
+                    "%duration%", durationStr);
             Bukkit.broadcastMessage(broadcastMessage);
         }
         
@@ -970,7 +1012,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleGroupMultiplier(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.admin")) {
@@ -994,18 +1036,18 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 验证等级组是否存在
         if (!LevelApiUtil.isLevelGroupExists(levelGroup)) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.level_group_not_exists",
-                    "§c[ExpboostQwQ] 错误: 等级组 '%group%' 不存在")
-                    .replace("%group%", levelGroup));
+                    "§c[ExpboostQwQ] 错误: 等级组 '%group%' 不存在",
+                    "%group%", levelGroup));
             
             String availableGroups = String.join(", ", LevelApiUtil.getLevelGroupNames());
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.available_level_groups",
-                    "§c[ExpboostQwQ] 可用的等级组: %groups%")
-                    .replace("%groups%", availableGroups));
+                    "§c[ExpboostQwQ] 可用的等级组: %groups%",
+                    "%groups%", availableGroups));
             return;
         }
         
@@ -1063,11 +1105,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 targetLevelGroup = arg.substring("-levelGroup=".length());
                 // 验证等级组是否存在
                 if (!targetLevelGroup.isEmpty() && !LevelApiUtil.isLevelGroupExists(targetLevelGroup)) {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.command.invalid_level_group",
-                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组")
-                            .replace("%group%", targetLevelGroup));
+                            "§c[ExpboostQwQ] 警告: 等级组 '%group%' 不存在，将应用于所有等级组",
+                            "%group%", targetLevelGroup));
                 }
             } else if (arg.startsWith("-source=")) {
                 source = arg.substring("-source=".length());
@@ -1109,43 +1151,47 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 设置等级组倍率
         if (plugin.getBoosterManager().setLevelGroupMultiplier(levelGroup, multiplier, endTime)) {
+            PlayerBooster groupBooster = plugin.getBoosterManager().getLevelGroupBooster(levelGroup);
+            plugin.getAuditLog().recordServer(AuditEntry.Action.CHANGE, "level_group", levelGroup, sender.getName(),
+                    multiplier, groupBooster != null ? groupBooster.getEndTime() : endTime, levelGroup, source);
+
             // 发送确认消息
             String durationStr = (duration == -1) ? "永久" : TimeUtils.formatDuration(duration);
-            String message = plugin.getLanguageManager().getMessage(
+            String message = plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.group_multiplier_set", 
-                    "§a[ExpboostQwQ] 等级组 §e%group% §a的经验倍率已设置为 §e%multiplier%x§a，持续时间: §e%duration%")
-                    .replace("%group%", levelGroup)
-                    .replace("%multiplier%", String.valueOf(multiplier))
-                    .replace("%duration%", durationStr);
+                    "§a[ExpboostQwQ] 等级组 §e%group% §a的经验倍率已设置为 §e%multiplier%x§a，持续时间: §e%duration%",
+                    "%group%", levelGroup,
+                    "%multiplier%", multiplier,
+                    "%duration%", durationStr);
             
             // 添加选项信息
             if (!targetLevelGroup.isEmpty()) {
-                message += plugin.getLanguageManager().getMessage(
+                message += plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.level_group_restriction",
-                        "\n§7- 限制等级组: §e%group%")
-                        .replace("%group%", targetLevelGroup);
+                        "\n§7- 限制等级组: §e%group%",
+                        "%group%", targetLevelGroup);
             }
             if (!source.isEmpty()) {
-                message += plugin.getLanguageManager().getMessage(
+                message += plugin.getLanguageManager().format(
                         langCode,
                         "messages.exp_boost.source_restriction",
-                        "\n§7- 限制来源: §e%source%")
-                        .replace("%source%", source);
+                        "\n§7- 限制来源: §e%source%",
+                        "%source%", source);
             }
             
             sender.sendMessage(message);
             
             // 如果不是静默模式，广播消息
             if (!silent) {
-                String broadcastMessage = plugin.getLanguageManager().getMessage(
+                String broadcastMessage = plugin.getLanguageManager().format(
                         plugin.getLanguageManager().getDefaultLanguage(),
                         "messages.exp_boost.group_multiplier_broadcast",
-                        "§a[ExpboostQwQ] 等级组 §e%group% §a获得了 §e%multiplier%x §a经验加成，持续时间: §e%duration%")
-                        .replace("%group%", levelGroup)
-                        .replace("%multiplier%", String.valueOf(multiplier))
-                        .replace("%duration%", durationStr);
+                        "§a[ExpboostQwQ] 等级组 §e%group% §a获得了 §e%multiplier%x §a经验加成，持续时间: §e%duration%",
+                        "%group%", levelGroup,
+                        "%multiplier%", multiplier,
+                        "%duration%", durationStr);
                 Bukkit.broadcastMessage(broadcastMessage);
             }
             
@@ -1164,7 +1210,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleListGroups(CommandSender sender) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.admin")) {
@@ -1176,7 +1222,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         }
         
         // 获取所有等级组
-        ArrayList<String> groups = LevelApiUtil.getLevelGroupNames();
+        List<String> groups = LevelApiUtil.getLevelGroupNames();
         
         // 获取所有等级组倍率
         Map<String, PlayerBooster> groupBoosters = plugin.getBoosterManager().getAllLevelGroupBoosters();
@@ -1187,11 +1233,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 "messages.command.groups_title",
                 "§a[ExpboostQwQ] 可用的等级组列表和倍率设置:"));
                 
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.check.global_multiplier_info",
-                "§a[ExpboostQwQ] 全局默认经验倍率: §e%multiplier%x")
-                .replace("%multiplier%", String.valueOf(globalMultiplier)));
+                "§a[ExpboostQwQ] 全局默认经验倍率: §e%multiplier%x",
+                "%multiplier%", globalMultiplier));
         
         if (groups.isEmpty()) {
             sender.sendMessage(plugin.getLanguageManager().getMessage(
@@ -1204,20 +1250,20 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 if (booster != null && booster.isActive()) {
                     String durationStr = booster.getEndTime() == -1 ? "永久" : 
                             TimeUtils.formatDuration((booster.getEndTime() - System.currentTimeMillis()) / 1000);
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.check.group_multiplier_detail",
-                            "§7- §f%group%: §e%multiplier%x §7(剩余时间: %duration%)")
-                            .replace("%group%", group)
-                            .replace("%multiplier%", String.valueOf(booster.getMultiplier()))
-                            .replace("%duration%", durationStr));
+                            "§7- §f%group%: §e%multiplier%x §7(剩余时间: %duration%)",
+                            "%group%", group,
+                            "%multiplier%", booster.getMultiplier(),
+                            "%duration%", durationStr));
                 } else {
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    sender.sendMessage(plugin.getLanguageManager().format(
                             langCode,
                             "messages.check.group_multiplier_detail",
-                            "§7- §f%group%: §e%multiplier%x")
-                            .replace("%group%", group)
-                            .replace("%multiplier%", String.valueOf(globalMultiplier)));
+                            "§7- §f%group%: §e%multiplier%x",
+                            "%group%", group,
+                            "%multiplier%", globalMultiplier));
                 }
             }
         }
@@ -1240,7 +1286,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         // 发送确认消息
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
                 
         String message = plugin.getLanguageManager().getMessage(
@@ -1261,7 +1307,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleLogs(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.admin")) {
@@ -1408,7 +1454,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleLogsCleanup(CommandSender sender) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.admin")) {
@@ -1421,11 +1467,296 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         int deletedFiles = LogUtil.cleanupLogs();
         
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.logs.cleanup_complete",
-                "§a[ExpboostQwQ] 日志清理完成，共删除 §e%count% §a个日志文件")
-                .replace("%count%", String.valueOf(deletedFiles)));
+                "§a[ExpboostQwQ] 日志清理完成，共删除 §e%count% §a个日志文件",
+                "%count%", deletedFiles));
+    }
+    
+    /**
+     * 处理运行指标查看命令
+     * 显示经验事件、倍率计算、数据写入、日志队列和占位符请求的统计
+     * @param sender 命令发送者
+     */
+    private void handleMetrics(CommandSender sender) {
+        // 获取玩家语言，如果是控制台则使用默认语言
+        String langCode = sender instanceof Player 
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
+                : plugin.getLanguageManager().getDefaultLanguage();
+        
+        if (!sender.hasPermission("expboostqwq.command.metrics")) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.command.no_permission",
+                    "§c[ExpboostQwQ] 你没有权限执行此命令!"));
+            return;
+        }
+        
+        sender.sendMessage(plugin.getLanguageManager().getMessage(
+                langCode,
+                "messages.metrics.header",
+                "§6======= §e运行指标 §6======="));
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.metrics.exp_events",
+                "§f经验事件: §e%events% §7(得到加成 §e%boosted%§7)",
+                "%events%", PluginMetrics.getExpEvents(),
+                "%boosted%", PluginMetrics.getBoostedExpEvents()));
+        for (Map.Entry<String, long[]> entry : PluginMetrics.getExpEventsBySource().entrySet()) {
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    langCode,
+                    "messages.metrics.exp_source",
+                    "§7  - %source%: §e%events% §7(得到加成 §e%boosted%§7)",
+                    "%source%", entry.getKey(),
+                    "%events%", entry.getValue()[0],
+                    "%boosted%", entry.getValue()[1]));
+        }
+        
+        // 耗时分别以微秒和毫秒显示，P99超出最大区间时显示为 >
+        PluginMetrics.Histogram resolve = PluginMetrics.getMultiplierResolve();
+        long resolveP99 = resolve.getQuantileUpperBoundNanos(0.99);
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.metrics.multiplier_resolve",
+                "§f倍率计算（采样）: §e%count% §f次，平均 §e%mean%μs§f，P99 ≤ §e%p99%μs",
+                "%count%", resolve.getCount(),
+                "%mean%", MessageTemplate.decimal(resolve.getMeanNanos() / 1000.0, 1),
+                "%p99%", resolveP99 < 0 ? ">5000" : MessageTemplate.decimal(resolveP99 / 1000.0, 0)));
+        PluginMetrics.Histogram flush = PluginMetrics.getStorageFlush();
+        long flushP99 = flush.getQuantileUpperBoundNanos(0.99);
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.metrics.storage_flush",
+                "§f数据写入: §e%count% §f次，平均 §e%mean%ms§f，P99 ≤ §e%p99%ms§f，共写入 §e%bytes% §f字节",
+                "%count%", flush.getCount(),
+                "%mean%", MessageTemplate.decimal(flush.getMeanNanos() / 1000000.0, 1),
+                "%p99%", flushP99 < 0 ? ">5000" : MessageTemplate.decimal(flushP99 / 1000000.0, 0),
+                "%bytes%", PluginMetrics.getStorageBytes()));
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.metrics.log_queue",
+                "§f日志队列: §e%depth% §f条等待写入",
+                "%depth%", LogUtil.getQueueDepth()));
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.metrics.placeholder_requests",
+                "§f占位符请求: §e%count% §f次",
+                "%count%", PluginMetrics.getPlaceholderRequests()));
+    }
+    
+    /**
+     * 处理每tick耗时查看命令
+     * 显示最近若干tick中插件耗时的P50、P99和最大值占50ms tick预算的比例，以及各分类的耗时
+     * @param sender 命令发送者
+     */
+    private void handleProfiler(CommandSender sender) {
+        // 获取玩家语言，如果是控制台则使用默认语言
+        String langCode = sender instanceof Player 
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
+                : plugin.getLanguageManager().getDefaultLanguage();
+        
+        if (!sender.hasPermission("expboostqwq.command.profiler")) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.command.no_permission",
+                    "§c[ExpboostQwQ] 你没有权限执行此命令!"));
+            return;
+        }
+        
+        TickProfiler profiler = plugin.getTickProfiler();
+        if (!profiler.isEnabled()) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.profiler.disabled",
+                    "§c[ExpboostQwQ] 每tick耗时统计未启用"));
+            return;
+        }
+        
+        TickProfiler.Report report = profiler.report();
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.profiler.header",
+                "§6======= §e每tick耗时 (最近 %ticks% tick) §6=======",
+                "%ticks%", report.getTicks()));
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.profiler.total",
+                "§f总计: P50 §e%p50%ms §7(%p50_share%%) §fP99 §e%p99%ms §7(%p99_share%%) §f最大 §e%max%ms §7(%max_share%%)",
+                "%p50%", TickProfiler.formatMillis(report.getP50Nanos()),
+                "%p50_share%", TickProfiler.formatPercent(report.getP50Nanos()),
+                "%p99%", TickProfiler.formatMillis(report.getP99Nanos()),
+                "%p99_share%", TickProfiler.formatPercent(report.getP99Nanos()),
+                "%max%", TickProfiler.formatMillis(report.getMaxNanos()),
+                "%max_share%", TickProfiler.formatPercent(report.getMaxNanos())));
+        for (TickProfiler.Section section : TickProfiler.Section.values()) {
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    langCode,
+                    "messages.profiler.section",
+                    "§7  - %section%: §f平均 §e%mean%ms§f，最大 §e%max%ms",
+                    "%section%", plugin.getLanguageManager().getMessage(
+                            langCode, "messages.profiler.sections." + section.getKey(), section.getKey()),
+                    "%mean%", TickProfiler.formatMillis(report.getSectionMeanNanos(section)),
+                    "%max%", TickProfiler.formatMillis(report.getSectionMaxNanos(section))));
+        }
+    }
+    
+    /**
+     * 处理审计日志查询命令
+     * 用法: /expbooster audit <玩家|server> [时长]，只显示指定时长内的事件
+     * @param sender 命令发送者
+     * @param args 命令参数
+     */
+    private void handleAudit(CommandSender sender, String[] args) {
+        // 获取玩家语言，如果是控制台则使用默认语言
+        String langCode = sender instanceof Player 
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
+                : plugin.getLanguageManager().getDefaultLanguage();
+        
+        if (!sender.hasPermission("expboostqwq.command.audit")) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.command.no_permission",
+                    "§c[ExpboostQwQ] 你没有权限执行此命令!"));
+            return;
+        }
+        
+        if (!plugin.getAuditLog().isEnabled()) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.audit.disabled",
+                    "§c[ExpboostQwQ] 审计日志未启用"));
+            return;
+        }
+        
+        if (args.length < 2) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.usage.audit",
+                    "§c[ExpboostQwQ] 用法: /expbooster audit <玩家|server> [时长]"));
+            return;
+        }
+        
+        // 确定查询目标，离线玩家也可以查询
+        UUID target;
+        String targetName = args[1];
+        if (args[1].equalsIgnoreCase("server")) {
+            target = AuditEntry.SERVER_TARGET;
+        } else {
+            target = resolvePlayerUUID(args[1]);
+            if (target == null) {
+                sender.sendMessage(plugin.getLanguageManager().format(
+                        langCode,
+                        "messages.command.player_not_found",
+                        "§c[ExpboostQwQ] 找不到玩家 '%player%'!",
+                        "%player%", args[1]));
+                return;
+            }
+        }
+        
+        // 解析查询的时间范围
+        long since = 0;
+        if (args.length >= 3) {
+            try {
+                long seconds = TimeUtils.parseDuration(args[2]);
+                if (seconds > 0) {
+                    since = System.currentTimeMillis() - seconds * 1000;
+                }
+            } catch (IllegalArgumentException e) {
+                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                        langCode,
+                        "messages.command.invalid_duration",
+                        "§c[ExpboostQwQ] 无效的时间格式! 使用例如 1d12h30m 或 'permanent'"));
+                return;
+            }
+        }
+        
+        int limit = Math.max(1, plugin.getConfig().getInt("settings.audit.query_limit", 20));
+        
+        // 查询在后台线程完成，结果回到主线程发送
+        plugin.getAuditLog().query(target, since, limit).whenComplete((entries, error) ->
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (error != null) {
+                        LogUtil.error("查询审计日志时出错: " + error.getMessage(), error);
+                        sender.sendMessage(plugin.getLanguageManager().getMessage(
+                                langCode,
+                                "messages.audit.query_failed",
+                                "§c[ExpboostQwQ] 查询审计日志失败，请查看控制台"));
+                        return;
+                    }
+                    sendAuditEntries(sender, langCode, targetName, entries);
+                }));
+    }
+    
+    /**
+     * 发送审计日志查询结果
+     * @param sender 命令发送者
+     * @param langCode 语言代码
+     * @param targetName 查询目标名称
+     * @param entries 按时间顺序排列的事件
+     */
+    private void sendAuditEntries(CommandSender sender, String langCode, String targetName, List<AuditEntry> entries) {
+        if (entries.isEmpty()) {
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    langCode,
+                    "messages.audit.no_entries",
+                    "§e[ExpboostQwQ] 没有找到 §6%target% §e的审计记录",
+                    "%target%", targetName));
+            return;
+        }
+        
+        sender.sendMessage(plugin.getLanguageManager().format(
+                langCode,
+                "messages.audit.header",
+                "§6======= §e%target% 的审计记录 (%count%) §6=======",
+                "%target%", targetName,
+                "%count%", entries.size()));
+        
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        for (AuditEntry entry : entries) {
+            String actionKey = entry.getAction().name().toLowerCase();
+            String action = plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.audit.actions." + actionKey,
+                    actionKey);
+            String endTime = entry.getEndTime() == -1
+                    ? plugin.getLanguageManager().getMessage(langCode, "messages.audit.permanent", "永久")
+                    : dateFormat.format(new Date(entry.getEndTime()));
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    langCode,
+                    "messages.audit.entry",
+                    "§7[%time%] §e%action% §f%scope% §7%name% §e%multiplier%x §7到期: §f%end% §7操作者: §f%actor%",
+                    "%time%", dateFormat.format(new Date(entry.getTime())),
+                    "%action%", action,
+                    "%scope%", entry.getScope(),
+                    "%name%", entry.getTargetName(),
+                    "%multiplier%", entry.getMultiplier(),
+                    "%end%", endTime,
+                    "%actor%", entry.getActor()));
+        }
+    }
+    
+    /**
+     * 根据名称或UUID查找玩家，包括离线玩家
+     * @param nameOrUuid 玩家名或UUID字符串
+     * @return 玩家UUID，找不到时返回null
+     */
+    private UUID resolvePlayerUUID(String nameOrUuid) {
+        Player online = Bukkit.getPlayerExact(nameOrUuid);
+        if (online != null) {
+            return online.getUniqueId();
+        }
+        try {
+            return UUID.fromString(nameOrUuid);
+        } catch (IllegalArgumentException ignored) {
+            // 不是UUID，继续按名称查找离线玩家
+        }
+        for (OfflinePlayer offline : Bukkit.getOfflinePlayers()) {
+            if (nameOrUuid.equalsIgnoreCase(offline.getName())) {
+                return offline.getUniqueId();
+            }
+        }
+        return null;
     }
     
     /**
@@ -1436,7 +1767,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void sendHelpMessage(CommandSender sender) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         sender.sendMessage(plugin.getLanguageManager().getMessage(
@@ -1493,6 +1824,27 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                     "§a/expbooster removebooster <玩家> <ID> §7- 移除特定经验加成"));
         }
         
+        if (sender.hasPermission("expboostqwq.command.audit")) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.help.audit",
+                    "§a/expbooster audit <玩家|server> [时长] §7- 查询加成审计记录"));
+        }
+        
+        if (sender.hasPermission("expboostqwq.command.metrics")) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.help.metrics",
+                    "§a/expbooster metrics §7- 查看插件运行指标"));
+        }
+        
+        if (sender.hasPermission("expboostqwq.command.profiler")) {
+            sender.sendMessage(plugin.getLanguageManager().getMessage(
+                    langCode,
+                    "messages.help.profiler",
+                    "§a/expbooster profiler §7- 查看插件每tick耗时"));
+        }
+        
         if (sender.hasPermission("expboostqwq.command.listgroups")) {
             sender.sendMessage(plugin.getLanguageManager().getMessage(
                     langCode,
@@ -1559,23 +1911,23 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             // 显示当前语言
             if (sender instanceof Player) {
                 Player player = (Player) sender;
-                String langCode = plugin.getLanguageManager().getPlayerLanguage(player.getUniqueId().toString());
+                String langCode = plugin.getLanguageManager().getPlayerLanguage(player.getUniqueId());
                 String langName = plugin.getLanguageManager().getLanguage(langCode).getString("language.name", langCode);
                 
-                String message = plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode, 
                         "messages.command.language_current", 
-                        "§a当前语言: §e%language%");
-                sender.sendMessage(message.replace("%language%", langName));
+                        "§a当前语言: §e%language%",
+                        "%language%", langName));
             } else {
                 String langCode = plugin.getLanguageManager().getDefaultLanguage();
                 String langName = plugin.getLanguageManager().getLanguage(langCode).getString("language.name", langCode);
                 
-                String message = plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode, 
                         "messages.command.language_current", 
-                        "§a当前语言: §e%language%");
-                sender.sendMessage(message.replace("%language%", langName));
+                        "§a当前语言: §e%language%",
+                        "%language%", langName));
                 sender.sendMessage(plugin.getLanguageManager().getMessage(
                         langCode, 
                         "messages.usage.language", 
@@ -1599,10 +1951,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                     .map(entry -> entry.getKey() + " (" + entry.getValue() + ")")
                     .collect(Collectors.joining(", "));
             
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
-                    "messages.command.available_languages", 
-                    "§a可用的语言: %languages%")
-                    .replace("%languages%", langsList));
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    plugin.getLanguageManager().getDefaultLanguage(),
+                    "messages.command.available_languages",
+                    "§a可用的语言: %languages%",
+                    "%languages%", langsList));
             return;
         } else if (action.equals("player")) {
             // 设置玩家的语言
@@ -1624,10 +1977,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             Player target = Bukkit.getPlayerExact(playerName);
             
             if (target == null) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
-                        "messages.command.player_not_found", 
-                        "§c找不到玩家: %player%")
-                        .replace("%player%", playerName));
+                sender.sendMessage(plugin.getLanguageManager().format(
+                        plugin.getLanguageManager().getDefaultLanguage(),
+                        "messages.command.player_not_found",
+                        "§c找不到玩家: %player%",
+                        "%player%", playerName));
                 return;
             }
             
@@ -1635,38 +1989,41 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             Map<String, String> languages = plugin.getLanguageManager().getAvailableLanguages();
             
             if (!languages.containsKey(langCode)) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
-                        "messages.command.language_not_found", 
-                        "§c找不到语言: %language%")
-                        .replace("%language%", langCode));
+                sender.sendMessage(plugin.getLanguageManager().format(
+                        plugin.getLanguageManager().getDefaultLanguage(),
+                        "messages.command.language_not_found",
+                        "§c找不到语言: %language%",
+                        "%language%", langCode));
                 
                 if (!languages.isEmpty()) {
                     String langsList = String.join(", ", languages.keySet());
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
-                            "messages.command.available_languages", 
-                            "§a可用的语言: %languages%")
-                            .replace("%languages%", langsList));
+                    sender.sendMessage(plugin.getLanguageManager().format(
+                            plugin.getLanguageManager().getDefaultLanguage(),
+                            "messages.command.available_languages",
+                            "§a可用的语言: %languages%",
+                            "%languages%", langsList));
                 }
                 return;
             }
             
             // 设置玩家语言
-            plugin.getLanguageManager().setPlayerLanguage(target.getUniqueId().toString(), langCode);
+            plugin.getLanguageManager().setPlayerLanguage(target.getUniqueId(), langCode);
             
             // 向管理员发送确认消息
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
-                    "messages.command.language_set_other", 
-                    "§a已将玩家 §e%player% §a的语言设置为: §e%language%")
-                    .replace("%player%", target.getName())
-                    .replace("%language%", languages.get(langCode)));
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    plugin.getLanguageManager().getDefaultLanguage(),
+                    "messages.command.language_set_other",
+                    "§a已将玩家 §e%player% §a的语言设置为: §e%language%",
+                    "%player%", target.getName(),
+                    "%language%", languages.get(langCode)));
             
             // 向玩家发送通知
             if (sender != target) {
-                target.sendMessage(plugin.getLanguageManager().getMessage(
+                target.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.command.language_set", 
-                        "§a你的语言已设置为: §e%language%")
-                        .replace("%language%", languages.get(langCode)));
+                        "§a你的语言已设置为: §e%language%",
+                        "%language%", languages.get(langCode)));
             }
             
             return;
@@ -1690,17 +2047,19 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             Map<String, String> languages = plugin.getLanguageManager().getAvailableLanguages();
             
             if (!languages.containsKey(langCode)) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
-                        "messages.command.language_not_found", 
-                        "§c找不到语言: %language%")
-                        .replace("%language%", langCode));
+                sender.sendMessage(plugin.getLanguageManager().format(
+                        plugin.getLanguageManager().getDefaultLanguage(),
+                        "messages.command.language_not_found",
+                        "§c找不到语言: %language%",
+                        "%language%", langCode));
                 
                 if (!languages.isEmpty()) {
                     String langsList = String.join(", ", languages.keySet());
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
-                            "messages.command.available_languages", 
-                            "§a可用的语言: %languages%")
-                            .replace("%languages%", langsList));
+                    sender.sendMessage(plugin.getLanguageManager().format(
+                            plugin.getLanguageManager().getDefaultLanguage(),
+                            "messages.command.available_languages",
+                            "§a可用的语言: %languages%",
+                            "%languages%", langsList));
                 }
                 return;
             }
@@ -1709,10 +2068,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             plugin.getLanguageManager().setDefaultLanguage(langCode);
             
             // 向管理员发送确认消息
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
-                    "messages.command.server_language_set", 
-                    "§a服务器默认语言已设置为: §e%language%")
-                    .replace("%language%", languages.get(langCode)));
+            sender.sendMessage(plugin.getLanguageManager().format(
+                    plugin.getLanguageManager().getDefaultLanguage(),
+                    "messages.command.server_language_set",
+                    "§a服务器默认语言已设置为: §e%language%",
+                    "%language%", languages.get(langCode)));
             
             return;
         } else {
@@ -1729,30 +2089,32 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             Map<String, String> languages = plugin.getLanguageManager().getAvailableLanguages();
             
             if (!languages.containsKey(langCode)) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
-                        "messages.command.language_not_found", 
-                        "§c找不到语言: %language%")
-                        .replace("%language%", langCode));
+                sender.sendMessage(plugin.getLanguageManager().format(
+                        plugin.getLanguageManager().getDefaultLanguage(),
+                        "messages.command.language_not_found",
+                        "§c找不到语言: %language%",
+                        "%language%", langCode));
                 
                 if (!languages.isEmpty()) {
                     String langsList = String.join(", ", languages.keySet());
-                    sender.sendMessage(plugin.getLanguageManager().getMessage(
-                            "messages.command.available_languages", 
-                            "§a可用的语言: %languages%")
-                            .replace("%languages%", langsList));
+                    sender.sendMessage(plugin.getLanguageManager().format(
+                            plugin.getLanguageManager().getDefaultLanguage(),
+                            "messages.command.available_languages",
+                            "§a可用的语言: %languages%",
+                            "%languages%", langsList));
                 }
                 return;
             }
             
             // 设置玩家语言
-            plugin.getLanguageManager().setPlayerLanguage(player.getUniqueId().toString(), langCode);
+            plugin.getLanguageManager().setPlayerLanguage(player.getUniqueId(), langCode);
             
             // 发送确认消息
-            player.sendMessage(plugin.getLanguageManager().getMessage(
+            player.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.language_set", 
-                    "§a你的语言已设置为: §e%language%")
-                    .replace("%language%", languages.get(langCode)));
+                    "§a你的语言已设置为: §e%language%",
+                    "%language%", languages.get(langCode)));
         }
     }
     
@@ -1765,7 +2127,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleDisable(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.admin")) {
@@ -1825,11 +2187,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         Player target = Bukkit.getPlayerExact(playerName);
         
         if (target == null) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.player_not_found",
-                    "§c[ExpboostQwQ] 找不到玩家: %player%")
-                    .replace("%player%", playerName));
+                    "§c[ExpboostQwQ] 找不到玩家: %player%",
+                    "%player%", playerName));
             return;
         }
         
@@ -1837,11 +2199,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 检查玩家是否有加成
         if (!plugin.getBoosterManager().hasPlayerBooster(targetUUID)) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.no_player_booster",
-                    "§a[ExpboostQwQ] 玩家 §e%player% §a当前没有个人经验加成")
-                    .replace("%player%", target.getName()));
+                    "§a[ExpboostQwQ] 玩家 §e%player% §a当前没有个人经验加成",
+                    "%player%", target.getName()));
             return;
         }
         
@@ -1849,22 +2211,26 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         double oldMultiplier = plugin.getBoosterManager().getPlayerBooster(targetUUID).getMultiplier();
         
         // 移除玩家加成
+        for (PlayerBooster oldBooster : plugin.getBoosterManager().getPlayerBoosters(targetUUID).getActiveBoosters()) {
+            plugin.getAuditLog().recordPlayer(AuditEntry.Action.REMOVE, targetUUID, target.getName(),
+                    sender.getName(), oldBooster);
+        }
         plugin.getBoosterManager().removePlayerBooster(targetUUID);
         
         // 记录倍率变化
         LogUtil.multiplierChange(target, oldMultiplier, 1.0, 0, "个人");
         
         // 发送确认消息
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.player_booster_removed",
-                "§c[ExpboostQwQ] 已移除玩家 §e%player% §c的经验加成")
-                .replace("%player%", target.getName()));
+                "§c[ExpboostQwQ] 已移除玩家 §e%player% §c的经验加成",
+                "%player%", target.getName()));
         
         // 通知玩家
         if (!sender.equals(target)) {
             target.sendMessage(plugin.getLanguageManager().getMessage(
-                    plugin.getLanguageManager().getPlayerLanguage(target.getUniqueId().toString()),
+                    plugin.getLanguageManager().getPlayerLanguage(target.getUniqueId()),
                     "messages.exp_boost.player_booster_removed_self",
                     "§c[ExpboostQwQ] 你的经验加成已被移除"));
         }
@@ -1896,6 +2262,8 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 移除全服加成
         plugin.getBoosterManager().removeServerBooster();
+        plugin.getAuditLog().recordServer(AuditEntry.Action.REMOVE, "server", "", sender.getName(),
+                oldMultiplier, serverBooster.getEndTime(), serverBooster.getLevelGroup(), serverBooster.getSource());
         
         // 记录倍率变化
         LogUtil.multiplierChange(null, oldMultiplier, 1.0, 0, "全服");
@@ -1936,28 +2304,28 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 检查等级组是否存在
         if (!LevelApiUtil.isLevelGroupExists(groupName)) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.level_group_not_exists",
-                    "§c[ExpboostQwQ] 错误: 等级组 '%group%' 不存在")
-                    .replace("%group%", groupName));
+                    "§c[ExpboostQwQ] 错误: 等级组 '%group%' 不存在",
+                    "%group%", groupName));
             
             String availableGroups = String.join(", ", LevelApiUtil.getLevelGroupNames());
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.available_level_groups",
-                    "§c[ExpboostQwQ] 可用的等级组: %groups%")
-                    .replace("%groups%", availableGroups));
+                    "§c[ExpboostQwQ] 可用的等级组: %groups%",
+                    "%groups%", availableGroups));
             return;
         }
         
         // 检查等级组是否有加成
         if (!plugin.getBoosterManager().hasLevelGroupBooster(groupName)) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.no_group_booster",
-                    "§a[ExpboostQwQ] 等级组 §e%group% §a当前没有特定经验加成")
-                    .replace("%group%", groupName));
+                    "§a[ExpboostQwQ] 等级组 §e%group% §a当前没有特定经验加成",
+                    "%group%", groupName));
             return;
         }
         
@@ -1965,24 +2333,29 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         double oldMultiplier = plugin.getBoosterManager().getLevelGroupMultiplier(groupName);
         
         // 移除等级组加成
+        PlayerBooster groupBooster = plugin.getBoosterManager().getLevelGroupBooster(groupName);
         plugin.getBoosterManager().removeLevelGroupBooster(groupName);
+        if (groupBooster != null) {
+            plugin.getAuditLog().recordServer(AuditEntry.Action.REMOVE, "level_group", groupName, sender.getName(),
+                    groupBooster.getMultiplier(), groupBooster.getEndTime(), groupName, "");
+        }
         
         // 记录倍率变化
         LogUtil.multiplierChange(null, oldMultiplier, 1.0, 0, "等级组 " + groupName);
         
         // 发送确认消息
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.group_booster_removed",
-                "§c[ExpboostQwQ] 已移除等级组 §e%group% §c的经验加成")
-                .replace("%group%", groupName));
+                "§c[ExpboostQwQ] 已移除等级组 §e%group% §c的经验加成",
+                "%group%", groupName));
         
         // 广播消息
-        Bukkit.broadcastMessage(plugin.getLanguageManager().getMessage(
+        Bukkit.broadcastMessage(plugin.getLanguageManager().format(
                 plugin.getLanguageManager().getDefaultLanguage(),
                 "messages.exp_boost.group_booster_removed_broadcast",
-                "§c[ExpboostQwQ] 等级组 §e%group% §c的经验加成已被移除")
-                .replace("%group%", groupName));
+                "§c[ExpboostQwQ] 等级组 §e%group% §c的经验加成已被移除",
+                "%group%", groupName));
         
         // 记录日志
         LogUtil.debug("管理员 " + sender.getName() + " 移除了等级组 " + groupName + " 的经验加成");
@@ -2043,6 +2416,15 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("expboostqwq.command.removebooster")) {
                 completions.add("removebooster");
             }
+            if (sender.hasPermission("expboostqwq.command.audit")) {
+                completions.add("audit");
+            }
+            if (sender.hasPermission("expboostqwq.command.metrics")) {
+                completions.add("metrics");
+            }
+            if (sender.hasPermission("expboostqwq.command.profiler")) {
+                completions.add("profiler");
+            }
             
             return filterCompletions(completions, args[0]);
         }
@@ -2112,6 +2494,24 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
                 }
                 break;
 
+            case "audit":
+                if (sender.hasPermission("expboostqwq.command.audit")) {
+                    if (args.length == 2) {
+                        // 补全玩家名和全服事件
+                        completions.add("server");
+                        for (Player player : Bukkit.getOnlinePlayers()) {
+                            completions.add(player.getName());
+                        }
+                    } else if (args.length == 3) {
+                        // 补全查询时长
+                        completions.add("1h");
+                        completions.add("1d");
+                        completions.add("7d");
+                        completions.add("30d");
+                    }
+                }
+                break;
+
             // 其他子命令的补全逻辑保持不变...
         }
         
@@ -2139,7 +2539,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleCheckUpdate(CommandSender sender) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.command.checkupdate")) {
@@ -2181,12 +2581,12 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         
         // 检查是否已有更新
         if (plugin.getUpdateChecker().isUpdateAvailable()) {
-            String message = plugin.getLanguageManager().getMessage(
+            String message = plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.update_available",
-                    "§b[ExpboostQwQ] §f检测到新版本: §a%latest_version% §f(当前版本: §c%current_version%§f)");
-            message = message.replace("%latest_version%", plugin.getUpdateChecker().getLatestVersion())
-                            .replace("%current_version%", plugin.getDescription().getVersion());
+                    "§b[ExpboostQwQ] §f检测到新版本: §a%latest_version% §f(当前版本: §c%current_version%§f)",
+                    "%latest_version%", plugin.getUpdateChecker().getLatestVersion(),
+                    "%current_version%", plugin.getDescription().getVersion());
             sender.sendMessage(message);
             
             sender.sendMessage(plugin.getLanguageManager().getMessage(
@@ -2212,7 +2612,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleListBoosters(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.command.list")) {
@@ -2230,11 +2630,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             // 指定了玩家
             target = Bukkit.getPlayer(args[1]);
             if (target == null) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage(
+                sender.sendMessage(plugin.getLanguageManager().format(
                         langCode,
                         "messages.command.player_not_found",
-                        "§c[ExpboostQwQ] 找不到玩家 '%player%'!")
-                        .replace("%player%", args[1]));
+                        "§c[ExpboostQwQ] 找不到玩家 '%player%'!",
+                        "%player%", args[1]));
                 return;
             }
         } else if (sender instanceof Player) {
@@ -2253,23 +2653,23 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         MultiplePlayerBoosters boosters = plugin.getBoosterManager().getPlayerBoosters(target.getUniqueId());
         
         if (boosters == null || !boosters.hasActiveBoosters()) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.no_active_boosters",
-                    "§e[ExpboostQwQ] 玩家 §6%player% §e没有活跃的经验加成")
-                    .replace("%player%", target.getName()));
+                    "§e[ExpboostQwQ] 玩家 §6%player% §e没有活跃的经验加成",
+                    "%player%", target.getName()));
             return;
         }
         
         // 列出所有活跃的加成
         List<PlayerBooster> activeBoosters = boosters.getActiveBoosters();
         
-        sender.sendMessage(plugin.getLanguageManager().getMessage(
+        sender.sendMessage(plugin.getLanguageManager().format(
                 langCode,
                 "messages.exp_boost.list_header",
-                "§a[ExpboostQwQ] 玩家 §e%player% §a的经验加成列表 (§e%count%§a个):")
-                .replace("%player%", target.getName())
-                .replace("%count%", String.valueOf(activeBoosters.size())));
+                "§a[ExpboostQwQ] 玩家 §e%player% §a的经验加成列表 (§e%count%§a个):",
+                "%player%", target.getName(),
+                "%count%", activeBoosters.size()));
         
         for (int i = 0; i < activeBoosters.size(); i++) {
             PlayerBooster booster = activeBoosters.get(i);
@@ -2279,15 +2679,15 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
             String levelGroup = booster.getLevelGroup().isEmpty() ? "所有" : booster.getLevelGroup();
             String source = booster.getSource().isEmpty() ? "所有" : booster.getSource();
             
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.list_item",
-                    "§a %index%. §e%multiplier%x §a(时间: §e%time%§a, 等级组: §e%levelGroup%§a, 来源: §e%source%§a)")
-                    .replace("%index%", String.valueOf(i + 1))
-                    .replace("%multiplier%", String.valueOf(booster.getMultiplier()))
-                    .replace("%time%", timeLeft)
-                    .replace("%levelGroup%", levelGroup)
-                    .replace("%source%", source));
+                    "§a %index%. §e%multiplier%x §a(时间: §e%time%§a, 等级组: §e%levelGroup%§a, 来源: §e%source%§a)",
+                    "%index%", i + 1,
+                    "%multiplier%", booster.getMultiplier(),
+                    "%time%", timeLeft,
+                    "%levelGroup%", levelGroup,
+                    "%source%", source));
         }
         
         // 如果发送者有管理权限，显示移除选项
@@ -2308,7 +2708,7 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
     private void handleRemoveBooster(CommandSender sender, String[] args) {
         // 获取玩家语言，如果是控制台则使用默认语言
         String langCode = sender instanceof Player 
-                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId().toString())
+                ? plugin.getLanguageManager().getPlayerLanguage(((Player) sender).getUniqueId())
                 : plugin.getLanguageManager().getDefaultLanguage();
         
         if (!sender.hasPermission("expboostqwq.command.removebooster")) {
@@ -2330,11 +2730,11 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         // 获取目标玩家
         Player target = Bukkit.getPlayer(args[1]);
         if (target == null) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.command.player_not_found",
-                    "§c[ExpboostQwQ] 找不到玩家 '%player%'!")
-                    .replace("%player%", args[1]));
+                    "§c[ExpboostQwQ] 找不到玩家 '%player%'!",
+                    "%player%", args[1]));
             return;
         }
         
@@ -2358,31 +2758,37 @@ public class ExpBoosterCommand implements CommandExecutor, TabCompleter {
         }
         
         // 移除加成
+        MultiplePlayerBoosters targetBoosters = plugin.getBoosterManager().getPlayerBoosters(target.getUniqueId());
+        PlayerBooster removedBooster = targetBoosters != null && boosterId < targetBoosters.getBoosterCount()
+                ? targetBoosters.getAllBoosters().get(boosterId) : null;
         boolean removed = plugin.getBoosterManager().removePlayerBoosterByIndex(target.getUniqueId(), boosterId);
         
         if (removed) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            plugin.getAuditLog().recordPlayer(AuditEntry.Action.REMOVE, target.getUniqueId(), target.getName(),
+                    sender.getName(), removedBooster);
+
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.booster_removed",
-                    "§a[ExpboostQwQ] 已成功移除玩家 §e%player% §a的第 §e%id% §a个经验加成")
-                    .replace("%player%", target.getName())
-                    .replace("%id%", String.valueOf(boosterId + 1)));
+                    "§a[ExpboostQwQ] 已成功移除玩家 §e%player% §a的第 §e%id% §a个经验加成",
+                    "%player%", target.getName(),
+                    "%id%", boosterId + 1));
             
             // 通知玩家
             if (!sender.equals(target)) {
-                String targetLangCode = plugin.getLanguageManager().getPlayerLanguage(target.getUniqueId().toString());
+                String targetLangCode = plugin.getLanguageManager().getPlayerLanguage(target.getUniqueId());
                 target.sendMessage(plugin.getLanguageManager().getMessage(
                         targetLangCode,
                         "messages.exp_boost.your_booster_removed",
                         "§a[ExpboostQwQ] 你的一个经验加成已被移除"));
             }
         } else {
-            sender.sendMessage(plugin.getLanguageManager().getMessage(
+            sender.sendMessage(plugin.getLanguageManager().format(
                     langCode,
                     "messages.exp_boost.booster_not_found",
-                    "§c[ExpboostQwQ] 找不到玩家 §e%player% §c的第 §e%id% §c个经验加成")
-                    .replace("%player%", target.getName())
-                    .replace("%id%", String.valueOf(boosterId + 1)));
+                    "§c[ExpboostQwQ] 找不到玩家 §e%player% §c的第 §e%id% §c个经验加成",
+                    "%player%", target.getName(),
+                    "%id%", boosterId + 1));
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,352 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.bukkit.Bukkit;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 加成数据异步写入器
+ * 数据变更时只标记为脏数据，在一个保存窗口内合并所有变更，
+ * 由后台线程通过BoosterStorage写入。
+ * 全局数据和玩家数据分别标记，玩家数据只写入发生变更的玩家
+ */
+public class AsyncBoosterWriter {
+    
+    private final ExpboostQwQ plugin;
+    // 数据存储
+    private final BoosterStorage storage;
+    // 在主线程上采集当前数据快照
+    private final SnapshotSource snapshotSource;
+    // 后台写入线程，玩家数据的读取也在此线程执行，保证读写顺序
+    private final ExecutorService executor;
+    // 发生变更、等待保存的玩家
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+    // 全局数据是否发生变更
+    private final AtomicBoolean globalDirty = new AtomicBoolean(false);
+    // 是否已经安排了保存任务
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // 合并窗口（tick）
+    private final long saveDelayTicks;
+    
+    // 等待后台线程写入的数据，多次提交会合并为一次写入
+    private final Object pendingLock = new Object();
+    private Map<UUID, List<PlayerBooster>> pendingPlayers = new HashMap<>();
+    private BoosterStorage.GlobalData pendingGlobal = null;
+    private boolean drainQueued = false;
+    // 所有对存储的访问都持有此锁，后台线程超时后在主线程补写或读取时不会与正在进行的写入交错
+    private final Object storageLock = new Object();
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     * @param storage 数据存储
+     * @param snapshotSource 数据快照提供者，只会在主线程调用
+     */
+    public AsyncBoosterWriter(ExpboostQwQ plugin, BoosterStorage storage, SnapshotSource snapshotSource) {
+        this.plugin = plugin;
+        this.storage = storage;
+        this.snapshotSource = snapshotSource;
+        this.saveDelayTicks = Math.max(1L, plugin.getConfig().getLong("settings.storage.save_delay_ticks", 20L));
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ExpboostQwQ-BoosterWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 标记全局数据（全服、等级组、全局默认倍率）已变更
+     */
+    public void markGlobalDirty() {
+        globalDirty.set(true);
+        scheduleFlush();
+    }
+    
+    /**
+     * 标记玩家数据已变更
+     * @param uuid 玩家UUID
+     */
+    public void markPlayerDirty(UUID uuid) {
+        dirtyPlayers.add(uuid);
+        scheduleFlush();
+    }
+    
+    /**
+     * 安排一次保存，同一保存窗口内的多次变更只会触发一次序列化和写入
+     */
+    private void scheduleFlush() {
+        // 插件禁用过程中不能再注册任务，最终数据会由shutdown写入
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskLater(plugin, this::flush, saveDelayTicks);
+        }
+    }
+    
+    /**
+     * 立即在当前线程采集变更数据并交给后台线程写入
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        // 只有在主线程采集快照的时间计入tick耗时，序列化和写入在后台线程完成
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            Snapshot snapshot = captureDirty();
+            if (snapshot != null) {
+                submit(snapshot);
+            }
+        } finally {
+            profiler.stop(TickProfiler.Section.SAVE, start);
+        }
+    }
+    
+    /**
+     * 立即保存单个玩家的数据，用于玩家退出时卸载数据
+     * 如果玩家没有未保存的变更则不做任何事
+     *
+     * @param uuid 玩家UUID
+     * @param boosters 玩家当前的加成列表
+     */
+    public void flushPlayer(UUID uuid, List<PlayerBooster> boosters) {
+        if (dirtyPlayers.remove(uuid)) {
+            submit(new Snapshot(Collections.singletonMap(uuid, boosters), null));
+        }
+    }
+    
+    /**
+     * 在后台线程删除存储中所有已过期的玩家加成，不等待结果
+     * 只影响没有加载到内存中的玩家，已加载玩家的过期加成由BoosterManager在内存中清理
+     *
+     * @param now 当前时间戳（毫秒）
+     */
+    public void purgeExpired(long now) {
+        try {
+            executor.execute(() -> {
+                try {
+                    int removed;
+                    synchronized (storageLock) {
+                        removed = storage.deleteExpired(now);
+                    }
+                    if (removed > 0) {
+                        LogUtil.debug(() -> "已从存储中清理 " + removed + " 个过期的玩家加成");
+                    }
+                } catch (IOException e) {
+                    LogUtil.error("清理过期加成数据时出错: " + e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 写入器已关闭
+        }
+    }
+    
+    /**
+     * 在后台线程读取玩家数据并等待结果
+     * 读取排在所有已提交的写入之后，因此不会读到过期的数据。
+     * 后台线程没有及时响应时改为在当前线程读取，读取前先等待正在进行的写入结束并写入所有待写数据
+     *
+     * @param uuid 玩家UUID
+     * @param timeoutMillis 最长等待时间（毫秒）
+     * @return 玩家的有效加成列表
+     */
+    public List<PlayerBooster> loadPlayer(UUID uuid, long timeoutMillis) {
+        try {
+            return executor.submit(() -> {
+                synchronized (storageLock) {
+                    return storage.loadPlayer(uuid);
+                }
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LogUtil.warn("在后台读取玩家加成数据失败，改为直接读取: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            // 写入器已关闭
+        }
+        synchronized (storageLock) {
+            drain();
+            return storage.loadPlayer(uuid);
+        }
+    }
+    
+    /**
+     * 同步写入尚未保存的变更，并等待后台线程完成所有写入
+     * 用于重新加载数据之前，保证磁盘上的文件是最新的
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void flushAndWait(long timeoutMillis) {
+        flush();
+        try {
+            executor.submit(this::drain).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LogUtil.warn("等待加成数据写入完成时出错: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 取出所有脏标记并采集对应数据
+     * @return 数据快照，没有变更时返回null
+     */
+    private Snapshot captureDirty() {
+        boolean global = globalDirty.getAndSet(false);
+        Set<UUID> players = new HashSet<>();
+        for (UUID uuid : dirtyPlayers) {
+            if (dirtyPlayers.remove(uuid)) {
+                players.add(uuid);
+            }
+        }
+        if (!global && players.isEmpty()) {
+            return null;
+        }
+        return snapshotSource.capture(players, global);
+    }
+    
+    /**
+     * 提交快照到后台线程，与尚未写入的数据合并
+     * @param snapshot 数据快照
+     */
+    private void submit(Snapshot snapshot) {
+        synchronized (pendingLock) {
+            pendingPlayers.putAll(snapshot.players);
+            if (snapshot.global != null) {
+                pendingGlobal = snapshot.global;
+            }
+            if (drainQueued) {
+                return;
+            }
+            drainQueued = true;
+        }
+        executor.execute(this::drain);
+    }
+    
+    /**
+     * 写入所有待写数据，通常在后台线程执行
+     * 先取得存储锁再取出待写数据，因此即使主线程和后台线程同时调用，也会按提交顺序写入，
+     * 后取出的较新数据不会被较旧的数据覆盖
+     */
+    private void drain() {
+        synchronized (storageLock) {
+            Map<UUID, List<PlayerBooster>> players;
+            BoosterStorage.GlobalData global;
+            synchronized (pendingLock) {
+                players = pendingPlayers;
+                global = pendingGlobal;
+                pendingPlayers = new HashMap<>();
+                pendingGlobal = null;
+                drainQueued = false;
+            }
+            if (!players.isEmpty() || global != null) {
+                write(players, global);
+            }
+        }
+    }
+    
+    /**
+     * 把一批数据写入存储，调用时必须持有存储锁
+     * @param players 玩家数据
+     * @param global 全局数据，为null表示不写入
+     */
+    private void write(Map<UUID, List<PlayerBooster>> players, BoosterStorage.GlobalData global) {
+        long start = System.nanoTime();
+        if (!players.isEmpty()) {
+            try {
+                storage.savePlayers(players);
+            } catch (IOException e) {
+                LogUtil.error("保存玩家加成数据时出错: " + e.getMessage(), e);
+            }
+        }
+        if (global != null) {
+            try {
+                storage.saveGlobal(global);
+            } catch (IOException e) {
+                LogUtil.error("保存加成数据时出错: " + e.getMessage(), e);
+            }
+        }
+        PluginMetrics.recordStorageFlush(System.nanoTime() - start);
+    }
+    
+    /**
+     * 插件禁用时调用，写入最终数据并在限定时间内等待后台线程结束
+     * 如果超时，则在当前线程接管尚未写入的数据：先等待后台线程正在进行的写入结束（不会中断它，
+     * 中断正在写文件的线程会关闭文件通道），再同步写入剩余数据。
+     * 只有后台线程确实结束后才关闭存储，否则保持存储打开，避免后台线程访问已关闭的连接
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        flush();
+        executor.shutdown();
+        
+        boolean terminated = false;
+        try {
+            terminated = executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (!terminated) {
+                LogUtil.warn("加成数据后台写入超时，改为同步写入");
+                drain();
+                // 剩余的待写数据已在当前线程写完，后台线程只需处理完已排队的任务
+                terminated = executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drain();
+        }
+        
+        if (terminated) {
+            storage.close();
+        } else {
+            LogUtil.warn("加成数据后台线程仍未结束，为避免其访问已关闭的连接，不关闭存储");
+        }
+    }
+    
+    /**
+     * 数据快照提供者
+     */
+    public interface SnapshotSource {
+        /**
+         * 在主线程采集需要保存的数据
+         * @param players 发生变更的玩家
+         * @param global 是否需要采集全局数据
+         * @return 数据快照
+         */
+        Snapshot capture(Set<UUID> players, boolean global);
+    }
+    
+    /**
+     * 加成数据快照
+     * 在主线程采集，之后只在后台线程读取；加成对象本身不可变，因此只需复制容器
+     */
+    public static final class Snapshot {
+        // 发生变更的玩家及其加成列表，空列表表示删除该玩家的数据
+        final Map<UUID, List<PlayerBooster>> players;
+        // 全局数据，为null表示全局数据没有变更
+        final BoosterStorage.GlobalData global;
+        
+        public Snapshot(Map<UUID, List<PlayerBooster>> players, BoosterStorage.GlobalData global) {
+            this.players = Collections.unmodifiableMap(players);
+            this.global = global;
+        }
+    }
+}
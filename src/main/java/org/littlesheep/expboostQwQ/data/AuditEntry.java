@@ -0,0 +1,206 @@
+package org.littlesheep.expboostQwQ.data;
+
+import com.google.gson.JsonObject;
+
+import java.util.UUID;
+
+/**
+ * 审计日志中的一条加成事件
+ * 以JSON对象的形式逐行保存在审计日志文件中
+ */
+public class AuditEntry {
+    
+    /**
+     * 事件类型
+     */
+    public enum Action {
+        // 发放加成
+        GRANT,
+        // 手动移除加成
+        REMOVE,
+        // 加成到期自动移除
+        EXPIRE,
+        // 修改全服、全局默认或等级组倍率
+        CHANGE
+    }
+    
+    // 全服范围事件（全服加成、全局默认倍率、等级组倍率）使用的目标UUID
+    public static final UUID SERVER_TARGET = new UUID(0L, 0L);
+    
+    private final long time;          // 事件时间戳（毫秒）
+    private final Action action;      // 事件类型
+    private final String scope;       // 加成范围
+    private final UUID target;        // 目标玩家UUID
+    private final String targetName;  // 目标名称
+    private final String actor;       // 操作者名称
+    private final double multiplier;  // 倍率
+    private final long endTime;       // 结束时间戳（毫秒），-1表示永久
+    private final String levelGroup;  // 限制的等级组
+    private final String source;      // 限制的经验来源
+    
+    /**
+     * 构造函数
+     * @param time 事件时间戳（毫秒）
+     * @param action 事件类型
+     * @param scope 加成范围：player / server / global / level_group
+     * @param target 目标玩家UUID，全服范围事件为 {@link #SERVER_TARGET}
+     * @param targetName 目标名称（玩家名或等级组名）
+     * @param actor 操作者名称，自动过期时为 system
+     * @param multiplier 倍率
+     * @param endTime 结束时间戳（毫秒），-1表示永久
+     * @param levelGroup 等级组限制
+     * @param source 经验来源限制
+     */
+    public AuditEntry(long time, Action action, String scope, UUID target, String targetName, String actor,
+                      double multiplier, long endTime, String levelGroup, String source) {
+        this.time = time;
+        this.action = action;
+        this.scope = scope;
+        this.target = target;
+        this.targetName = targetName != null ? targetName : "";
+        this.actor = actor != null ? actor : "";
+        this.multiplier = multiplier;
+        this.endTime = endTime;
+        this.levelGroup = levelGroup != null ? levelGroup : "";
+        this.source = source != null ? source : "";
+    }
+    
+    /**
+     * 获取事件时间戳
+     * 
+     * @return 事件时间戳（毫秒）
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    /**
+     * 获取事件类型
+     * 
+     * @return 事件类型
+     */
+    public Action getAction() {
+        return action;
+    }
+    
+    /**
+     * 获取加成范围
+     * 
+     * @return player / server / global / level_group
+     */
+    public String getScope() {
+        return scope;
+    }
+    
+    /**
+     * 获取目标玩家UUID
+     * 
+     * @return 目标玩家UUID，全服范围事件为 {@link #SERVER_TARGET}
+     */
+    public UUID getTarget() {
+        return target;
+    }
+    
+    /**
+     * 获取目标名称
+     * 
+     * @return 玩家名或等级组名
+     */
+    public String getTargetName() {
+        return targetName;
+    }
+    
+    /**
+     * 获取操作者名称
+     * 
+     * @return 操作者名称，自动过期时为 system
+     */
+    public String getActor() {
+        return actor;
+    }
+    
+    /**
+     * 获取倍率
+     * 
+     * @return 倍率
+     */
+    public double getMultiplier() {
+        return multiplier;
+    }
+    
+    /**
+     * 获取加成结束时间戳
+     * 
+     * @return 结束时间戳（毫秒），-1表示永久
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+    
+    /**
+     * 获取限制的等级组
+     * 
+     * @return 限制的等级组名称，空字符串表示所有等级组
+     */
+    public String getLevelGroup() {
+        return levelGroup;
+    }
+    
+    /**
+     * 获取限制的经验来源
+     * 
+     * @return 限制的经验来源名称，空字符串表示所有来源
+     */
+    public String getSource() {
+        return source;
+    }
+    
+    /**
+     * 转换为单行JSON
+     * @return JSON字符串，不含换行符
+     */
+    public String toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("time", time);
+        json.addProperty("action", action.name().toLowerCase());
+        json.addProperty("scope", scope);
+        json.addProperty("target", target.toString());
+        json.addProperty("target_name", targetName);
+        json.addProperty("actor", actor);
+        json.addProperty("multiplier", multiplier);
+        json.addProperty("end_time", endTime);
+        json.addProperty("level_group", levelGroup);
+        json.addProperty("source", source);
+        return json.toString();
+    }
+    
+    /**
+     * 从单行JSON解析事件
+     * @param json JSON对象
+     * @return 事件对象
+     * @throws IllegalArgumentException 如果缺少必需的字段或字段格式无效
+     */
+    public static AuditEntry fromJson(JsonObject json) {
+        if (!json.has("time") || !json.has("action") || !json.has("target")) {
+            throw new IllegalArgumentException("审计记录缺少必需的字段");
+        }
+        return new AuditEntry(
+                json.get("time").getAsLong(),
+                Action.valueOf(json.get("action").getAsString().toUpperCase()),
+                getString(json, "scope"),
+                UUID.fromString(json.get("target").getAsString()),
+                getString(json, "target_name"),
+                getString(json, "actor"),
+                json.has("multiplier") ? json.get("multiplier").getAsDouble() : 1.0,
+                json.has("end_time") ? json.get("end_time").getAsLong() : -1,
+                getString(json, "level_group"),
+                getString(json, "source"));
+    }
+    
+    /**
+     * 读取字符串字段，缺失时返回空字符串
+     */
+    private static String getString(JsonObject json, String key) {
+        return json.has(key) ? json.get(key).getAsString() : "";
+    }
+}
@@ -0,0 +1,446 @@
+package org.littlesheep.expboostQwQ.data;
+
+import com.google.gson.JsonParser;
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加成审计日志
+ * 加成的发放、移除、过期和倍率修改以JSON行的形式追加写入 audit.jsonl，
+ * 同时在 audit.idx 中为每条记录追加一个定长索引项（时间、目标UUID、记录偏移量、同一目标的上一个索引项）。
+ * 同一目标的索引项串成一条从新到旧的链，内存中只保存每个目标最新的索引项序号，
+ * 查询时从链头向前读取，读到早于起始时间的记录或凑够数量即停止，读取量只与返回的记录数有关，
+ * 不需要扫描其他目标的索引项和日志文件本身。所有文件操作都在单独的后台线程上执行
+ */
+public class AuditLog {
+    
+    // 索引项大小：时间(8) + UUID高位(8) + UUID低位(8) + 记录偏移量(8) + 同一目标的上一个索引项序号(8)
+    private static final int INDEX_RECORD_SIZE = 40;
+    // 启动时每次读取的索引项数量
+    private static final int INDEX_BATCH = 256;
+    // 没有上一个索引项
+    private static final long NO_RECORD = -1L;
+    
+    private final File logFile;
+    private final File indexFile;
+    // 是否启用审计日志，未启用时不记录也不查询
+    private final boolean enabled;
+    private final ExecutorService executor;
+    
+    // 只在后台线程中使用
+    private FileChannel logChannel;
+    private FileChannel indexChannel;
+    // 每个目标最新的索引项序号，即索引链的链头
+    private final Map<UUID, Long> latestRecords = new HashMap<>();
+    
+    /**
+     * 构造函数，在后台线程中打开审计日志并修复未完成的索引
+     * @param folder 审计日志目录
+     * @param enabled 是否启用审计日志
+     */
+    public AuditLog(File folder, boolean enabled) {
+        this.logFile = new File(folder, "audit.jsonl");
+        this.indexFile = new File(folder, "audit.idx");
+        this.enabled = enabled;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ExpboostQwQ-AuditLog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        if (!enabled) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (!folder.exists() && !folder.mkdirs()) {
+                    throw new IOException("无法创建目录: " + folder.getPath());
+                }
+                open();
+            } catch (IOException e) {
+                LogUtil.error("无法打开审计日志，加成事件将不会被记录: " + e.getMessage(), e);
+                closeChannels();
+            }
+        });
+    }
+    
+    /**
+     * 记录一条玩家加成事件
+     * @param action 事件类型
+     * @param uuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param actor 操作者名称
+     * @param booster 相关的加成
+     */
+    public void recordPlayer(AuditEntry.Action action, UUID uuid, String playerName, String actor, PlayerBooster booster) {
+        record(new AuditEntry(System.currentTimeMillis(), action, "player", uuid, playerName, actor,
+                booster.getMultiplier(), booster.getEndTime(), booster.getLevelGroup(), booster.getSource()));
+    }
+    
+    /**
+     * 记录一条全服范围的事件（全服加成、全局默认倍率、等级组倍率）
+     * @param action 事件类型
+     * @param scope 加成范围：server / global / level_group
+     * @param targetName 目标名称，等级组事件为等级组名
+     * @param actor 操作者名称
+     * @param multiplier 倍率
+     * @param endTime 结束时间戳（毫秒），-1表示永久
+     * @param levelGroup 等级组限制
+     * @param source 经验来源限制
+     */
+    public void recordServer(AuditEntry.Action action, String scope, String targetName, String actor,
+                             double multiplier, long endTime, String levelGroup, String source) {
+        record(new AuditEntry(System.currentTimeMillis(), action, scope, AuditEntry.SERVER_TARGET, targetName, actor,
+                multiplier, endTime, levelGroup, source));
+    }
+    
+    /**
+     * 提交一条事件，由后台线程追加写入
+     * @param entry 事件
+     */
+    public void record(AuditEntry entry) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(() -> append(entry));
+        } catch (RejectedExecutionException e) {
+            LogUtil.warn("审计日志已关闭，无法记录事件: " + entry.toJson());
+        }
+    }
+    
+    /**
+     * 检查审计日志是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 查询指定目标在某个时间之后的事件
+     * @param target 目标玩家UUID，全服范围事件为 {@link AuditEntry#SERVER_TARGET}
+     * @param since 起始时间戳（毫秒），0表示不限
+     * @param limit 最多返回的事件数量，返回最近的事件
+     * @return 按时间顺序排列的事件，在后台线程中完成
+     */
+    public CompletableFuture<List<AuditEntry>> query(UUID target, long since, int limit) {
+        CompletableFuture<List<AuditEntry>> future = new CompletableFuture<>();
+        if (!enabled) {
+            future.complete(Collections.<AuditEntry>emptyList());
+            return future;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(search(target, since, limit));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * 关闭审计日志，等待已提交的事件写入完成
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        boolean submitted;
+        try {
+            executor.execute(this::forceAndClose);
+            submitted = true;
+        } catch (RejectedExecutionException e) {
+            // 已经关闭过，等后台线程结束后在当前线程关闭文件
+            submitted = false;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LogUtil.warn("审计日志写入超时，部分事件可能未保存");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!submitted) {
+            forceAndClose();
+        }
+    }
+    
+    /**
+     * 将日志和索引写入磁盘后关闭文件
+     */
+    private void forceAndClose() {
+        try {
+            if (logChannel != null) {
+                logChannel.force(false);
+                indexChannel.force(false);
+            }
+        } catch (IOException e) {
+            LogUtil.error("刷新审计日志时出错: " + e.getMessage(), e);
+        }
+        closeChannels();
+    }
+    
+    /**
+     * 打开日志和索引文件
+     * 如果上次关闭时日志已写入但索引未写入（例如服务器崩溃），为缺少的记录补写索引
+     *
+     * @throws IOException 打开失败
+     */
+    private void open() throws IOException {
+        logChannel = FileChannel.open(logFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(indexFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        // 丢弃不完整的索引项，以及指向日志末尾之外的索引项
+        long records = indexChannel.size() / INDEX_RECORD_SIZE;
+        long logSize = logChannel.size();
+        ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+        while (records > 0) {
+            readIndex(record, records - 1, 1);
+            if (record.getLong(24) < logSize) {
+                break;
+            }
+            records--;
+        }
+        indexChannel.truncate(records * INDEX_RECORD_SIZE);
+        loadLatestRecords(records);
+        
+        // 从最后一条已索引记录之后开始补写索引
+        long position = 0;
+        if (records > 0) {
+            position = skipLine(record.getLong(24));
+        }
+        int repaired = 0;
+        while (position < logSize) {
+            byte[] line = readLine(position);
+            long next = position + line.length + 1;
+            if (next > logSize) {
+                // 最后一行没有写完，截断
+                logChannel.truncate(position);
+                break;
+            }
+            try {
+                AuditEntry entry = parse(line);
+                writeIndex(entry, position);
+                repaired++;
+            } catch (RuntimeException e) {
+                LogUtil.warn("跳过无法解析的审计记录，偏移量: " + position);
+            }
+            position = next;
+        }
+        if (repaired > 0) {
+            LogUtil.info("已为 " + repaired + " 条审计记录补写索引");
+        }
+    }
+    
+    /**
+     * 读取所有索引项，记录每个目标最新的索引项序号
+     * @param records 索引项数量
+     * @throws IOException 读取失败
+     */
+    private void loadLatestRecords(long records) throws IOException {
+        latestRecords.clear();
+        ByteBuffer batch = ByteBuffer.allocate(INDEX_RECORD_SIZE * INDEX_BATCH);
+        for (long index = 0; index < records; index += INDEX_BATCH) {
+            int count = (int) Math.min(INDEX_BATCH, records - index);
+            readIndex(batch, index, count);
+            for (int i = 0; i < count; i++) {
+                int base = i * INDEX_RECORD_SIZE;
+                latestRecords.put(new UUID(batch.getLong(base + 8), batch.getLong(base + 16)), index + i);
+            }
+        }
+    }
+    
+    /**
+     * 在后台线程中追加一条事件
+     * @param entry 事件
+     */
+    private void append(AuditEntry entry) {
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            long offset = logChannel.size();
+            ByteBuffer buffer = ByteBuffer.wrap((entry.toJson() + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                logChannel.write(buffer, offset + buffer.position());
+            }
+            writeIndex(entry, offset);
+        } catch (IOException e) {
+            LogUtil.error("写入审计日志时出错: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 追加一个索引项
+     * @param entry 事件
+     * @param offset 记录在日志文件中的偏移量
+     * @throws IOException 写入失败
+     */
+    private void writeIndex(AuditEntry entry, long offset) throws IOException {
+        UUID target = entry.getTarget();
+        long index = indexChannel.size() / INDEX_RECORD_SIZE;
+        Long previous = latestRecords.get(target);
+        
+        ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+        record.putLong(entry.getTime());
+        record.putLong(target.getMostSignificantBits());
+        record.putLong(target.getLeastSignificantBits());
+        record.putLong(offset);
+        record.putLong(previous != null ? previous : NO_RECORD);
+        record.flip();
+        long position = index * INDEX_RECORD_SIZE;
+        while (record.hasRemaining()) {
+            indexChannel.write(record, position + record.position());
+        }
+        latestRecords.put(target, index);
+    }
+    
+    /**
+     * 沿目标的索引链从新到旧查找事件
+     * 索引项按写入顺序排列，时间基本递增，读到早于起始时间的记录即停止
+     *
+     * @param target 目标UUID
+     * @param since 起始时间戳（毫秒）
+     * @param limit 最多返回的事件数量
+     * @return 按时间顺序排列的事件
+     * @throws IOException 读取失败
+     */
+    private List<AuditEntry> search(UUID target, long since, int limit) throws IOException {
+        Long latest = latestRecords.get(target);
+        if (indexChannel == null || limit <= 0 || latest == null) {
+            return Collections.emptyList();
+        }
+        
+        ArrayDeque<Long> offsets = new ArrayDeque<>(limit);
+        ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+        long index = latest;
+        while (index != NO_RECORD && offsets.size() < limit) {
+            readIndex(record, index, 1);
+            if (record.getLong(0) < since) {
+                break;
+            }
+            offsets.addFirst(record.getLong(24));
+            index = record.getLong(32);
+        }
+        
+        List<AuditEntry> entries = new ArrayList<>(offsets.size());
+        for (long offset : offsets) {
+            try {
+                entries.add(parse(readLine(offset)));
+            } catch (RuntimeException e) {
+                LogUtil.warn("跳过无法解析的审计记录，偏移量: " + offset);
+            }
+        }
+        return entries;
+    }
+    
+    /**
+     * 读取连续的索引项到缓冲区开头
+     * @param buffer 缓冲区
+     * @param index 第一个索引项的序号
+     * @param count 索引项数量
+     * @throws IOException 读取失败
+     */
+    private void readIndex(ByteBuffer buffer, long index, int count) throws IOException {
+        buffer.clear();
+        buffer.limit(count * INDEX_RECORD_SIZE);
+        long position = index * INDEX_RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            if (indexChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("审计索引文件不完整");
+            }
+        }
+    }
+    
+    /**
+     * 读取从指定偏移量开始的一行（不含换行符），到达文件末尾时返回剩余的内容
+     * @param offset 偏移量
+     * @return 行内容
+     * @throws IOException 读取失败
+     */
+    private byte[] readLine(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        long position = offset;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            buffer.clear();
+            int read = logChannel.read(buffer, position);
+            if (read <= 0) {
+                return line.toByteArray();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    line.write(buffer.array(), 0, i);
+                    return line.toByteArray();
+                }
+            }
+            line.write(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+    
+    /**
+     * 获取指定偏移量所在行的下一行的偏移量
+     * @param offset 偏移量
+     * @return 下一行的偏移量
+     * @throws IOException 读取失败
+     */
+    private long skipLine(long offset) throws IOException {
+        return offset + readLine(offset).length + 1;
+    }
+    
+    /**
+     * 解析一行记录
+     * @param line 行内容
+     * @return 事件
+     */
+    private static AuditEntry parse(byte[] line) {
+        return AuditEntry.fromJson(new JsonParser().parse(new String(line, StandardCharsets.UTF_8)).getAsJsonObject());
+    }
+    
+    /**
+     * 关闭文件
+     */
+    private void closeChannels() {
+        try {
+            if (logChannel != null) {
+                logChannel.close();
+            }
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        } catch (IOException e) {
+            LogUtil.error("关闭审计日志时出错: " + e.getMessage(), e);
+        }
+        logChannel = null;
+        indexChannel = null;
+    }
+}
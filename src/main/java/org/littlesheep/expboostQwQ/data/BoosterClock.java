@@ -0,0 +1,142 @@
+package org.littlesheep.expboostQwQ.data;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 加成时钟
+ * 所有加成的有效性检查和剩余时间计算都通过当前安装的时钟获取时间。
+ * 插件运行时安装 TickClock，每个tick只读取一次系统时间，同一tick内的所有检查得到相同的结果；
+ * 基准测试等不启动服务器的环境可以安装 ManualClock 固定时间
+ */
+public abstract class BoosterClock {
+    
+    /**
+     * 直接读取系统时间的时钟，未安装其他时钟时使用
+     */
+    public static final BoosterClock SYSTEM = new BoosterClock() {
+        @Override
+        public long now() {
+            return System.currentTimeMillis();
+        }
+    };
+    
+    // 当前安装的时钟
+    private static volatile BoosterClock current = SYSTEM;
+    
+    /**
+     * 获取当前时间
+     * @return 时间戳（毫秒）
+     */
+    public abstract long now();
+    
+    /**
+     * 重新采样并返回当前时间
+     * 过期处理在执行前调用，保证与到期时间比较时使用的是最新的时间
+     *
+     * @return 时间戳（毫秒）
+     */
+    public long refresh() {
+        return now();
+    }
+    
+    /**
+     * 获取当前安装的时钟
+     * @return 加成时钟
+     */
+    public static BoosterClock current() {
+        return current;
+    }
+    
+    /**
+     * 安装加成时钟
+     * @param clock 加成时钟，null表示恢复为系统时钟
+     */
+    public static void install(BoosterClock clock) {
+        current = clock != null ? clock : SYSTEM;
+    }
+    
+    /**
+     * 从当前安装的时钟获取时间
+     * @return 时间戳（毫秒）
+     */
+    public static long millis() {
+        return current.now();
+    }
+    
+    /**
+     * 按tick采样的时钟
+     * 由主线程每tick调用一次 refresh，其余时间（包括异步线程）读取的都是上一次采样的结果
+     */
+    public static final class TickClock extends BoosterClock {
+        
+        private final LongSupplier source;  // 时间来源
+        private volatile long sampled;      // 最近一次采样的时间
+        
+        /**
+         * 使用系统时间创建时钟
+         */
+        public TickClock() {
+            this(System::currentTimeMillis);
+        }
+        
+        /**
+         * 构造函数
+         * @param source 时间来源
+         */
+        public TickClock(LongSupplier source) {
+            this.source = source;
+            this.sampled = source.getAsLong();
+        }
+        
+        @Override
+        public long now() {
+            return sampled;
+        }
+        
+        @Override
+        public long refresh() {
+            // 过期处理和tick任务都会采样，保证时间不会倒退
+            long time = Math.max(sampled, source.getAsLong());
+            sampled = time;
+            return time;
+        }
+    }
+    
+    /**
+     * 手动控制的时钟
+     * 时间只在调用 set 或 advance 时改变，用于需要确定结果的测试
+     */
+    public static final class ManualClock extends BoosterClock {
+        
+        private volatile long time;  // 当前时间
+        
+        /**
+         * 构造函数
+         * @param time 初始时间戳（毫秒）
+         */
+        public ManualClock(long time) {
+            this.time = time;
+        }
+        
+        @Override
+        public long now() {
+            return time;
+        }
+        
+        /**
+         * 设置当前时间
+         * @param time 时间戳（毫秒）
+         */
+        public void set(long time) {
+            this.time = time;
+        }
+        
+        /**
+         * 将时间向后推进
+         * @param millis 推进的毫秒数
+         */
+        public synchronized void advance(long millis) {
+            time += millis;
+        }
+    }
+}
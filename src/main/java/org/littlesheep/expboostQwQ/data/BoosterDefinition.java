@@ -0,0 +1,135 @@
+package org.littlesheep.expboostQwQ.data;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 共享的加成定义
+ * 保存加成的倍率和限制条件，倍率、等级组和来源都相同的加成共用同一个定义对象，
+ * 例如礼包给所有玩家发放的相同加成只需一个定义，每个加成只额外保存自己的结束时间。
+ * 定义表只弱引用定义，已经没有加成使用的定义会被回收
+ */
+final class BoosterDefinition {
+    
+    // 仍在使用的定义，键和值都只弱引用同一个对象
+    private static final Map<BoosterDefinition, WeakReference<BoosterDefinition>> DEFINITIONS = new WeakHashMap<>();
+    
+    private final double multiplier;   // 经验加成倍率
+    private final int levelGroupId;    // 限制的等级组ID，BoosterSymbols.ANY表示所有等级组
+    private final int sourceId;        // 限制的经验来源ID，BoosterSymbols.ANY表示所有来源
+    private final String levelGroup;   // 限制的等级组名称，与符号表共用同一个字符串
+    private final String source;       // 限制的经验来源名称，与符号表共用同一个字符串
+    
+    private BoosterDefinition(double multiplier, int levelGroupId, int sourceId) {
+        this.multiplier = multiplier;
+        this.levelGroupId = levelGroupId;
+        this.sourceId = sourceId;
+        this.levelGroup = BoosterSymbols.name(levelGroupId);
+        this.source = BoosterSymbols.name(sourceId);
+    }
+    
+    /**
+     * 获取共享的加成定义，不存在时创建
+     *
+     * @param multiplier 经验加成倍率
+     * @param levelGroup 限制的等级组，null或空字符串表示所有等级组
+     * @param source 限制的经验来源，null或空字符串表示所有来源
+     * @return 共享的加成定义
+     */
+    static BoosterDefinition of(double multiplier, String levelGroup, String source) {
+        synchronized (DEFINITIONS) {
+            BoosterDefinition candidate = new BoosterDefinition(
+                    multiplier, BoosterSymbols.intern(levelGroup), BoosterSymbols.intern(source));
+            WeakReference<BoosterDefinition> reference = DEFINITIONS.get(candidate);
+            BoosterDefinition existing = reference != null ? reference.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            DEFINITIONS.put(candidate, new WeakReference<>(candidate));
+            return candidate;
+        }
+    }
+    
+    /**
+     * 清空定义表和符号表
+     * 清空后符号ID会重新分配，只能在丢弃了所有加成的多玩家数据和快照之后调用，
+     * 例如重新加载数据前和插件禁用时。已有的加成仍然可以读取自己的倍率和限制条件名称
+     */
+    static void reset() {
+        synchronized (DEFINITIONS) {
+            DEFINITIONS.clear();
+            BoosterSymbols.reset();
+        }
+    }
+    
+    /**
+     * 获取经验加成倍率
+     */
+    double getMultiplier() {
+        return multiplier;
+    }
+    
+    /**
+     * 获取限制的等级组ID
+     */
+    int getLevelGroupId() {
+        return levelGroupId;
+    }
+    
+    /**
+     * 获取限制的经验来源ID
+     */
+    int getSourceId() {
+        return sourceId;
+    }
+    
+    /**
+     * 获取限制的等级组名称
+     */
+    String getLevelGroup() {
+        return levelGroup;
+    }
+    
+    /**
+     * 获取限制的经验来源名称
+     */
+    String getSource() {
+        return source;
+    }
+    
+    /**
+     * 检查限制条件是否匹配
+     *
+     * @param queryLevelGroupId 查询的等级组ID
+     * @param querySourceId 查询的经验来源ID
+     * @return 是否匹配
+     */
+    boolean matches(int queryLevelGroupId, int querySourceId) {
+        return BoosterSymbols.matches(levelGroupId, queryLevelGroupId)
+                && BoosterSymbols.matches(sourceId, querySourceId);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoosterDefinition)) {
+            return false;
+        }
+        BoosterDefinition other = (BoosterDefinition) o;
+        return Double.compare(multiplier, other.multiplier) == 0
+                && levelGroupId == other.levelGroupId
+                && sourceId == other.sourceId;
+    }
+    
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(multiplier);
+        int result = (int) (bits ^ (bits >>> 32));
+        result = 31 * result + levelGroupId;
+        result = 31 * result + sourceId;
+        return result;
+    }
+}
@@ -1,20 +1,24 @@
 package org.littlesheep.expboostQwQ.data;
 
 import org.bukkit.Bukkit;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.Settings;
 import org.littlesheep.expboostQwQ.utils.LogUtil;
 import org.littlesheep.expboostQwQ.utils.LevelApiUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 经验加成管理器
@@ -23,21 +27,31 @@ import java.util.concurrent.ConcurrentHashMap;
 public class BoosterManager {
     
     private final ExpboostQwQ plugin;
-    // 使用线程安全的ConcurrentHashMap存储玩家加成数据
+    // 使用线程安全的ConcurrentHashMap存储玩家加成数据，只包含已加载的在线玩家
     private final Map<UUID, MultiplePlayerBoosters> playerBoosters = new ConcurrentHashMap<>();
-    // 全服加成数据
-    private ServerBooster serverBooster = null;
+    // 已经加载过数据的玩家（包括没有任何加成的玩家）
+    private final Set<UUID> loadedPlayers = ConcurrentHashMap.newKeySet();
+    // 全服加成数据，经验事件可能在异步线程读取
+    private volatile ServerBooster serverBooster = null;
     // 全局默认倍率
-    private PlayerBooster globalBooster = new PlayerBooster(1.0, -1, "", "");
+    private volatile PlayerBooster globalBooster = new PlayerBooster(1.0, -1, "", "");
     // 等级组特定倍率
     private final Map<String, PlayerBooster> levelGroupBoosters = new ConcurrentHashMap<>();
-    // 数据文件引用
-    private final File dataFile;
-    // 数据文件配置引用
-    private final FileConfiguration dataConfig;
+    // 全局加成版本号，全服、全局默认或等级组加成每次变更时递增
+    private final AtomicLong globalVersion = new AtomicLong();
+    // 数据存储（YAML文件或SQLite数据库）
+    private final BoosterStorage storage;
+    // 异步写入器，合并变更后在后台线程保存数据
+    private final AsyncBoosterWriter writer;
+    
+    // 加成过期调度器，在加成到期的tick移除对应加成
+    private final ExpirationScheduler expirationScheduler;
     
     // 保存定时任务的ID，便于插件禁用时取消
-    private int expirationTaskId = -1;
+    private int purgeTaskId = -1;
+    
+    // 距离上次记录倍率计算耗时后的计算次数，多线程下偶尔计错不影响统计
+    private int resolvesSinceSample;
     
     /**
      * 构造函数，初始化加成管理器
@@ -45,14 +59,15 @@ public class BoosterManager {
      */
     public BoosterManager(ExpboostQwQ plugin) {
         this.plugin = plugin;
-        this.dataFile = new File(plugin.getDataFolder(), "boosters.yml");
-        this.dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+        this.storage = createStorage();
+        this.writer = new AsyncBoosterWriter(plugin, storage, this::captureSnapshot);
+        this.expirationScheduler = new ExpirationScheduler(plugin);
         
         // 加载数据
         loadData();
         
-        // 启动定时任务，用于检查过期的加成
-        startExpirationTask();
+        // 启动定时任务，用于清理存储中离线玩家的过期加成
+        startPurgeTask();
     }
     
     /**
@@ -66,20 +81,29 @@ public class BoosterManager {
             return;
         }
         
+        // 确保已加载玩家的数据，避免覆盖存储中已有的加成
+        loadPlayer(uuid);
+        
         // 获取或创建玩家的多重加成容器
         MultiplePlayerBoosters multiplePlayerBoosters = playerBoosters.computeIfAbsent(
                 uuid, id -> new MultiplePlayerBoosters(id));
         
         // 添加新的加成
         multiplePlayerBoosters.addBooster(booster);
-        saveAll();
+        schedulePlayerExpiry(uuid, booster);
+        savePlayer(uuid);
         
         // 记录日志
         Player player = Bukkit.getPlayer(uuid);
-        if (player != null && plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
+        if (player != null && plugin.getSettings().isLogExpBoost()) {
             LogUtil.playerBooster(player, "添加倍率 " + booster.getMultiplier() + "x，持续时间 " + 
                     (booster.getEndTime() == -1 ? "永久" : booster.getFormattedTimeLeft()));
         }
+        
+        // 离线玩家的数据写入后立即卸载
+        if (player == null) {
+            unloadPlayer(uuid);
+        }
     }
     
     /**
@@ -87,8 +111,10 @@ public class BoosterManager {
      * @param uuid 玩家UUID
      */
     public void removePlayerBooster(UUID uuid) {
+        loadPlayer(uuid);
+        
         // 记录日志
-        if (playerBoosters.containsKey(uuid) && plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
+        if (playerBoosters.containsKey(uuid) && plugin.getSettings().isLogExpBoost()) {
             Player player = Bukkit.getPlayer(uuid);
             if (player != null) {
                 LogUtil.playerBooster(player, "移除所有经验加成");
@@ -96,7 +122,12 @@ public class BoosterManager {
         }
         
         playerBoosters.remove(uuid);
-        saveAll();
+        savePlayer(uuid);
+        
+        // 离线玩家的数据写入后立即卸载
+        if (Bukkit.getPlayer(uuid) == null) {
+            unloadPlayer(uuid);
+        }
     }
     
     /**
@@ -106,22 +137,19 @@ public class BoosterManager {
      * @return 是否成功移除
      */
     public boolean removePlayerBoosterByIndex(UUID uuid, int index) {
-        if (!playerBoosters.containsKey(uuid)) {
-            return false;
-        }
-        
+        loadPlayer(uuid);
         MultiplePlayerBoosters boosters = playerBoosters.get(uuid);
-        boolean removed = boosters.removeBooster(index);
+        boolean removed = boosters != null && boosters.removeBooster(index);
         
         if (removed) {
             // 如果没有剩余加成，完全移除
             if (boosters.getBoosterCount() == 0) {
                 playerBoosters.remove(uuid);
             }
-            saveAll();
+            savePlayer(uuid);
             
             // 记录日志
-            if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
+            if (plugin.getSettings().isLogExpBoost()) {
                 Player player = Bukkit.getPlayer(uuid);
                 if (player != null) {
                     LogUtil.playerBooster(player, "移除第 " + (index + 1) + " 个经验加成");
@@ -129,6 +157,11 @@ public class BoosterManager {
             }
         }
         
+        // 离线玩家的数据写入后立即卸载
+        if (Bukkit.getPlayer(uuid) == null) {
+            unloadPlayer(uuid);
+        }
+        
         return removed;
     }
     
@@ -141,6 +174,17 @@ public class BoosterManager {
         return playerBoosters.get(uuid);
     }
     
+    /**
+     * 获取全局加成版本号
+     * 全服加成、全局默认倍率或等级组倍率变更以及重新加载数据时递增，
+     * 可以用来判断根据这些加成计算出的缓存是否仍然有效
+     *
+     * @return 全局加成版本号
+     */
+    public long getGlobalVersion() {
+        return globalVersion.get();
+    }
+    
     /**
      * 获取指定玩家的经验加成数据（兼容旧API，返回第一个活跃加成）
      * @param uuid 玩家UUID
@@ -171,10 +215,11 @@ public class BoosterManager {
      */
     public void setServerBooster(ServerBooster booster) {
         this.serverBooster = booster;
-        saveAll();
+        scheduleServerExpiry(booster);
+        saveGlobal();
         
         // 记录日志
-        if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
+        if (plugin.getSettings().isLogExpBoost()) {
             LogUtil.serverBooster("设置倍率 " + booster.getMultiplier() + "x，持续时间 " + 
                     (booster.getEndTime() == -1 ? "永久" : booster.getFormattedTimeLeft()));
         }
@@ -204,19 +249,13 @@ public class BoosterManager {
     public void setGlobalDefaultMultiplier(double multiplier, long duration) {
         long endTime = (duration == -1) ? -1 : System.currentTimeMillis() + (duration * 1000);
         this.globalBooster = new PlayerBooster(multiplier, endTime, "", "");
+        scheduleGlobalExpiry(globalBooster);
         
         // 保存到数据文件而不是配置文件
-        dataConfig.set("global_default.multiplier", multiplier);
-        dataConfig.set("global_default.end_time", endTime);
-        
-        try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            LogUtil.error("无法保存全局默认倍率数据: " + e.getMessage(), e);
-        }
+        saveGlobal();
         
         // 记录日志
-        if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
+        if (plugin.getSettings().isLogExpBoost()) {
             String durationStr = duration == -1 ? "永久" : duration + "秒";
             LogUtil.info("全局默认倍率已设置为 " + multiplier + "x，持续时间: " + durationStr);
         }
@@ -257,20 +296,13 @@ public class BoosterManager {
         // 创建加成对象
         PlayerBooster booster = new PlayerBooster(multiplier, endTime, levelGroup, "");
         levelGroupBoosters.put(levelGroup, booster);
+        scheduleLevelGroupExpiry(levelGroup, booster);
         
         // 保存到数据文件而不是配置文件
-        dataConfig.set("level_groups." + levelGroup + ".multiplier", multiplier);
-        dataConfig.set("level_groups." + levelGroup + ".end_time", endTime);
-        
-        try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            LogUtil.error("无法保存等级组倍率数据: " + e.getMessage(), e);
-            return false;
-        }
+        saveGlobal();
         
         // 记录日志
-        if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
+        if (plugin.getSettings().isLogExpBoost()) {
             String durationStr = duration == -1 ? "永久" : duration + "秒";
             LogUtil.info("等级组 " + levelGroup + " 的倍率已设置为 " + multiplier + "x，持续时间: " + durationStr);
         }
@@ -309,20 +341,38 @@ public class BoosterManager {
      * @return 最终的经验加成倍率
      */
     public double getEffectiveMultiplier(Player player, String levelGroup, String source) {
-        // 获取加成计算方式：highest(取最高) 或 multiply(相乘) 或 add(相加)
-        String calculationType = plugin.getConfig().getString("settings.boost_calculation", "multiply");
+        // 加成计算方式在插件启用和重载时解析：highest(取最高) 或 multiply(相乘) 或 add(相加)
+        Settings settings = plugin.getSettings();
+        CalculationMode calculationMode = settings.getCalculationMode();
+        
+        // 每N次计算只记录一次耗时，未启用时不调用 nanoTime
+        int sampleInterval = settings.getResolveSampleInterval();
+        boolean sampled = sampleInterval > 0 && ++resolvesSinceSample >= sampleInterval;
+        long start = 0L;
+        if (sampled) {
+            resolvesSinceSample = 0;
+            start = System.nanoTime();
+        }
+        
+        // 等级组和来源只查询一次符号表，之后的匹配都是整数比较
+        int levelGroupId = BoosterSymbols.find(levelGroup);
+        int sourceId = BoosterSymbols.find(source);
         
         // 获取各种加成倍率
         double levelGroupMultiplier = getLevelGroupEffectiveMultiplier(levelGroup);
-        double serverMultiplier = getServerEffectiveMultiplier(levelGroup, source);
-        double playerMultiplier = getPlayerEffectiveMultiplier(player.getUniqueId(), levelGroup, source, calculationType);
+        double serverMultiplier = getServerEffectiveMultiplier(levelGroupId, sourceId);
+        double playerMultiplier = getPlayerEffectiveMultiplier(player.getUniqueId(), levelGroupId, sourceId, calculationMode);
         
         // 根据配置的计算方式计算最终倍率
-        double finalMultiplier = calculateFinalMultiplier(
-                levelGroupMultiplier, serverMultiplier, playerMultiplier, calculationType);
+        double finalMultiplier = calculationMode.combine(levelGroupMultiplier, serverMultiplier, playerMultiplier);
+        if (sampled) {
+            PluginMetrics.recordMultiplierResolve(System.nanoTime() - start);
+        }
         
-        LogUtil.debug("玩家 " + player.getName() + " 在等级组 " + levelGroup + 
-                " 来源 " + source + " 的最终倍率: " + finalMultiplier);
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("玩家 " + player.getName() + " 在等级组 " + levelGroup + 
+                    " 来源 " + source + " 的最终倍率: " + finalMultiplier);
+        }
         
         return finalMultiplier;
     }
@@ -338,30 +388,36 @@ public class BoosterManager {
             PlayerBooster booster = levelGroupBoosters.get(levelGroup);
             if (booster.isActive()) {
                 double multiplier = booster.getMultiplier();
-                LogUtil.debug("应用等级组 " + levelGroup + " 倍率: " + multiplier);
+                if (LogUtil.isDebugEnabled()) {
+                    LogUtil.debug("应用等级组 " + levelGroup + " 倍率: " + multiplier);
+                }
                 return multiplier;
             }
         }
         
         // 应用全局默认倍率
         double multiplier = globalBooster.isActive() ? globalBooster.getMultiplier() : 1.0;
-        LogUtil.debug("应用全局默认倍率: " + multiplier);
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("应用全局默认倍率: " + multiplier);
+        }
         return multiplier;
     }
     
     /**
      * 获取服务器有效倍率
      * 
-     * @param levelGroup 等级组名称
-     * @param source 经验来源
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
      * @return 服务器有效倍率
      */
-    private double getServerEffectiveMultiplier(String levelGroup, String source) {
+    private double getServerEffectiveMultiplier(int levelGroupId, int sourceId) {
         if (hasActiveServerBooster()) {
             ServerBooster sb = getServerBooster();
-            if (sb.matchesConditions(levelGroup, source)) {
+            if (sb.matchesConditions(levelGroupId, sourceId)) {
                 double multiplier = sb.getMultiplier();
-                LogUtil.debug("应用服务器加成倍率: " + multiplier);
+                if (LogUtil.isDebugEnabled()) {
+                    LogUtil.debug("应用服务器加成倍率: " + multiplier);
+                }
                 return multiplier;
             }
         }
@@ -372,100 +428,51 @@ public class BoosterManager {
      * 获取玩家有效倍率
      * 
      * @param playerUuid 玩家UUID
-     * @param levelGroup 等级组名称
-     * @param source 经验来源
-     * @param calculationType 计算类型
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
+     * @param calculationMode 计算方式
      * @return 玩家有效倍率
      */
-    private double getPlayerEffectiveMultiplier(UUID playerUuid, String levelGroup, String source, String calculationType) {
-        if (!hasPlayerBooster(playerUuid)) {
+    private double getPlayerEffectiveMultiplier(UUID playerUuid, int levelGroupId, int sourceId, CalculationMode calculationMode) {
+        MultiplePlayerBoosters boosters = playerBoosters.get(playerUuid);
+        if (boosters == null) {
             return 1.0;
         }
         
-        MultiplePlayerBoosters boosters = getPlayerBoosters(playerUuid);
-        List<PlayerBooster> matchingBoosters = boosters.getMatchingBoosters(levelGroup, source);
-        
-        if (matchingBoosters.isEmpty()) {
+        // 使用预计算的倍率快照，只有加成变更或过期时才会重建
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        if (snapshot.isEmpty()) {
             return 1.0;
         }
         
-        if (calculationType.equalsIgnoreCase("highest")) {
-            // 取最高倍率
-            double maxMultiplier = 1.0;
-            for (PlayerBooster pb : matchingBoosters) {
-                maxMultiplier = Math.max(maxMultiplier, pb.getMultiplier());
-            }
-            LogUtil.debug("玩家加成计算方式: 取最高倍率 = " + maxMultiplier);
-            return maxMultiplier;
-        } else if (calculationType.equalsIgnoreCase("add")) {
-            // 相加方式
-            double addMultiplier = 0.0;
-            for (PlayerBooster pb : matchingBoosters) {
-                addMultiplier += (pb.getMultiplier() - 1.0);
-            }
-            double finalMultiplier = 1.0 + addMultiplier;
-            LogUtil.debug("玩家加成计算方式: 相加倍率 = " + finalMultiplier);
-            return finalMultiplier;
-        } else {
-            // 默认相乘方式
-            double multiplyMultiplier = 1.0;
-            for (PlayerBooster pb : matchingBoosters) {
-                multiplyMultiplier *= pb.getMultiplier();
-            }
-            LogUtil.debug("玩家加成计算方式: 相乘倍率 = " + multiplyMultiplier);
-            return multiplyMultiplier;
-        }
-    }
-    
-    /**
-     * 根据计算类型计算最终倍率
-     * 
-     * @param levelGroupMultiplier 等级组倍率
-     * @param serverMultiplier 服务器倍率
-     * @param playerMultiplier 玩家倍率
-     * @param calculationType 计算类型
-     * @return 最终倍率
-     */
-    private double calculateFinalMultiplier(double levelGroupMultiplier, double serverMultiplier, 
-                                         double playerMultiplier, String calculationType) {
-        if (calculationType.equalsIgnoreCase("highest")) {
-            // 取最高倍率
-            double maxMultiplier = Math.max(1.0, levelGroupMultiplier);
-            maxMultiplier = Math.max(maxMultiplier, serverMultiplier);
-            maxMultiplier = Math.max(maxMultiplier, playerMultiplier);
-            
-            LogUtil.debug("计算方式: 取最高倍率 = " + maxMultiplier);
-            return maxMultiplier;
-        } else if (calculationType.equalsIgnoreCase("add")) {
-            // 相加方式（减去基础的1.0后相加）
-            double addMultiplier = (levelGroupMultiplier - 1.0) + (serverMultiplier - 1.0) + (playerMultiplier - 1.0);
-            // 最终倍率 = 基础1.0 + 所有加成的和
-            double finalMultiplier = 1.0 + addMultiplier;
-            LogUtil.debug("计算方式: 相加倍率 = " + finalMultiplier);
-            return finalMultiplier;
-        } else {
-            // 默认相乘方式
-            double finalMultiplier = levelGroupMultiplier * serverMultiplier * playerMultiplier;
-            LogUtil.debug("计算方式: 相乘倍率 = " + finalMultiplier);
-            return finalMultiplier;
-        }
+        return calculationMode.resolvePlayer(snapshot, levelGroupId, sourceId);
     }
     
     /**
      * 从配置文件加载经验加成数据
      */
     public void loadData() {
-        // 清除现有数据
+        // 先写入尚未保存的变更，再从存储中重新读取数据
+        writer.flushAndWait(TimeUnit.SECONDS.toMillis(10));
+        
+        // 清除现有数据和待处理的过期回调
+        expirationScheduler.clear();
         playerBoosters.clear();
+        loadedPlayers.clear();
         serverBooster = null;
+        globalVersion.incrementAndGet();
         
-        // 尝试首先从dataConfig加载全局默认倍率
+        // 现有加成都已丢弃，从空的定义表和符号表开始加载，不再保留已删除的等级组和来源
+        BoosterDefinition.reset();
+        BoosterStorage.GlobalData data = storage.loadGlobal();
+        
+        // 尝试首先从存储中加载全局默认倍率
         double globalMultiplier = 1.0;
         long globalEndTime = -1;
         
-        if (dataConfig.contains("global_default")) {
-            globalMultiplier = dataConfig.getDouble("global_default.multiplier", 1.0);
-            globalEndTime = dataConfig.getLong("global_default.end_time", -1);
+        if (data.getGlobalBooster() != null) {
+            globalMultiplier = data.getGlobalBooster().getMultiplier();
+            globalEndTime = data.getGlobalBooster().getEndTime();
         } else if (plugin.getConfig().contains("multipliers.global_default")) {
             // 向后兼容：如果在数据文件中找不到，则尝试从旧的配置文件结构加载
             globalMultiplier = plugin.getConfig().getDouble("multipliers.global_default.multiplier", 1.0);
@@ -477,72 +484,9 @@ public class BoosterManager {
             globalBooster = new PlayerBooster(1.0, -1, "", "");
         }
         
-        // 加载玩家加成数据
-        if (dataConfig.contains("player_boosters")) {
-            // 获取配置部分
-            org.bukkit.configuration.ConfigurationSection playerBoostersSection = dataConfig.getConfigurationSection("player_boosters");
-            if (playerBoostersSection != null) {
-                // 旧格式兼容 - 单个加成
-                for (String uuidString : playerBoostersSection.getKeys(false)) {
-                    try {
-                        UUID uuid = UUID.fromString(uuidString);
-                        
-                        // 检查是否是新格式（多个加成）
-                        if (dataConfig.contains("player_boosters." + uuidString + ".boosters")) {
-                            // 新格式 - 多个加成
-                            MultiplePlayerBoosters multipleBoosters = new MultiplePlayerBoosters(uuid);
-                            
-                            org.bukkit.configuration.ConfigurationSection boostersSection = 
-                                dataConfig.getConfigurationSection("player_boosters." + uuidString + ".boosters");
-                            
-                            if (boostersSection != null) {
-                                for (String index : boostersSection.getKeys(false)) {
-                                    String path = "player_boosters." + uuidString + ".boosters." + index + ".";
-                                    double boosterMultiplier = dataConfig.getDouble(path + "multiplier");
-                                    long boosterEndTime = dataConfig.getLong(path + "end_time");
-                                    String levelGroup = dataConfig.getString(path + "level_group", "");
-                                    String source = dataConfig.getString(path + "source", "");
-                                    
-                                    PlayerBooster booster = new PlayerBooster(boosterMultiplier, boosterEndTime, levelGroup, source);
-                                    if (booster.isActive()) {
-                                        multipleBoosters.addBooster(booster);
-                                    }
-                                }
-                                
-                                if (multipleBoosters.hasActiveBoosters()) {
-                                    playerBoosters.put(uuid, multipleBoosters);
-                                }
-                            }
-                        } else {
-                            // 旧格式 - 单个加成
-                            String path = "player_boosters." + uuidString;
-                            double boosterMultiplier = dataConfig.getDouble(path + ".multiplier");
-                            long boosterEndTime = dataConfig.getLong(path + ".end_time");
-                            String levelGroup = dataConfig.getString(path + ".level_group", "");
-                            String source = dataConfig.getString(path + ".source", "");
-                            
-                            PlayerBooster booster = new PlayerBooster(boosterMultiplier, boosterEndTime, levelGroup, source);
-                            if (booster.isActive()) {
-                                MultiplePlayerBoosters multipleBoosters = new MultiplePlayerBoosters(uuid);
-                                multipleBoosters.addBooster(booster);
-                                playerBoosters.put(uuid, multipleBoosters);
-                            }
-                        }
-                    } catch (IllegalArgumentException e) {
-                        LogUtil.error("无法解析UUID: " + uuidString + "，跳过该玩家的加成数据");
-                    }
-                }
-            }
-        }
-        
         // 加载服务器加成数据
-        if (dataConfig.contains("server_booster")) {
-            double serverMultiplier = dataConfig.getDouble("server_booster.multiplier");
-            long serverEndTime = dataConfig.getLong("server_booster.end_time", -1);
-            String levelGroup = dataConfig.getString("server_booster.level_group", "");
-            String source = dataConfig.getString("server_booster.source", "");
-            
-            serverBooster = new ServerBooster(serverMultiplier, serverEndTime, levelGroup, source);
+        if (data.getServerBooster() != null) {
+            serverBooster = data.getServerBooster();
             if (!serverBooster.isActive()) {
                 serverBooster = null;
             }
@@ -551,18 +495,11 @@ public class BoosterManager {
         // 加载等级组倍率数据
         levelGroupBoosters.clear();
         
-        // 首先尝试从dataConfig加载
-        if (dataConfig.contains("level_groups")) {
-            org.bukkit.configuration.ConfigurationSection levelGroupsSection = dataConfig.getConfigurationSection("level_groups");
-            if (levelGroupsSection != null) {
-                for (String group : levelGroupsSection.getKeys(false)) {
-                    double groupMultiplier = dataConfig.getDouble("level_groups." + group + ".multiplier", 1.0);
-                    long groupEndTime = dataConfig.getLong("level_groups." + group + ".end_time", -1);
-                    
-                    PlayerBooster booster = new PlayerBooster(groupMultiplier, groupEndTime, group, "");
-                    if (booster.isActive()) {
-                        levelGroupBoosters.put(group, booster);
-                    }
+        // 首先尝试从存储中加载
+        if (data.getLevelGroupBoosters() != null) {
+            for (Map.Entry<String, PlayerBooster> entry : data.getLevelGroupBoosters().entrySet()) {
+                if (entry.getValue().isActive()) {
+                    levelGroupBoosters.put(entry.getKey(), entry.getValue());
                 }
             }
         } else if (plugin.getConfig().contains("multipliers.level_groups")) {
@@ -583,6 +520,20 @@ public class BoosterManager {
             }
         }
         
+        // 为全局数据安排到期处理
+        scheduleGlobalExpiry(globalBooster);
+        if (serverBooster != null) {
+            scheduleServerExpiry(serverBooster);
+        }
+        for (Map.Entry<String, PlayerBooster> entry : levelGroupBoosters.entrySet()) {
+            scheduleLevelGroupExpiry(entry.getKey(), entry.getValue());
+        }
+        
+        // 只加载当前在线玩家的数据，其余玩家在加入服务器时再加载
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadPlayer(player.getUniqueId());
+        }
+        
         int totalBoosters = 0;
         for (MultiplePlayerBoosters boosters : playerBoosters.values()) {
             totalBoosters += boosters.getActiveBoosterCount();
@@ -593,153 +544,294 @@ public class BoosterManager {
     }
     
     /**
-     * 保存所有经验加成数据到配置文件
+     * 根据配置创建数据存储
+     * 第一次切换到SQLite时会导入现有的YAML数据；SQLite无法打开或导入失败时回退到YAML存储
+     *
+     * @return 已打开的数据存储
      */
-    public void saveAll() {
-        // 保存玩家加成数据
-        dataConfig.set("player_boosters", null);  // 清除旧数据
+    private BoosterStorage createStorage() {
+        File dataFolder = plugin.getDataFolder();
+        YamlBoosterStorage yamlStorage = new YamlBoosterStorage(
+                new File(dataFolder, "boosters.yml"), new File(dataFolder, "playerdata"));
+        try {
+            yamlStorage.open();
+        } catch (IOException e) {
+            LogUtil.error("迁移旧版玩家加成数据时出错: " + e.getMessage(), e);
+        }
         
-        for (Map.Entry<UUID, MultiplePlayerBoosters> entry : playerBoosters.entrySet()) {
-            UUID uuid = entry.getKey();
-            MultiplePlayerBoosters multipleBoosters = entry.getValue();
-            List<PlayerBooster> boosters = multipleBoosters.getActiveBoosters();
-            
-            if (!boosters.isEmpty()) {
-                String basePath = "player_boosters." + uuid + ".boosters";
-                
-                for (int i = 0; i < boosters.size(); i++) {
-                    PlayerBooster booster = boosters.get(i);
-                    String path = basePath + "." + i;
-                    
-                    dataConfig.set(path + ".multiplier", booster.getMultiplier());
-                    dataConfig.set(path + ".end_time", booster.getEndTime());
-                    dataConfig.set(path + ".level_group", booster.getLevelGroup());
-                    dataConfig.set(path + ".source", booster.getSource());
-                }
-            }
+        String type = plugin.getConfig().getString("settings.storage.type", "yaml");
+        if (!type.equalsIgnoreCase("sqlite")) {
+            return yamlStorage;
         }
         
-        // 保存服务器加成数据
-        if (serverBooster != null && serverBooster.isActive()) {
-            dataConfig.set("server_booster.multiplier", serverBooster.getMultiplier());
-            dataConfig.set("server_booster.end_time", serverBooster.getEndTime());
-            dataConfig.set("server_booster.level_group", serverBooster.getLevelGroup());
-            dataConfig.set("server_booster.source", serverBooster.getSource());
-        } else {
-            dataConfig.set("server_booster", null);
+        File databaseFile = new File(dataFolder, "boosters.db");
+        SqliteBoosterStorage sqliteStorage = new SqliteBoosterStorage(databaseFile);
+        try {
+            sqliteStorage.open();
+        } catch (IOException e) {
+            LogUtil.error("无法使用SQLite存储，改用YAML存储: " + e.getMessage(), e);
+            return yamlStorage;
         }
         
-        // 保存等级组倍率数据
-        for (Map.Entry<String, PlayerBooster> entry : levelGroupBoosters.entrySet()) {
-            String group = entry.getKey();
-            PlayerBooster booster = entry.getValue();
-            
-            if (booster.isActive()) {
-                dataConfig.set("level_groups." + group + ".multiplier", booster.getMultiplier());
-                dataConfig.set("level_groups." + group + ".end_time", booster.getEndTime());
-            } else {
-                dataConfig.set("level_groups." + group, null);
+        // 以数据库中的导入标记判断是否导入过，导入失败时整个事务回滚，继续使用YAML存储，下次启动重新导入
+        try {
+            if (!sqliteStorage.isYamlImported()) {
+                Map<UUID, List<PlayerBooster>> players = yamlStorage.loadAllPlayers();
+                sqliteStorage.importYaml(yamlStorage.loadGlobal(), players);
+                LogUtil.info("已将 " + players.size() + " 个玩家的加成数据从YAML导入SQLite数据库");
             }
+        } catch (IOException e) {
+            LogUtil.error("将YAML数据导入SQLite数据库时出错，改用YAML存储: " + e.getMessage(), e);
+            sqliteStorage.close();
+            return yamlStorage;
+        }
+        LogUtil.info("使用SQLite存储加成数据: " + databaseFile.getName());
+        return sqliteStorage;
+    }
+    
+    /**
+     * 加载玩家的加成数据，已加载时不做任何事
+     * 可以在异步线程调用（例如玩家登录前），读取操作在写入线程上执行，保证读到最新数据。
+     * 在主线程为离线玩家修改加成时也会调用，此时最多等待 settings.storage.load_timeout_ms，
+     * 超时后在当前线程写入尚未保存的变更并直接读取，不再排在后台队列中等待
+     *
+     * @param uuid 玩家UUID
+     */
+    public void loadPlayer(UUID uuid) {
+        if (loadedPlayers.contains(uuid)) {
+            return;
         }
         
-        // 保存全局默认倍率
-        if (globalBooster.isActive()) {
-            dataConfig.set("global_default.multiplier", globalBooster.getMultiplier());
-            dataConfig.set("global_default.end_time", globalBooster.getEndTime());
-        } else {
-            dataConfig.set("global_default", null);
+        List<PlayerBooster> boosters = writer.loadPlayer(uuid, plugin.getSettings().getStorageLoadTimeoutMillis());
+        if (!boosters.isEmpty()) {
+            MultiplePlayerBoosters multipleBoosters = new MultiplePlayerBoosters(uuid);
+            for (PlayerBooster booster : boosters) {
+                multipleBoosters.addBooster(booster);
+            }
+            if (playerBoosters.putIfAbsent(uuid, multipleBoosters) == null) {
+                for (PlayerBooster booster : boosters) {
+                    schedulePlayerExpiry(uuid, booster);
+                }
+            }
+        }
+        loadedPlayers.add(uuid);
+    }
+    
+    /**
+     * 卸载玩家的加成数据，在玩家退出时调用
+     * 如果玩家有未保存的变更，会立即交给写入线程保存
+     *
+     * @param uuid 玩家UUID
+     */
+    public void unloadPlayer(UUID uuid) {
+        if (!loadedPlayers.remove(uuid)) {
+            return;
         }
         
-        // 保存到文件
-        try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            LogUtil.error("保存加成数据时出错: " + e.getMessage(), e);
+        MultiplePlayerBoosters boosters = playerBoosters.remove(uuid);
+        // 下次加载时会重新安排，旧的回调不再需要
+        expirationScheduler.cancel(uuid);
+        List<PlayerBooster> active = boosters != null ? boosters.getActiveBoosters() : Collections.<PlayerBooster>emptyList();
+        writer.flushPlayer(uuid, active);
+    }
+    
+    /**
+     * 检查玩家的加成数据是否已加载
+     * @param uuid 玩家UUID
+     * @return 是否已加载
+     */
+    public boolean isPlayerLoaded(UUID uuid) {
+        return loadedPlayers.contains(uuid);
+    }
+    
+    /**
+     * 保存所有经验加成数据
+     * 只标记数据已变更，实际写入由异步写入器合并后在后台线程完成
+     */
+    public void saveAll() {
+        writer.markGlobalDirty();
+        for (UUID uuid : loadedPlayers) {
+            writer.markPlayerDirty(uuid);
+        }
+    }
+    
+    /**
+     * 标记玩家的加成数据已变更，只会重写该玩家的数据
+     * @param uuid 玩家UUID
+     */
+    private void savePlayer(UUID uuid) {
+        writer.markPlayerDirty(uuid);
+    }
+    
+    /**
+     * 标记全局数据（全服、等级组、全局默认倍率）已变更
+     */
+    private void saveGlobal() {
+        // 全局加成的每次变更都会经过这里，同时递增版本号
+        globalVersion.incrementAndGet();
+        writer.markGlobalDirty();
+    }
+    
+    /**
+     * 关闭加成管理器，在插件禁用时调用
+     * 取消定时任务并在限定时间内完成最后一次保存
+     */
+    public void shutdown() {
+        cancelTasks();
+        long timeoutSeconds = plugin.getConfig().getLong("settings.storage.shutdown_timeout_seconds", 10L);
+        writer.shutdown(TimeUnit.SECONDS.toMillis(Math.max(1L, timeoutSeconds)));
+        playerBoosters.clear();
+        loadedPlayers.clear();
+        levelGroupBoosters.clear();
+        BoosterDefinition.reset();
+    }
+    
+    /**
+     * 采集发生变更的加成数据快照，供异步写入器在后台序列化
+     * @param dirtyPlayers 发生变更的玩家
+     * @param global 是否采集全局数据
+     * @return 数据快照
+     */
+    private AsyncBoosterWriter.Snapshot captureSnapshot(Set<UUID> dirtyPlayers, boolean global) {
+        Map<UUID, List<PlayerBooster>> players = new HashMap<>();
+        for (UUID uuid : dirtyPlayers) {
+            // 已卸载的玩家在退出时已经保存过
+            if (!loadedPlayers.contains(uuid)) {
+                continue;
+            }
+            MultiplePlayerBoosters boosters = playerBoosters.get(uuid);
+            players.put(uuid, boosters != null ? boosters.getActiveBoosters() : Collections.<PlayerBooster>emptyList());
         }
+        
+        BoosterStorage.GlobalData globalData = null;
+        if (global) {
+            globalData = new BoosterStorage.GlobalData(serverBooster,
+                    new HashMap<>(levelGroupBoosters), globalBooster);
+        }
+        return new AsyncBoosterWriter.Snapshot(players, globalData);
+    }
+    
+    /**
+     * 启动定时任务，定期清理存储中离线玩家的过期加成
+     * 已加载数据的过期由过期调度器在到期的tick精确处理
+     */
+    private void startPurgeTask() {
+        // 每10分钟清理一次（20 ticks/秒 * 60秒 * 10 = 10分钟）
+        purgeTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            writer.purgeExpired(System.currentTimeMillis());
+        }, 20 * 60 * 10, 20 * 60 * 10).getTaskId();
     }
     
     /**
-     * 启动定时任务，用于检查过期的加成
+     * 为玩家加成安排到期处理
+     * @param uuid 玩家UUID
+     * @param booster 加成对象
      */
-    private void startExpirationTask() {
-        // 定时检查过期的加成（每分钟）
-        expirationTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            boolean changed = false;
+    private void schedulePlayerExpiry(UUID uuid, PlayerBooster booster) {
+        // 以玩家UUID为所属对象，卸载玩家数据时一并取消
+        expirationScheduler.schedule(uuid, booster.getEndTime(), () -> {
+            // 玩家已下线或加成已被手动移除时不做任何事
+            MultiplePlayerBoosters boosters = playerBoosters.get(uuid);
+            if (boosters == null || !boosters.removeBooster(booster)) {
+                return;
+            }
+            savePlayer(uuid);
             
-            // 检查玩家加成
-            for (UUID uuid : new HashMap<>(playerBoosters).keySet()) {
-                MultiplePlayerBoosters boosters = playerBoosters.get(uuid);
-                boolean hasExpired = boosters.cleanupExpiredBoosters();
-                
-                if (hasExpired) {
-                    changed = true;
-                    
-                    // 记录日志
-                    if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
-                        Player player = Bukkit.getPlayer(uuid);
-                        if (player != null) {
-                            LogUtil.playerBooster(player, "部分加成已过期并自动移除");
-                        }
-                    }
-                    
-                    // 如果没有剩余加成，移除整个条目
-                    if (!boosters.hasActiveBoosters()) {
-                        playerBoosters.remove(uuid);
-                    }
+            Player player = Bukkit.getPlayer(uuid);
+            plugin.getAuditLog().recordPlayer(AuditEntry.Action.EXPIRE, uuid,
+                    player != null ? player.getName() : "", "system", booster);
+            
+            // 记录日志
+            if (plugin.getSettings().isLogExpBoost()) {
+                if (player != null) {
+                    LogUtil.playerBooster(player, "部分加成已过期并自动移除");
                 }
             }
             
-            // 检查服务器加成
-            if (serverBooster != null && !serverBooster.isActive()) {
-                // 记录日志
-                if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
-                    LogUtil.serverBooster("全服加成已过期并自动移除");
-                }
-                
-                serverBooster = null;
-                changed = true;
+            // 如果没有剩余加成，移除整个条目
+            if (!boosters.hasActiveBoosters()) {
+                playerBoosters.remove(uuid, boosters);
             }
+        });
+    }
+    
+    /**
+     * 为全服加成安排到期处理
+     * @param booster 全服加成
+     */
+    private void scheduleServerExpiry(ServerBooster booster) {
+        expirationScheduler.schedule(booster.getEndTime(), () -> {
+            // 已被替换或移除的加成不做任何事
+            if (serverBooster != booster) {
+                return;
+            }
+            plugin.getAuditLog().recordServer(AuditEntry.Action.EXPIRE, "server", "", "system",
+                    booster.getMultiplier(), booster.getEndTime(), booster.getLevelGroup(), booster.getSource());
             
-            // 检查等级组加成
-            for (String group : new HashMap<>(levelGroupBoosters).keySet()) {
-                PlayerBooster booster = levelGroupBoosters.get(group);
-                if (!booster.isActive()) {
-                    levelGroupBoosters.remove(group);
-                    changed = true;
-                    
-                    // 记录日志
-                    if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
-                        LogUtil.info("等级组 " + group + " 的倍率加成已过期并自动移除");
-                    }
-                }
+            // 记录日志
+            if (plugin.getSettings().isLogExpBoost()) {
+                LogUtil.serverBooster("全服加成已过期并自动移除");
             }
             
-            // 检查全局默认倍率
-            if (globalBooster != null && !globalBooster.isActive()) {
-                globalBooster = new PlayerBooster(1.0, -1, "", "");
-                changed = true;
-                
-                // 记录日志
-                if (plugin.getConfig().getBoolean("settings.log_exp_boost", true)) {
-                    LogUtil.info("全局默认倍率加成已过期并重置为1.0x");
-                }
+            serverBooster = null;
+            saveGlobal();
+        });
+    }
+    
+    /**
+     * 为等级组加成安排到期处理
+     * @param group 等级组名称
+     * @param booster 等级组加成
+     */
+    private void scheduleLevelGroupExpiry(String group, PlayerBooster booster) {
+        expirationScheduler.schedule(booster.getEndTime(), () -> {
+            // 已被替换或移除的加成不做任何事
+            if (!levelGroupBoosters.remove(group, booster)) {
+                return;
             }
+            saveGlobal();
+            plugin.getAuditLog().recordServer(AuditEntry.Action.EXPIRE, "level_group", group, "system",
+                    booster.getMultiplier(), booster.getEndTime(), group, "");
             
-            // 如果有任何更改，保存数据
-            if (changed) {
-                saveAll();
+            // 记录日志
+            if (plugin.getSettings().isLogExpBoost()) {
+                LogUtil.info("等级组 " + group + " 的倍率加成已过期并自动移除");
             }
-        }, 20 * 60, 20 * 60).getTaskId(); // 每分钟检查一次（20 ticks/秒 * 60秒 = 1分钟）
+        });
+    }
+    
+    /**
+     * 为全局默认倍率安排到期处理
+     * @param booster 全局默认倍率加成
+     */
+    private void scheduleGlobalExpiry(PlayerBooster booster) {
+        expirationScheduler.schedule(booster.getEndTime(), () -> {
+            // 已被替换的加成不做任何事
+            if (globalBooster != booster) {
+                return;
+            }
+            
+            globalBooster = new PlayerBooster(1.0, -1, "", "");
+            saveGlobal();
+            plugin.getAuditLog().recordServer(AuditEntry.Action.EXPIRE, "global", "", "system",
+                    booster.getMultiplier(), booster.getEndTime(), "", "");
+            
+            // 记录日志
+            if (plugin.getSettings().isLogExpBoost()) {
+                LogUtil.info("全局默认倍率加成已过期并重置为1.0x");
+            }
+        });
     }
     
     /**
      * 取消定时任务，在插件禁用时调用
      */
     public void cancelTasks() {
-        if (expirationTaskId != -1) {
-            Bukkit.getScheduler().cancelTask(expirationTaskId);
-            expirationTaskId = -1;
+        if (purgeTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(purgeTaskId);
+            purgeTaskId = -1;
         }
+        expirationScheduler.clear();
     }
     
     /**
@@ -763,13 +855,7 @@ public class BoosterManager {
         
         serverBooster = null;
         // 保存到数据文件
-        dataConfig.set("server_booster", null);
-        try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            LogUtil.error("无法保存服务器加成数据: " + e.getMessage(), e);
-            return false;
-        }
+        saveGlobal();
         
         return true;
     }
@@ -786,14 +872,7 @@ public class BoosterManager {
         
         levelGroupBoosters.remove(levelGroup);
         // 保存到数据文件而不是配置文件
-        dataConfig.set("level_groups." + levelGroup, null);
-        
-        try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            LogUtil.error("无法保存等级组倍率数据: " + e.getMessage(), e);
-            return false;
-        }
+        saveGlobal();
         
         return true;
     }
@@ -0,0 +1,108 @@
+package org.littlesheep.expboostQwQ.data;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 加成数据存储接口
+ * BoosterManager只通过此接口读写数据，具体格式由实现类决定（YAML文件或SQLite数据库）。
+ * 除open和loadGlobal外，所有方法都只会在异步写入器的后台线程上调用
+ */
+public interface BoosterStorage {
+    
+    /**
+     * 打开存储，创建所需的文件、目录或数据表
+     * @throws IOException 打开失败
+     */
+    void open() throws IOException;
+    
+    /**
+     * 读取全局数据（全服加成、等级组倍率、全局默认倍率）
+     * @return 全局数据，不会为null
+     */
+    GlobalData loadGlobal();
+    
+    /**
+     * 保存全局数据
+     * @param data 全局数据
+     * @throws IOException 写入失败
+     */
+    void saveGlobal(GlobalData data) throws IOException;
+    
+    /**
+     * 读取单个玩家的有效加成
+     * @param uuid 玩家UUID
+     * @return 有效加成列表，没有数据时返回空列表
+     */
+    List<PlayerBooster> loadPlayer(UUID uuid);
+    
+    /**
+     * 批量保存玩家加成，每个玩家的数据会被整体替换，空列表表示删除该玩家的数据
+     * @param players 玩家及其加成列表
+     * @throws IOException 写入失败
+     */
+    void savePlayers(Map<UUID, List<PlayerBooster>> players) throws IOException;
+    
+    /**
+     * 读取所有玩家的有效加成，只用于在不同存储类型之间迁移数据
+     * @return 所有玩家及其加成列表
+     */
+    Map<UUID, List<PlayerBooster>> loadAllPlayers();
+    
+    /**
+     * 删除所有已过期的玩家加成
+     * @param now 当前时间戳（毫秒）
+     * @return 删除的加成数量
+     * @throws IOException 写入失败
+     */
+    int deleteExpired(long now) throws IOException;
+    
+    /**
+     * 关闭存储，释放文件句柄或数据库连接
+     */
+    void close();
+    
+    /**
+     * 保存在存储中的全局数据
+     * 各字段为null表示存储中没有对应的数据，此时BoosterManager会回退到config.yml中的旧配置
+     */
+    final class GlobalData {
+        private final ServerBooster serverBooster;
+        private final Map<String, PlayerBooster> levelGroupBoosters;
+        private final PlayerBooster globalBooster;
+        
+        public GlobalData(ServerBooster serverBooster, Map<String, PlayerBooster> levelGroupBoosters,
+                          PlayerBooster globalBooster) {
+            this.serverBooster = serverBooster;
+            this.levelGroupBoosters = levelGroupBoosters == null ? null : Collections.unmodifiableMap(levelGroupBoosters);
+            this.globalBooster = globalBooster;
+        }
+        
+        /**
+         * 获取全服加成
+         * @return 全服加成，没有时返回null
+         */
+        public ServerBooster getServerBooster() {
+            return serverBooster;
+        }
+        
+        /**
+         * 获取等级组倍率
+         * @return 等级组倍率映射，从未保存过等级组数据时返回null，保存过但没有等级组倍率时返回空映射
+         */
+        public Map<String, PlayerBooster> getLevelGroupBoosters() {
+            return levelGroupBoosters;
+        }
+        
+        /**
+         * 获取全局默认倍率
+         * @return 全局默认倍率，存储中没有数据时返回null
+         */
+        public PlayerBooster getGlobalBooster() {
+            return globalBooster;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.littlesheep.expboostQwQ.data;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 等级组和经验来源的符号表
+ * 把名称转换为从1开始的整数ID，加成的匹配只需比较整数，
+ * 所有加成共用符号表中的名称字符串，不再各自保存一份相同的字符串。
+ * 运行期间名称只增不减，重新加载数据和插件禁用时由 BoosterDefinition.reset 清空
+ */
+final class BoosterSymbols {
+    
+    /**
+     * 空名称的ID，表示不限制等级组或来源
+     */
+    static final int ANY = 0;
+    
+    /**
+     * 从未出现过的名称的查询ID，不会与任何加成匹配
+     */
+    static final int UNKNOWN = -1;
+    
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    // 按ID保存的名称，下标0为空名称
+    private static volatile String[] names = {""};
+    
+    private BoosterSymbols() {
+    }
+    
+    /**
+     * 获取名称的ID，第一次出现的名称会分配新的ID
+     * 添加和加载加成时调用
+     *
+     * @param name 等级组或来源名称
+     * @return 名称的ID，空名称返回ANY
+     */
+    static int intern(String name) {
+        if (name == null || name.isEmpty()) {
+            return ANY;
+        }
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (IDS) {
+            id = IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            // 先发布名称再发布ID，查到ID的线程一定能读到名称
+            int newId = names.length;
+            String[] grown = Arrays.copyOf(names, newId + 1);
+            grown[newId] = name;
+            names = grown;
+            IDS.put(name, newId);
+            return newId;
+        }
+    }
+    
+    /**
+     * 清空符号表，之后的名称重新从1开始分配ID
+     * 由 BoosterDefinition.reset 在持有定义表锁时调用
+     */
+    static void reset() {
+        synchronized (IDS) {
+            // 先清空ID再替换名称，查询不到ID的线程不会读取名称
+            IDS.clear();
+            names = new String[] {""};
+        }
+    }
+    
+    /**
+     * 获取ID对应的名称
+     *
+     * @param id 通过 intern 获得的ID
+     * @return 共享的名称字符串，ANY返回空字符串
+     */
+    static String name(int id) {
+        return names[id];
+    }
+    
+    /**
+     * 查询名称的ID，不会分配新的ID
+     * 经验事件使用此方法，避免任意的来源名称占用符号表
+     *
+     * @param name 等级组或来源名称
+     * @return 名称的ID，空名称返回ANY，从未出现过的名称返回UNKNOWN
+     */
+    static int find(String name) {
+        if (name == null || name.isEmpty()) {
+            return ANY;
+        }
+        Integer id = IDS.get(name);
+        return id != null ? id : UNKNOWN;
+    }
+    
+    /**
+     * 检查加成的限制条件是否匹配
+     *
+     * @param conditionId 加成限制的等级组或来源ID
+     * @param queryId 查询的等级组或来源ID
+     * @return 加成不限制或与查询相同时返回true
+     */
+    static boolean matches(int conditionId, int queryId) {
+        return conditionId == ANY || conditionId == queryId;
+    }
+}
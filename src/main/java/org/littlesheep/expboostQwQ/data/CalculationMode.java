@@ -0,0 +1,124 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+
+/**
+ * 加成计算方式
+ * 决定玩家的多个加成之间，以及等级组、服务器和玩家三种倍率之间如何合并，
+ * 配置在加载时解析为枚举，经验事件直接调用对应的实现，无需每次比较字符串
+ */
+public enum CalculationMode {
+    
+    // 所有倍率相乘
+    MULTIPLY("multiply") {
+        @Override
+        double resolvePlayer(MultiplierSnapshot snapshot, int levelGroupId, int sourceId) {
+            double multiplier = snapshot.resolveMultiply(levelGroupId, sourceId);
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("玩家加成计算方式: 相乘倍率 = " + multiplier);
+            }
+            return multiplier;
+        }
+        
+        @Override
+        public double combine(double levelGroupMultiplier, double serverMultiplier, double playerMultiplier) {
+            double finalMultiplier = levelGroupMultiplier * serverMultiplier * playerMultiplier;
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("计算方式: 相乘倍率 = " + finalMultiplier);
+            }
+            return finalMultiplier;
+        }
+    },
+    
+    // 每个倍率减去1.0后相加，再加上基础的1.0
+    ADD("add") {
+        @Override
+        double resolvePlayer(MultiplierSnapshot snapshot, int levelGroupId, int sourceId) {
+            double multiplier = snapshot.resolveAdd(levelGroupId, sourceId);
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("玩家加成计算方式: 相加倍率 = " + multiplier);
+            }
+            return multiplier;
+        }
+        
+        @Override
+        public double combine(double levelGroupMultiplier, double serverMultiplier, double playerMultiplier) {
+            // 最终倍率 = 基础1.0 + 所有加成的和
+            double finalMultiplier = 1.0 + (levelGroupMultiplier - 1.0) + (serverMultiplier - 1.0) + (playerMultiplier - 1.0);
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("计算方式: 相加倍率 = " + finalMultiplier);
+            }
+            return finalMultiplier;
+        }
+    },
+    
+    // 取最高的倍率
+    HIGHEST("highest") {
+        @Override
+        double resolvePlayer(MultiplierSnapshot snapshot, int levelGroupId, int sourceId) {
+            double multiplier = snapshot.resolveHighest(levelGroupId, sourceId);
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("玩家加成计算方式: 取最高倍率 = " + multiplier);
+            }
+            return multiplier;
+        }
+        
+        @Override
+        public double combine(double levelGroupMultiplier, double serverMultiplier, double playerMultiplier) {
+            double finalMultiplier = Math.max(Math.max(1.0, levelGroupMultiplier), Math.max(serverMultiplier, playerMultiplier));
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("计算方式: 取最高倍率 = " + finalMultiplier);
+            }
+            return finalMultiplier;
+        }
+    };
+    
+    private final String configName;  // 配置文件中使用的名称
+    
+    CalculationMode(String configName) {
+        this.configName = configName;
+    }
+    
+    /**
+     * 计算玩家自身多个加成合并后的倍率
+     *
+     * @param snapshot 玩家的倍率快照
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
+     * @return 玩家倍率
+     */
+    abstract double resolvePlayer(MultiplierSnapshot snapshot, int levelGroupId, int sourceId);
+    
+    /**
+     * 合并等级组、服务器和玩家倍率得到最终倍率
+     *
+     * @param levelGroupMultiplier 等级组倍率
+     * @param serverMultiplier 服务器倍率
+     * @param playerMultiplier 玩家倍率
+     * @return 最终倍率
+     */
+    public abstract double combine(double levelGroupMultiplier, double serverMultiplier, double playerMultiplier);
+    
+    /**
+     * 获取配置文件中使用的名称
+     *
+     * @return 配置名称
+     */
+    public String getConfigName() {
+        return configName;
+    }
+    
+    /**
+     * 从配置字符串解析计算方式
+     * @param name 配置值
+     * @return 计算方式，无法识别时返回MULTIPLY
+     */
+    public static CalculationMode fromString(String name) {
+        for (CalculationMode mode : values()) {
+            if (mode.configName.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return MULTIPLY;
+    }
+}
@@ -0,0 +1,188 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 加成过期调度器
+ * 使用按结束时间排序的最小堆保存所有限时加成，只在堆顶加成真正到期时唤醒一次，
+ * 每次只处理已经到期的条目，过期处理精确到tick
+ */
+public class ExpirationScheduler {
+    
+    // 每tick的毫秒数
+    private static final long MILLIS_PER_TICK = 50L;
+    
+    private final ExpboostQwQ plugin;
+    // 按结束时间排序的最小堆
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    // 当前等待执行的唤醒任务
+    private BukkitTask wakeTask = null;
+    // 唤醒任务对应的结束时间
+    private long armedAt = Long.MAX_VALUE;
+    // 插入顺序，结束时间相同时保证先加入的先处理
+    private long sequence = 0;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     */
+    public ExpirationScheduler(ExpboostQwQ plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * 安排一个到期回调
+     * 永久加成（结束时间为-1）不需要安排。可以在任意线程调用，回调总是在主线程执行
+     *
+     * @param endTime 结束时间戳（毫秒）
+     * @param onExpire 到期时执行的回调，需要自行检查对应的加成是否仍然存在
+     */
+    public void schedule(long endTime, Runnable onExpire) {
+        schedule(null, endTime, onExpire);
+    }
+    
+    /**
+     * 安排一个属于指定对象的到期回调，之后可以通过 {@link #cancel(Object)} 一并取消
+     *
+     * @param owner 回调所属的对象（例如玩家UUID），null表示不属于任何对象
+     * @param endTime 结束时间戳（毫秒）
+     * @param onExpire 到期时执行的回调，需要自行检查对应的加成是否仍然存在
+     */
+    public synchronized void schedule(Object owner, long endTime, Runnable onExpire) {
+        if (endTime == -1) {
+            return;
+        }
+        queue.add(new Entry(owner, endTime, sequence++, onExpire));
+        if (endTime < armedAt) {
+            arm(endTime);
+        }
+    }
+    
+    /**
+     * 取消属于指定对象的所有回调，例如玩家数据卸载时
+     * 唤醒任务不会重新安排，到时没有到期条目时只会为下一个条目重新安排唤醒
+     *
+     * @param owner 回调所属的对象
+     */
+    public synchronized void cancel(Object owner) {
+        queue.removeIf(entry -> owner.equals(entry.owner));
+        if (queue.isEmpty()) {
+            disarm();
+        }
+    }
+    
+    /**
+     * 清空所有待处理的回调，用于重新加载数据或插件禁用时
+     */
+    public synchronized void clear() {
+        queue.clear();
+        disarm();
+    }
+    
+    /**
+     * 获取待处理的回调数量
+     * @return 堆中的条目数
+     */
+    public synchronized int size() {
+        return queue.size();
+    }
+    
+    /**
+     * 唤醒任务：取出所有已到期的条目并执行回调，然后为下一个条目重新安排唤醒
+     * 包内可见，测试中不启动调度器时直接调用
+     */
+    void fire() {
+        List<Entry> due = new ArrayList<>();
+        // 重新采样加成时钟，回调中检查加成是否过期时与这里使用相同的时间
+        long now = BoosterClock.current().refresh();
+        synchronized (this) {
+            wakeTask = null;
+            armedAt = Long.MAX_VALUE;
+            while (!queue.isEmpty() && queue.peek().endTime <= now) {
+                due.add(queue.poll());
+            }
+        }
+        
+        // 在锁外执行回调，回调中可能再次安排新的条目
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            for (Entry entry : due) {
+                try {
+                    entry.onExpire.run();
+                } catch (RuntimeException e) {
+                    LogUtil.error("处理过期加成时出错: " + e.getMessage(), e);
+                }
+            }
+        } finally {
+            profiler.stop(TickProfiler.Section.EXPIRATION, start);
+        }
+        
+        synchronized (this) {
+            Entry next = queue.peek();
+            if (next != null && next.endTime < armedAt) {
+                arm(next.endTime);
+            }
+        }
+    }
+    
+    /**
+     * 安排在指定时间唤醒，替换当前的唤醒任务
+     * @param endTime 唤醒时间戳（毫秒）
+     */
+    private void arm(long endTime) {
+        // 插件禁用过程中不能再注册任务
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        disarm();
+        
+        // 向上取整到tick，保证唤醒时条目已经到期
+        long delayMillis = endTime - System.currentTimeMillis();
+        long delayTicks = Math.max(1L, (delayMillis + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK);
+        armedAt = endTime;
+        wakeTask = Bukkit.getScheduler().runTaskLater(plugin, this::fire, delayTicks);
+    }
+    
+    /**
+     * 取消当前的唤醒任务
+     */
+    private void disarm() {
+        if (wakeTask != null) {
+            wakeTask.cancel();
+            wakeTask = null;
+        }
+        armedAt = Long.MAX_VALUE;
+    }
+    
+    /**
+     * 堆中的条目
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final Object owner;
+        private final long endTime;
+        private final long sequence;
+        private final Runnable onExpire;
+        
+        private Entry(Object owner, long endTime, long sequence, Runnable onExpire) {
+            this.owner = owner;
+            this.endTime = endTime;
+            this.sequence = sequence;
+            this.onExpire = onExpire;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            int result = Long.compare(endTime, other.endTime);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package org.littlesheep.expboostQwQ.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.IntPredicate;
 
 /**
  * 玩家多重经验加成管理类
- * 用于存储和管理玩家的多个经验加成
+ * 用于存储和管理玩家的多个经验加成。
+ * 加成的倍率、结束时间、等级组ID和来源ID保存在平行的基本类型数组中，
+ * 匹配和清理过期加成只需按下标遍历数组；PlayerBooster对象只用于兼容返回加成列表的方法。
+ * 数组创建后不再修改，每次变更都在锁内复制出新的数组并整体发布，
+ * 因此任何线程（包括异步的经验事件和占位符请求）读取时都无需加锁，也不会读到修改到一半的数据
  */
 public class MultiplePlayerBoosters {
+    
     private final UUID playerUuid;
-    private final List<PlayerBooster> boosters = new ArrayList<>();
+    // 当前的加成数据，只会整体替换
+    private volatile State state = State.EMPTY;
+    // 缓存的倍率快照，版本号与当前数据不同或其中有加成过期时重建
+    private volatile MultiplierSnapshot snapshot = null;
     
     /**
      * 构造函数
@@ -32,7 +41,23 @@ public class MultiplePlayerBoosters {
         if (booster == null || !booster.isActive()) {
             return false;
         }
-        boosters.add(booster);
+        // 加成创建时已经分配了ID，直接使用共享定义中的ID
+        BoosterDefinition definition = booster.getDefinition();
+        synchronized (this) {
+            State current = state;
+            int size = current.size();
+            PlayerBooster[] boosters = Arrays.copyOf(current.boosters, size + 1);
+            double[] multipliers = Arrays.copyOf(current.multipliers, size + 1);
+            long[] endTimes = Arrays.copyOf(current.endTimes, size + 1);
+            int[] levelGroups = Arrays.copyOf(current.levelGroups, size + 1);
+            int[] sources = Arrays.copyOf(current.sources, size + 1);
+            boosters[size] = booster;
+            multipliers[size] = definition.getMultiplier();
+            endTimes[size] = booster.getEndTime();
+            levelGroups[size] = definition.getLevelGroupId();
+            sources[size] = definition.getSourceId();
+            state = new State(boosters, multipliers, endTimes, levelGroups, sources, current.version + 1);
+        }
         return true;
     }
     
@@ -42,9 +67,15 @@ public class MultiplePlayerBoosters {
      * @return 活跃经验加成列表
      */
     public List<PlayerBooster> getActiveBoosters() {
-        return boosters.stream()
-                .filter(PlayerBooster::isActive)
-                .collect(Collectors.toList());
+        State current = state;
+        long now = BoosterClock.millis();
+        List<PlayerBooster> result = new ArrayList<>(current.size());
+        for (int i = 0; i < current.size(); i++) {
+            if (current.isActive(i, now)) {
+                result.add(current.boosters[i]);
+            }
+        }
+        return result;
     }
     
     /**
@@ -53,9 +84,11 @@ public class MultiplePlayerBoosters {
      * @return 是否有加成被移除
      */
     public boolean cleanupExpiredBoosters() {
-        int initialSize = boosters.size();
-        boosters.removeIf(booster -> !booster.isActive());
-        return boosters.size() < initialSize;
+        long now = BoosterClock.millis();
+        synchronized (this) {
+            State current = state;
+            return retain(current, i -> current.isActive(i, now));
+        }
     }
     
     /**
@@ -64,7 +97,14 @@ public class MultiplePlayerBoosters {
      * @return 是否有活跃加成
      */
     public boolean hasActiveBoosters() {
-        return boosters.stream().anyMatch(PlayerBooster::isActive);
+        State current = state;
+        long now = BoosterClock.millis();
+        for (int i = 0; i < current.size(); i++) {
+            if (current.isActive(i, now)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -75,10 +115,47 @@ public class MultiplePlayerBoosters {
      * @return 匹配条件的活跃加成列表
      */
     public List<PlayerBooster> getMatchingBoosters(String levelGroup, String source) {
-        return boosters.stream()
-                .filter(PlayerBooster::isActive)
-                .filter(booster -> booster.matchesConditions(levelGroup, source))
-                .collect(Collectors.toList());
+        State current = state;
+        long now = BoosterClock.millis();
+        int levelGroupId = BoosterSymbols.find(levelGroup);
+        int sourceId = BoosterSymbols.find(source);
+        List<PlayerBooster> result = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            if (current.isActive(i, now)
+                    && BoosterSymbols.matches(current.levelGroups[i], levelGroupId)
+                    && BoosterSymbols.matches(current.sources[i], sourceId)) {
+                result.add(current.boosters[i]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 获取当前的倍率快照
+     * 快照仅在加成变更或其中有加成过期时重建，其余情况直接返回缓存
+     * 
+     * @return 倍率快照
+     */
+    public MultiplierSnapshot getSnapshot() {
+        State current = state;
+        long now = BoosterClock.millis();
+        MultiplierSnapshot cached = snapshot;
+        // 多个线程同时重建时结果相同，后写入的覆盖先写入的即可
+        if (cached == null || cached.getVersion() != current.version || !cached.isValidAt(now)) {
+            cached = MultiplierSnapshot.build(current.multipliers, current.endTimes, current.levelGroups,
+                    current.sources, current.size(), current.version, now);
+            snapshot = cached;
+        }
+        return cached;
+    }
+    
+    /**
+     * 获取容器版本号
+     * 
+     * @return 版本号，每次加成变更时递增
+     */
+    public long getVersion() {
+        return state.version;
     }
     
     /**
@@ -93,8 +170,10 @@ public class MultiplePlayerBoosters {
     /**
      * 清除所有加成
      */
-    public void clearBoosters() {
-        boosters.clear();
+    public synchronized void clearBoosters() {
+        State current = state;
+        state = new State(new PlayerBooster[0], new double[0], new long[0], new int[0], new int[0],
+                current.version + 1);
     }
     
     /**
@@ -103,7 +182,7 @@ public class MultiplePlayerBoosters {
      * @return 加成数量
      */
     public int getBoosterCount() {
-        return boosters.size();
+        return state.size();
     }
     
     /**
@@ -112,7 +191,15 @@ public class MultiplePlayerBoosters {
      * @return 活跃加成数量
      */
     public int getActiveBoosterCount() {
-        return (int) boosters.stream().filter(PlayerBooster::isActive).count();
+        State current = state;
+        long now = BoosterClock.millis();
+        int count = 0;
+        for (int i = 0; i < current.size(); i++) {
+            if (current.isActive(i, now)) {
+                count++;
+            }
+        }
+        return count;
     }
     
     /**
@@ -121,7 +208,7 @@ public class MultiplePlayerBoosters {
      * @return 所有加成列表
      */
     public List<PlayerBooster> getAllBoosters() {
-        return new ArrayList<>(boosters);
+        return new ArrayList<>(Arrays.asList(state.boosters));
     }
     
     /**
@@ -130,11 +217,104 @@ public class MultiplePlayerBoosters {
      * @param index 加成索引
      * @return 是否成功移除
      */
-    public boolean removeBooster(int index) {
-        if (index >= 0 && index < boosters.size()) {
-            boosters.remove(index);
-            return true;
+    public synchronized boolean removeBooster(int index) {
+        if (index < 0 || index >= state.size()) {
+            return false;
+        }
+        // 保持其余加成的顺序，命令中的加成编号依赖这个顺序
+        return retain(state, i -> i != index);
+    }
+    
+    /**
+     * 移除指定的加成对象
+     * 按对象身份比较，倍率和时间相同的其他加成不受影响
+     * 
+     * @param booster 要移除的加成
+     * @return 是否成功移除
+     */
+    public synchronized boolean removeBooster(PlayerBooster booster) {
+        PlayerBooster[] boosters = state.boosters;
+        for (int i = 0; i < boosters.length; i++) {
+            if (boosters[i] == booster) {
+                return removeBooster(i);
+            }
         }
         return false;
     }
+    
+    /**
+     * 只保留满足条件的加成并发布新的数据，其余加成保持原来的顺序
+     * 调用时必须持有当前对象的锁
+     * 
+     * @param current 当前的加成数据
+     * @param keep 按下标判断加成是否保留
+     * @return 是否有加成被移除
+     */
+    private boolean retain(State current, IntPredicate keep) {
+        int size = current.size();
+        int[] kept = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep.test(i)) {
+                kept[count++] = i;
+            }
+        }
+        if (count == size) {
+            return false;
+        }
+        PlayerBooster[] boosters = new PlayerBooster[count];
+        double[] multipliers = new double[count];
+        long[] endTimes = new long[count];
+        int[] levelGroups = new int[count];
+        int[] sources = new int[count];
+        for (int i = 0; i < count; i++) {
+            int from = kept[i];
+            boosters[i] = current.boosters[from];
+            multipliers[i] = current.multipliers[from];
+            endTimes[i] = current.endTimes[from];
+            levelGroups[i] = current.levelGroups[from];
+            sources[i] = current.sources[from];
+        }
+        state = new State(boosters, multipliers, endTimes, levelGroups, sources, current.version + 1);
+        return true;
+    }
+    
+    /**
+     * 某一时刻的加成数据
+     * 不可变对象，平行数组中下标相同的元素属于同一个加成，数组长度即加成数量
+     */
+    private static final class State {
+        
+        static final State EMPTY = new State(
+                new PlayerBooster[0], new double[0], new long[0], new int[0], new int[0], 0L);
+        
+        final PlayerBooster[] boosters;  // 加成对象，用于返回加成列表
+        final double[] multipliers;      // 加成倍率
+        final long[] endTimes;           // 结束时间戳（毫秒），-1表示永久
+        final int[] levelGroups;         // 限制的等级组ID
+        final int[] sources;             // 限制的来源ID
+        final long version;              // 版本号，每次变更时递增
+        
+        State(PlayerBooster[] boosters, double[] multipliers, long[] endTimes,
+              int[] levelGroups, int[] sources, long version) {
+            this.boosters = boosters;
+            this.multipliers = multipliers;
+            this.endTimes = endTimes;
+            this.levelGroups = levelGroups;
+            this.sources = sources;
+            this.version = version;
+        }
+        
+        int size() {
+            return boosters.length;
+        }
+        
+        /**
+         * 检查指定下标的加成是否仍然有效，与PlayerBooster.isActive规则一致
+         */
+        boolean isActive(int index, long now) {
+            long endTime = endTimes[index];
+            return endTime == -1 || endTime > now;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,253 @@
+package org.littlesheep.expboostQwQ.data;
+
+/**
+ * 玩家倍率快照类
+ * 不可变对象，在玩家加成被添加、移除或过期时重建，
+ * 经验事件只需读取快照中的预计算结果即可得到玩家倍率，无需遍历和分配列表
+ */
+public final class MultiplierSnapshot {
+    
+    /**
+     * 没有任何加成时使用的空快照
+     */
+    public static final MultiplierSnapshot EMPTY = new MultiplierSnapshot(
+            0L, Long.MAX_VALUE, 0, 1.0, 0.0, 1.0,
+            new double[0], new int[0], new int[0]);
+    
+    private final long version;          // 快照版本号，容器每次变更都会递增
+    private final long expiresAt;        // 快照失效时间（最早过期的加成结束时间），Long.MAX_VALUE表示永不失效
+    private final int boosterCount;      // 快照中包含的活跃加成数量
+    
+    // 不限制等级组和来源的加成，预先按三种计算方式聚合
+    private final double unconditionalProduct;  // 相乘结果
+    private final double unconditionalSum;      // 相加时的加成和（每项减去1.0）
+    private final double unconditionalMax;      // 最高倍率（不低于1.0）
+    
+    // 带有限制条件的加成，使用平行数组存储
+    private final double[] conditionalMultipliers;
+    private final int[] conditionalLevelGroups;  // 等级组ID，见 BoosterSymbols
+    private final int[] conditionalSources;      // 来源ID，见 BoosterSymbols
+    
+    private MultiplierSnapshot(long version, long expiresAt, int boosterCount,
+                               double unconditionalProduct, double unconditionalSum, double unconditionalMax,
+                               double[] conditionalMultipliers, int[] conditionalLevelGroups,
+                               int[] conditionalSources) {
+        this.version = version;
+        this.expiresAt = expiresAt;
+        this.boosterCount = boosterCount;
+        this.unconditionalProduct = unconditionalProduct;
+        this.unconditionalSum = unconditionalSum;
+        this.unconditionalMax = unconditionalMax;
+        this.conditionalMultipliers = conditionalMultipliers;
+        this.conditionalLevelGroups = conditionalLevelGroups;
+        this.conditionalSources = conditionalSources;
+    }
+    
+    /**
+     * 根据玩家加成容器中的平行数组构建快照，只包含当前仍然有效的加成
+     *
+     * @param multipliers 加成倍率
+     * @param endTimes 加成结束时间，-1表示永久
+     * @param levelGroups 加成限制的等级组ID
+     * @param sources 加成限制的来源ID
+     * @param size 加成数量
+     * @param version 容器当前版本号
+     * @param now 当前时间戳（毫秒）
+     * @return 新的快照
+     */
+    static MultiplierSnapshot build(double[] multipliers, long[] endTimes, int[] levelGroups, int[] sources,
+                                    int size, long version, long now) {
+        long expiresAt = Long.MAX_VALUE;
+        int count = 0;
+        double product = 1.0;
+        double sum = 0.0;
+        double max = 1.0;
+        int conditionalCount = 0;
+        
+        for (int i = 0; i < size; i++) {
+            long endTime = endTimes[i];
+            if (endTime != -1 && endTime <= now) {
+                continue;
+            }
+            count++;
+            if (endTime != -1 && endTime < expiresAt) {
+                expiresAt = endTime;
+            }
+            
+            if (levelGroups[i] == BoosterSymbols.ANY && sources[i] == BoosterSymbols.ANY) {
+                double multiplier = multipliers[i];
+                product *= multiplier;
+                sum += multiplier - 1.0;
+                max = Math.max(max, multiplier);
+            } else {
+                conditionalCount++;
+            }
+        }
+        
+        double[] conditionalMultipliers = new double[conditionalCount];
+        int[] conditionalLevelGroups = new int[conditionalCount];
+        int[] conditionalSources = new int[conditionalCount];
+        int index = 0;
+        for (int i = 0; i < size && index < conditionalCount; i++) {
+            long endTime = endTimes[i];
+            if ((endTime != -1 && endTime <= now)
+                    || (levelGroups[i] == BoosterSymbols.ANY && sources[i] == BoosterSymbols.ANY)) {
+                continue;
+            }
+            conditionalMultipliers[index] = multipliers[i];
+            conditionalLevelGroups[index] = levelGroups[i];
+            conditionalSources[index] = sources[i];
+            index++;
+        }
+        
+        return new MultiplierSnapshot(version, expiresAt, count, product, sum, max,
+                conditionalMultipliers, conditionalLevelGroups, conditionalSources);
+    }
+    
+    /**
+     * 检查快照是否仍然有效
+     *
+     * @param now 当前时间戳（毫秒）
+     * @return 如果快照中没有加成过期则返回true
+     */
+    public boolean isValidAt(long now) {
+        return now < expiresAt;
+    }
+    
+    /**
+     * 检查快照中是否有活跃加成
+     *
+     * @return 是否有活跃加成
+     */
+    public boolean isEmpty() {
+        return boosterCount == 0;
+    }
+    
+    /**
+     * 按相乘方式计算玩家倍率
+     *
+     * @param levelGroup 等级组
+     * @param source 经验来源
+     * @return 所有匹配加成的乘积，没有匹配时为1.0
+     */
+    public double resolveMultiply(String levelGroup, String source) {
+        return resolveMultiply(BoosterSymbols.find(levelGroup), BoosterSymbols.find(source));
+    }
+    
+    /**
+     * 使用符号表ID按相乘方式计算玩家倍率
+     *
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
+     * @return 所有匹配加成的乘积，没有匹配时为1.0
+     */
+    double resolveMultiply(int levelGroupId, int sourceId) {
+        double result = unconditionalProduct;
+        if (conditionalMultipliers.length == 0) {
+            return result;
+        }
+        for (int i = 0; i < conditionalMultipliers.length; i++) {
+            if (matches(i, levelGroupId, sourceId)) {
+                result *= conditionalMultipliers[i];
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 按相加方式计算玩家倍率
+     *
+     * @param levelGroup 等级组
+     * @param source 经验来源
+     * @return 1.0加上所有匹配加成的增量之和
+     */
+    public double resolveAdd(String levelGroup, String source) {
+        return resolveAdd(BoosterSymbols.find(levelGroup), BoosterSymbols.find(source));
+    }
+    
+    /**
+     * 使用符号表ID按相加方式计算玩家倍率
+     *
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
+     * @return 1.0加上所有匹配加成的增量之和
+     */
+    double resolveAdd(int levelGroupId, int sourceId) {
+        double sum = unconditionalSum;
+        if (conditionalMultipliers.length == 0) {
+            return 1.0 + sum;
+        }
+        for (int i = 0; i < conditionalMultipliers.length; i++) {
+            if (matches(i, levelGroupId, sourceId)) {
+                sum += conditionalMultipliers[i] - 1.0;
+            }
+        }
+        return 1.0 + sum;
+    }
+    
+    /**
+     * 按取最高方式计算玩家倍率
+     *
+     * @param levelGroup 等级组
+     * @param source 经验来源
+     * @return 匹配加成中的最高倍率，不低于1.0
+     */
+    public double resolveHighest(String levelGroup, String source) {
+        return resolveHighest(BoosterSymbols.find(levelGroup), BoosterSymbols.find(source));
+    }
+    
+    /**
+     * 使用符号表ID按取最高方式计算玩家倍率
+     *
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
+     * @return 匹配加成中的最高倍率，不低于1.0
+     */
+    double resolveHighest(int levelGroupId, int sourceId) {
+        double max = unconditionalMax;
+        if (conditionalMultipliers.length == 0) {
+            return max;
+        }
+        for (int i = 0; i < conditionalMultipliers.length; i++) {
+            if (matches(i, levelGroupId, sourceId)) {
+                max = Math.max(max, conditionalMultipliers[i]);
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * 检查带限制条件的加成是否匹配，规则与PlayerBooster.matchesConditions一致
+     */
+    private boolean matches(int index, int levelGroupId, int sourceId) {
+        return BoosterSymbols.matches(conditionalLevelGroups[index], levelGroupId)
+                && BoosterSymbols.matches(conditionalSources[index], sourceId);
+    }
+    
+    /**
+     * 获取快照版本号
+     *
+     * @return 版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * 获取快照失效时间
+     *
+     * @return 最早过期加成的结束时间，Long.MAX_VALUE表示永不失效
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    /**
+     * 获取快照中的活跃加成数量
+     *
+     * @return 活跃加成数量
+     */
+    public int getBoosterCount() {
+        return boosterCount;
+    }
+}
@@ -5,10 +5,8 @@ package org.littlesheep.expboostQwQ.data;
  * 用于存储玩家的经验加成信息，包括倍率、过期时间和限制条件
  */
 public class PlayerBooster {
-    private final double multiplier;  // 经验加成倍率
-    private final long endTime;       // 结束时间戳（毫秒），-1表示永久
-    private final String levelGroup;  // 限制的等级组，空字符串表示所有等级组
-    private final String source;      // 限制的经验来源，空字符串表示所有来源
+    private final BoosterDefinition definition;  // 共享的倍率和限制条件
+    private final long endTime;                  // 结束时间戳（毫秒），-1表示永久
     
     /**
      * 构造函数
@@ -19,10 +17,8 @@ public class PlayerBooster {
      * @param source 限制的经验来源，null或空字符串表示所有来源
      */
     public PlayerBooster(double multiplier, long endTime, String levelGroup, String source) {
-        this.multiplier = multiplier;
+        this.definition = BoosterDefinition.of(multiplier, levelGroup, source);
         this.endTime = endTime;
-        this.levelGroup = levelGroup == null ? "" : levelGroup;
-        this.source = source == null ? "" : source;
     }
     
     /**
@@ -31,7 +27,7 @@ public class PlayerBooster {
      * @return 经验加成倍率
      */
     public double getMultiplier() {
-        return multiplier;
+        return definition.getMultiplier();
     }
     
     /**
@@ -49,7 +45,7 @@ public class PlayerBooster {
      * @return 限制的等级组名称，空字符串表示所有等级组
      */
     public String getLevelGroup() {
-        return levelGroup;
+        return definition.getLevelGroup();
     }
     
     /**
@@ -58,7 +54,7 @@ public class PlayerBooster {
      * @return 限制的经验来源名称，空字符串表示所有来源
      */
     public String getSource() {
-        return source;
+        return definition.getSource();
     }
     
     /**
@@ -67,7 +63,7 @@ public class PlayerBooster {
      * @return 如果加成永久或当前时间小于结束时间，则返回true；否则返回false
      */
     public boolean isActive() {
-        return endTime == -1 || endTime > System.currentTimeMillis();
+        return endTime == -1 || endTime > BoosterClock.millis();
     }
     
     /**
@@ -78,13 +74,28 @@ public class PlayerBooster {
      * @return 如果符合条件则返回true，否则返回false
      */
     public boolean matchesConditions(String levelGroup, String source) {
-        // 检查等级组匹配（空表示匹配所有）
-        boolean levelGroupMatches = this.levelGroup.isEmpty() || this.levelGroup.equals(levelGroup);
-        
-        // 检查来源匹配（空表示匹配所有）
-        boolean sourceMatches = this.source.isEmpty() || this.source.equals(source);
-        
-        return levelGroupMatches && sourceMatches;
+        // 空的限制条件匹配所有等级组或来源
+        return definition.matches(BoosterSymbols.find(levelGroup), BoosterSymbols.find(source));
+    }
+    
+    /**
+     * 使用符号表ID检查加成是否符合条件，经验事件中查询ID只需计算一次
+     * 
+     * @param levelGroupId 等级组ID
+     * @param sourceId 经验来源ID
+     * @return 如果符合条件则返回true，否则返回false
+     */
+    boolean matchesConditions(int levelGroupId, int sourceId) {
+        return definition.matches(levelGroupId, sourceId);
+    }
+    
+    /**
+     * 获取共享的加成定义
+     * 
+     * @return 加成定义
+     */
+    BoosterDefinition getDefinition() {
+        return definition;
     }
     
     /**
@@ -97,7 +108,7 @@ public class PlayerBooster {
             return -1; // 永久
         }
         
-        long timeLeft = endTime - System.currentTimeMillis();
+        long timeLeft = endTime - BoosterClock.millis();
         return Math.max(0, timeLeft);
     }
     
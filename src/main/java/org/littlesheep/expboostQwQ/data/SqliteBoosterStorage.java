@@ -0,0 +1,407 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * SQLite数据库存储
+ * 使用Spigot自带的SQLite驱动，数据保存在插件目录下的单个数据库文件中，不需要外部数据库服务。
+ * 玩家加成按UUID和结束时间建立索引，加载玩家和清理过期加成都是索引查询；
+ * 写入使用批量预编译语句并在同一个事务中提交
+ */
+public class SqliteBoosterStorage implements BoosterStorage {
+    
+    // 全局数据类型
+    private static final String TYPE_SERVER = "server";
+    private static final String TYPE_LEVEL_GROUP = "level_group";
+    private static final String TYPE_GLOBAL_DEFAULT = "global_default";
+    // 标记等级组倍率已经保存过，即使当前没有任何等级组倍率
+    private static final String TYPE_LEVEL_GROUPS_SAVED = "level_groups";
+    // 导入标记，记录YAML数据已经完整导入
+    private static final String META_YAML_IMPORTED = "yaml_imported";
+    // 一行中数值列的大小：倍率、结束时间和序号
+    private static final int NUMERIC_COLUMN_BYTES = 8 + 8 + 4;
+    
+    // 数据库文件
+    private final File databaseFile;
+    // 数据库连接，所有访问都通过同步方法串行化
+    private Connection connection;
+    
+    /**
+     * 构造函数
+     * @param databaseFile 数据库文件
+     */
+    public SqliteBoosterStorage(File databaseFile) {
+        this.databaseFile = databaseFile;
+    }
+    
+    @Override
+    public synchronized void open() throws IOException {
+        File parent = databaseFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("无法创建目录: " + parent.getPath());
+        }
+        
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+            
+            try (Statement statement = connection.createStatement()) {
+                // WAL模式下读取不会阻塞写入，NORMAL同步级别在WAL模式下仍然保证数据一致
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS player_boosters ("
+                        + "uuid CHAR(36) NOT NULL, "
+                        + "slot INTEGER NOT NULL, "
+                        + "multiplier REAL NOT NULL, "
+                        + "end_time INTEGER NOT NULL, "
+                        + "level_group TEXT NOT NULL DEFAULT '', "
+                        + "source TEXT NOT NULL DEFAULT '', "
+                        + "PRIMARY KEY (uuid, slot))");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_player_boosters_end_time "
+                        + "ON player_boosters (end_time)");
+                
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS global_boosters ("
+                        + "type TEXT NOT NULL, "
+                        + "name TEXT NOT NULL DEFAULT '', "
+                        + "multiplier REAL NOT NULL, "
+                        + "end_time INTEGER NOT NULL, "
+                        + "level_group TEXT NOT NULL DEFAULT '', "
+                        + "source TEXT NOT NULL DEFAULT '', "
+                        + "PRIMARY KEY (type, name))");
+                
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS storage_meta ("
+                        + "name TEXT PRIMARY KEY, "
+                        + "value TEXT NOT NULL)");
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("找不到SQLite驱动", e);
+        } catch (SQLException e) {
+            close();
+            throw new IOException("无法打开SQLite数据库: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public synchronized GlobalData loadGlobal() {
+        ServerBooster serverBooster = null;
+        Map<String, PlayerBooster> levelGroupBoosters = null;
+        PlayerBooster globalBooster = null;
+        
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT type, name, multiplier, end_time, level_group, source FROM global_boosters")) {
+            while (rs.next()) {
+                String type = rs.getString(1);
+                double multiplier = rs.getDouble(3);
+                long endTime = rs.getLong(4);
+                
+                if (TYPE_SERVER.equals(type)) {
+                    serverBooster = new ServerBooster(multiplier, endTime, rs.getString(5), rs.getString(6));
+                } else if (TYPE_LEVEL_GROUP.equals(type)) {
+                    if (levelGroupBoosters == null) {
+                        levelGroupBoosters = new HashMap<>();
+                    }
+                    String group = rs.getString(2);
+                    levelGroupBoosters.put(group, new PlayerBooster(multiplier, endTime, group, ""));
+                } else if (TYPE_GLOBAL_DEFAULT.equals(type)) {
+                    globalBooster = new PlayerBooster(multiplier, endTime, "", "");
+                } else if (TYPE_LEVEL_GROUPS_SAVED.equals(type)) {
+                    if (levelGroupBoosters == null) {
+                        levelGroupBoosters = new HashMap<>();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LogUtil.error("从SQLite读取全局加成数据时出错: " + e.getMessage(), e);
+        }
+        
+        return new GlobalData(serverBooster, levelGroupBoosters, globalBooster);
+    }
+    
+    @Override
+    public synchronized void saveGlobal(GlobalData data) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                long bytes = writeGlobal(data);
+                connection.commit();
+                PluginMetrics.recordStorageBytes(bytes);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("保存全局加成数据失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 替换全部全局数据，由调用方负责事务
+     * @param data 全局数据
+     * @return 写入数据的估算字节数
+     */
+    private long writeGlobal(GlobalData data) throws SQLException {
+        try (Statement delete = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO global_boosters (type, name, multiplier, end_time, level_group, source) "
+                             + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            delete.executeUpdate("DELETE FROM global_boosters");
+            long bytes = 0;
+            
+            ServerBooster serverBooster = data.getServerBooster();
+            if (serverBooster != null && serverBooster.isActive()) {
+                bytes += addGlobalRow(insert, TYPE_SERVER, "", serverBooster.getMultiplier(), serverBooster.getEndTime(),
+                        serverBooster.getLevelGroup(), serverBooster.getSource());
+            }
+            
+            if (data.getLevelGroupBoosters() != null) {
+                // 没有等级组倍率时仍然写入标记，重新加载时不再从 config.yml 的旧结构读取
+                bytes += addGlobalRow(insert, TYPE_LEVEL_GROUPS_SAVED, "", 0.0, -1L, "", "");
+                for (Map.Entry<String, PlayerBooster> entry : data.getLevelGroupBoosters().entrySet()) {
+                    PlayerBooster booster = entry.getValue();
+                    if (booster.isActive()) {
+                        bytes += addGlobalRow(insert, TYPE_LEVEL_GROUP, entry.getKey(), booster.getMultiplier(),
+                                booster.getEndTime(), "", "");
+                    }
+                }
+            }
+            
+            PlayerBooster globalBooster = data.getGlobalBooster();
+            if (globalBooster != null && globalBooster.isActive()) {
+                bytes += addGlobalRow(insert, TYPE_GLOBAL_DEFAULT, "", globalBooster.getMultiplier(),
+                        globalBooster.getEndTime(), "", "");
+            }
+            
+            insert.executeBatch();
+            return bytes;
+        }
+    }
+    
+    /**
+     * 向批量插入语句中添加一行全局数据
+     * @return 这一行数据的估算字节数
+     */
+    private long addGlobalRow(PreparedStatement insert, String type, String name, double multiplier,
+                              long endTime, String levelGroup, String source) throws SQLException {
+        insert.setString(1, type);
+        insert.setString(2, name);
+        insert.setDouble(3, multiplier);
+        insert.setLong(4, endTime);
+        insert.setString(5, levelGroup);
+        insert.setString(6, source);
+        insert.addBatch();
+        return estimateRowBytes(type, name, levelGroup, source);
+    }
+    
+    /**
+     * 估算一行数据写入的字节数，只计算各列的数据，不含SQLite的页和索引开销
+     * @param texts 文本列的值
+     * @return 估算字节数
+     */
+    private static long estimateRowBytes(String... texts) {
+        long bytes = NUMERIC_COLUMN_BYTES;
+        for (String text : texts) {
+            if (text != null) {
+                bytes += text.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return bytes;
+    }
+    
+    @Override
+    public synchronized List<PlayerBooster> loadPlayer(UUID uuid) {
+        List<PlayerBooster> boosters = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT multiplier, end_time, level_group, source FROM player_boosters "
+                        + "WHERE uuid = ? AND (end_time = -1 OR end_time > ?) ORDER BY slot")) {
+            select.setString(1, uuid.toString());
+            select.setLong(2, System.currentTimeMillis());
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    boosters.add(new PlayerBooster(rs.getDouble(1), rs.getLong(2), rs.getString(3), rs.getString(4)));
+                }
+            }
+        } catch (SQLException e) {
+            LogUtil.error("从SQLite读取玩家 " + uuid + " 的加成数据时出错: " + e.getMessage(), e);
+        }
+        return boosters;
+    }
+    
+    @Override
+    public synchronized void savePlayers(Map<UUID, List<PlayerBooster>> players) throws IOException {
+        if (players.isEmpty()) {
+            return;
+        }
+        
+        try {
+            connection.setAutoCommit(false);
+            try {
+                long bytes = writePlayers(players);
+                connection.commit();
+                PluginMetrics.recordStorageBytes(bytes);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("保存玩家加成数据失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 替换指定玩家的全部加成，由调用方负责事务
+     * @param players 玩家UUID到加成列表的映射
+     * @return 写入数据的估算字节数
+     */
+    private long writePlayers(Map<UUID, List<PlayerBooster>> players) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM player_boosters WHERE uuid = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO player_boosters (uuid, slot, multiplier, end_time, level_group, source) "
+                             + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            long bytes = 0;
+            for (Map.Entry<UUID, List<PlayerBooster>> entry : players.entrySet()) {
+                String uuid = entry.getKey().toString();
+                delete.setString(1, uuid);
+                delete.addBatch();
+                
+                List<PlayerBooster> boosters = entry.getValue();
+                for (int i = 0; i < boosters.size(); i++) {
+                    PlayerBooster booster = boosters.get(i);
+                    insert.setString(1, uuid);
+                    insert.setInt(2, i);
+                    insert.setDouble(3, booster.getMultiplier());
+                    insert.setLong(4, booster.getEndTime());
+                    insert.setString(5, booster.getLevelGroup());
+                    insert.setString(6, booster.getSource());
+                    insert.addBatch();
+                    bytes += estimateRowBytes(uuid, booster.getLevelGroup(), booster.getSource());
+                }
+            }
+            
+            // 先删除旧数据再插入新数据，两批语句在同一个事务中提交
+            delete.executeBatch();
+            insert.executeBatch();
+            return bytes;
+        }
+    }
+    
+    /**
+     * 检查是否已经从YAML存储导入过数据
+     * @return 导入标记存在时返回true
+     * @throws IOException 读取失败
+     */
+    public synchronized boolean isYamlImported() throws IOException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT 1 FROM storage_meta WHERE name = ?")) {
+            select.setString(1, META_YAML_IMPORTED);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw new IOException("读取导入标记失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 导入YAML存储中的全部数据，并写入导入标记
+     * 数据和标记在同一个事务中提交，导入失败时全部回滚，下次启动会重新导入
+     *
+     * @param global 全局数据
+     * @param players 所有玩家的加成
+     * @throws IOException 导入失败
+     */
+    public synchronized void importYaml(GlobalData global, Map<UUID, List<PlayerBooster>> players) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                long bytes = writeGlobal(global) + writePlayers(players);
+                try (PreparedStatement marker = connection.prepareStatement(
+                        "INSERT OR REPLACE INTO storage_meta (name, value) VALUES (?, ?)")) {
+                    marker.setString(1, META_YAML_IMPORTED);
+                    marker.setString(2, String.valueOf(System.currentTimeMillis()));
+                    marker.executeUpdate();
+                }
+                connection.commit();
+                PluginMetrics.recordStorageBytes(bytes);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("导入YAML数据失败: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public synchronized Map<UUID, List<PlayerBooster>> loadAllPlayers() {
+        Map<UUID, List<PlayerBooster>> players = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT uuid, multiplier, end_time, level_group, source FROM player_boosters "
+                        + "WHERE end_time = -1 OR end_time > ? ORDER BY uuid, slot")) {
+            select.setLong(1, System.currentTimeMillis());
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        UUID uuid = UUID.fromString(rs.getString(1));
+                        players.computeIfAbsent(uuid, id -> new ArrayList<>()).add(
+                                new PlayerBooster(rs.getDouble(2), rs.getLong(3), rs.getString(4), rs.getString(5)));
+                    } catch (IllegalArgumentException e) {
+                        LogUtil.warn("跳过无法识别的玩家UUID: " + rs.getString(1));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LogUtil.error("从SQLite读取所有玩家加成数据时出错: " + e.getMessage(), e);
+        }
+        return players;
+    }
+    
+    @Override
+    public synchronized int deleteExpired(long now) throws IOException {
+        // 永久加成的结束时间为-1，使用范围条件让查询走end_time索引
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM player_boosters WHERE end_time >= 0 AND end_time <= ?")) {
+            delete.setLong(1, now);
+            return delete.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("清理过期加成失败: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LogUtil.error("关闭SQLite数据库时出错: " + e.getMessage(), e);
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,355 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * YAML文件存储
+ * 全局数据保存在boosters.yml中，每个玩家的加成单独保存在 playerdata/<uuid>.yml 中，
+ * 只在玩家在线时加载，读写开销只与在线玩家数量有关
+ */
+public class YamlBoosterStorage implements BoosterStorage {
+    
+    // 全局数据文件
+    private final File dataFile;
+    // 玩家数据目录
+    private final File playerFolder;
+    
+    /**
+     * 构造函数
+     * @param dataFile 全局数据文件
+     * @param playerFolder 玩家数据目录
+     */
+    public YamlBoosterStorage(File dataFile, File playerFolder) {
+        this.dataFile = dataFile;
+        this.playerFolder = playerFolder;
+    }
+    
+    @Override
+    public void open() throws IOException {
+        // 旧版本将所有玩家加成保存在boosters.yml中，迁移到玩家分片文件
+        if (dataFile.exists()) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
+            if (config.contains("player_boosters")) {
+                migrateLegacyPlayerBoosters(config);
+            }
+        }
+    }
+    
+    @Override
+    public GlobalData loadGlobal() {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
+        
+        // 加载全局默认倍率
+        PlayerBooster globalBooster = null;
+        if (config.contains("global_default")) {
+            globalBooster = new PlayerBooster(
+                    config.getDouble("global_default.multiplier", 1.0),
+                    config.getLong("global_default.end_time", -1), "", "");
+        }
+        
+        // 加载服务器加成数据
+        ServerBooster serverBooster = null;
+        if (config.contains("server_booster")) {
+            serverBooster = new ServerBooster(
+                    config.getDouble("server_booster.multiplier"),
+                    config.getLong("server_booster.end_time", -1),
+                    config.getString("server_booster.level_group", ""),
+                    config.getString("server_booster.source", ""));
+        }
+        
+        // 加载等级组倍率数据
+        Map<String, PlayerBooster> levelGroupBoosters = null;
+        ConfigurationSection levelGroupsSection = config.getConfigurationSection("level_groups");
+        if (levelGroupsSection != null) {
+            levelGroupBoosters = new HashMap<>();
+            for (String group : levelGroupsSection.getKeys(false)) {
+                double groupMultiplier = config.getDouble("level_groups." + group + ".multiplier", 1.0);
+                long groupEndTime = config.getLong("level_groups." + group + ".end_time", -1);
+                levelGroupBoosters.put(group, new PlayerBooster(groupMultiplier, groupEndTime, group, ""));
+            }
+        }
+        
+        return new GlobalData(serverBooster, levelGroupBoosters, globalBooster);
+    }
+    
+    @Override
+    public void saveGlobal(GlobalData data) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        
+        // 保存服务器加成数据
+        ServerBooster serverBooster = data.getServerBooster();
+        if (serverBooster != null && serverBooster.isActive()) {
+            config.set("server_booster.multiplier", serverBooster.getMultiplier());
+            config.set("server_booster.end_time", serverBooster.getEndTime());
+            config.set("server_booster.level_group", serverBooster.getLevelGroup());
+            config.set("server_booster.source", serverBooster.getSource());
+        }
+        
+        // 保存等级组倍率数据
+        // 没有等级组倍率时也写入空的节点，表示数据已迁移，重新加载时不再从 config.yml 的旧结构读取
+        if (data.getLevelGroupBoosters() != null) {
+            config.createSection("level_groups");
+            for (Map.Entry<String, PlayerBooster> entry : data.getLevelGroupBoosters().entrySet()) {
+                PlayerBooster booster = entry.getValue();
+                if (booster.isActive()) {
+                    config.set("level_groups." + entry.getKey() + ".multiplier", booster.getMultiplier());
+                    config.set("level_groups." + entry.getKey() + ".end_time", booster.getEndTime());
+                }
+            }
+        }
+        
+        // 保存全局默认倍率
+        PlayerBooster globalBooster = data.getGlobalBooster();
+        if (globalBooster != null && globalBooster.isActive()) {
+            config.set("global_default.multiplier", globalBooster.getMultiplier());
+            config.set("global_default.end_time", globalBooster.getEndTime());
+        }
+        
+        writeAtomically(dataFile, config.saveToString());
+    }
+    
+    /**
+     * 获取玩家的分片文件
+     * @param uuid 玩家UUID
+     * @return 分片文件
+     */
+    private File getPlayerFile(UUID uuid) {
+        return new File(playerFolder, uuid + ".yml");
+    }
+    
+    /**
+     * 读取玩家的加成数据，只返回仍然有效的加成
+     * 如果文件中的加成已全部过期，则直接删除该文件
+     *
+     * @param uuid 玩家UUID
+     * @return 有效加成列表，没有数据时返回空列表
+     */
+    @Override
+    public List<PlayerBooster> loadPlayer(UUID uuid) {
+        List<PlayerBooster> boosters = new ArrayList<>();
+        File file = getPlayerFile(uuid);
+        if (!file.exists()) {
+            return boosters;
+        }
+        
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection section = config.getConfigurationSection("boosters");
+        if (section == null) {
+            return boosters;
+        }
+        
+        int total = 0;
+        for (String index : section.getKeys(false)) {
+            total++;
+            PlayerBooster booster = readBooster(section, index);
+            if (booster.isActive()) {
+                boosters.add(booster);
+            }
+        }
+        
+        // 所有加成都已过期，删除文件
+        if (total > 0 && boosters.isEmpty() && !file.delete()) {
+            LogUtil.warn("无法删除过期的玩家加成文件: " + file.getName());
+        }
+        return boosters;
+    }
+    
+    @Override
+    public void savePlayers(Map<UUID, List<PlayerBooster>> players) throws IOException {
+        IOException failure = null;
+        for (Map.Entry<UUID, List<PlayerBooster>> entry : players.entrySet()) {
+            try {
+                savePlayer(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                // 继续保存其余玩家，最后再抛出异常
+                failure = new IOException("保存玩家 " + entry.getKey() + " 的加成数据失败: " + e.getMessage(), e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * 保存玩家的加成数据，没有加成时删除文件
+     *
+     * @param uuid 玩家UUID
+     * @param boosters 加成列表
+     * @throws IOException 写入失败
+     */
+    private void savePlayer(UUID uuid, List<PlayerBooster> boosters) throws IOException {
+        File file = getPlayerFile(uuid);
+        if (boosters.isEmpty()) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("无法删除文件: " + file.getPath());
+            }
+            return;
+        }
+        
+        YamlConfiguration config = new YamlConfiguration();
+        for (int i = 0; i < boosters.size(); i++) {
+            writeBooster(config, "boosters." + i, boosters.get(i));
+        }
+        writeAtomically(file, config.saveToString());
+    }
+    
+    @Override
+    public Map<UUID, List<PlayerBooster>> loadAllPlayers() {
+        Map<UUID, List<PlayerBooster>> players = new HashMap<>();
+        File[] files = playerFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null) {
+            return players;
+        }
+        
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                UUID uuid = UUID.fromString(name.substring(0, name.length() - 4));
+                List<PlayerBooster> boosters = loadPlayer(uuid);
+                if (!boosters.isEmpty()) {
+                    players.put(uuid, boosters);
+                }
+            } catch (IllegalArgumentException e) {
+                LogUtil.warn("跳过无法识别的玩家数据文件: " + name);
+            }
+        }
+        return players;
+    }
+    
+    /**
+     * YAML存储中过期的加成在玩家下次加载时清理，这里不需要扫描所有文件
+     */
+    @Override
+    public int deleteExpired(long now) {
+        return 0;
+    }
+    
+    @Override
+    public void close() {
+        // 没有需要释放的资源
+    }
+    
+    /**
+     * 将旧版boosters.yml中的player_boosters节点迁移到玩家分片文件
+     * 已经存在分片文件的玩家以分片文件为准
+     *
+     * @param config 旧版数据文件内容
+     * @throws IOException 写入失败
+     */
+    private void migrateLegacyPlayerBoosters(YamlConfiguration config) throws IOException {
+        ConfigurationSection playerBoostersSection = config.getConfigurationSection("player_boosters");
+        int migrated = 0;
+        
+        if (playerBoostersSection != null) {
+            for (String uuidString : playerBoostersSection.getKeys(false)) {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(uuidString);
+                } catch (IllegalArgumentException e) {
+                    LogUtil.error("无法解析UUID: " + uuidString + "，跳过该玩家的加成数据");
+                    continue;
+                }
+                
+                List<PlayerBooster> boosters = new ArrayList<>();
+                ConfigurationSection boostersSection = playerBoostersSection.getConfigurationSection(uuidString + ".boosters");
+                if (boostersSection != null) {
+                    // 新格式 - 多个加成
+                    for (String index : boostersSection.getKeys(false)) {
+                        PlayerBooster booster = readBooster(boostersSection, index);
+                        if (booster.isActive()) {
+                            boosters.add(booster);
+                        }
+                    }
+                } else {
+                    // 旧格式 - 单个加成
+                    PlayerBooster booster = readBooster(playerBoostersSection, uuidString);
+                    if (booster.isActive()) {
+                        boosters.add(booster);
+                    }
+                }
+                
+                if (!boosters.isEmpty() && !getPlayerFile(uuid).exists()) {
+                    savePlayer(uuid, boosters);
+                    migrated++;
+                }
+            }
+        }
+        
+        // 重写boosters.yml，移除已迁移的玩家数据
+        config.set("player_boosters", null);
+        writeAtomically(dataFile, config.saveToString());
+        LogUtil.info("已将 " + migrated + " 个玩家的加成数据迁移到 playerdata 目录");
+    }
+    
+    /**
+     * 从配置节点读取一个加成
+     * @param section 父节点
+     * @param key 加成键
+     * @return 加成对象
+     */
+    private static PlayerBooster readBooster(ConfigurationSection section, String key) {
+        String path = key + ".";
+        double multiplier = section.getDouble(path + "multiplier");
+        long endTime = section.getLong(path + "end_time");
+        String levelGroup = section.getString(path + "level_group", "");
+        String source = section.getString(path + "source", "");
+        return new PlayerBooster(multiplier, endTime, levelGroup, source);
+    }
+    
+    /**
+     * 将一个加成写入配置节点
+     * @param config 配置对象
+     * @param path 加成路径
+     * @param booster 加成对象
+     */
+    private static void writeBooster(YamlConfiguration config, String path, PlayerBooster booster) {
+        config.set(path + ".multiplier", booster.getMultiplier());
+        config.set(path + ".end_time", booster.getEndTime());
+        config.set(path + ".level_group", booster.getLevelGroup());
+        config.set(path + ".source", booster.getSource());
+    }
+    
+    /**
+     * 先写入同目录下的临时文件，再重命名覆盖目标文件
+     * @param target 目标文件
+     * @param content 文件内容
+     * @throws IOException 写入失败
+     */
+    static void writeAtomically(File target, String content) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("无法创建目录: " + parent.getPath());
+        }
+        
+        Path targetPath = target.toPath();
+        Path tempPath = Files.createTempFile(parent.toPath(), target.getName(), ".tmp");
+        try {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            Files.write(tempPath, bytes);
+            PluginMetrics.recordStorageBytes(bytes.length);
+            try {
+                Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+}
@@ -2,12 +2,45 @@ package org.littlesheep.expboostQwQ.hooks;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.Settings;
+import org.littlesheep.expboostQwQ.data.BoosterManager;
+import org.littlesheep.expboostQwQ.data.MultiplePlayerBoosters;
 import org.littlesheep.expboostQwQ.data.PlayerBooster;
 import org.littlesheep.expboostQwQ.data.ServerBooster;
+import org.littlesheep.expboostQwQ.utils.LevelApiUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
 
-public class PlaceholderAPIHook extends PlaceholderExpansion {
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PlaceholderAPI扩展
+ * 计分板和Tab插件会频繁请求占位符，因此每个玩家的占位符值都会缓存，
+ * 只有玩家加成、全局加成或插件设置变更后才重新计算，剩余时间只在显示的秒数变化时重新生成字符串。
+ * 占位符名称在第一次请求时解析为对应的取值函数并缓存，之后的请求不再需要拆分字符串
+ */
+public class PlaceholderAPIHook extends PlaceholderExpansion implements Listener {
+    // 最多缓存的占位符名称数量，避免被大量不同的名称占满内存
+    private static final int MAX_COMPILED = 1024;
+    // 无法识别的占位符
+    private static final CompiledPlaceholder UNKNOWN = player -> null;
+    
     private final ExpboostQwQ plugin;
+    // 已解析的占位符名称，重载插件后清空
+    private final Map<String, CompiledPlaceholder> compiled = new ConcurrentHashMap<>();
+    // 解析占位符时使用的设置快照
+    private volatile Settings compiledSettings = null;
+    // 每个在线玩家缓存的占位符值
+    private final Map<UUID, PlayerValues> playerValues = new ConcurrentHashMap<>();
+    // 全服加成的占位符值，所有玩家共用
+    private volatile ServerValues serverValues = null;
 
     public PlaceholderAPIHook(ExpboostQwQ plugin) {
         this.plugin = plugin;
@@ -35,38 +68,327 @@ public class PlaceholderAPIHook extends PlaceholderExpansion {
 
     @Override
     public String onPlaceholderRequest(Player player, String identifier) {
+        PluginMetrics.recordPlaceholderRequest();
         if (player == null) {
             return "";
         }
 
-        switch (identifier.toLowerCase()) {
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            return resolve(player, identifier);
+        } finally {
+            profiler.stop(TickProfiler.Section.PLACEHOLDER, start);
+        }
+    }
+
+    /**
+     * 查找或编译占位符并取值
+     *
+     * @param player 玩家
+     * @param identifier 占位符名称（不含 expboostqwq_ 前缀）
+     * @return 占位符的值
+     */
+    private String resolve(Player player, String identifier) {
+        // 重载插件后等级组可能变化，重新解析占位符名称
+        Settings settings = plugin.getSettings();
+        if (compiledSettings != settings) {
+            compiled.clear();
+            compiledSettings = settings;
+        }
+        
+        CompiledPlaceholder placeholder = compiled.get(identifier);
+        if (placeholder == null) {
+            placeholder = compile(identifier);
+            if (compiled.size() < MAX_COMPILED) {
+                compiled.put(identifier, placeholder);
+            }
+        }
+        return placeholder.apply(player);
+    }
+
+    /**
+     * 将占位符名称解析为取值函数
+     *
+     * @param identifier 占位符名称（不含 expboostqwq_ 前缀）
+     * @return 取值函数，无法识别时返回 UNKNOWN
+     */
+    private CompiledPlaceholder compile(String identifier) {
+        String lower = identifier.toLowerCase();
+        switch (lower) {
             case "player_multiplier":
-                PlayerBooster pb = plugin.getBoosterManager().getPlayerBooster(player.getUniqueId());
-                return pb != null && pb.isActive() ? String.format("%.2f", pb.getMultiplier()) : "1.00";
+                return player -> getPlayerValues(player).playerMultiplier;
             
             case "player_duration":
-                pb = plugin.getBoosterManager().getPlayerBooster(player.getUniqueId());
-                if (pb != null && pb.isActive()) {
-                    return pb.getEndTime() == -1 ? "永久" : String.valueOf(pb.getTimeLeft() / 1000);
-                }
-                return "0";
+                return player -> getPlayerValues(player).duration.render();
+            
+            case "player_count":
+                return player -> getPlayerValues(player).activeCount;
+            
+            case "next_expiry":
+                return player -> getPlayerValues(player).nextExpiry.render();
             
             case "server_multiplier":
-                ServerBooster sb = plugin.getBoosterManager().getServerBooster();
-                return sb != null && sb.isActive() ? String.format("%.2f", sb.getMultiplier()) : "1.00";
+                return player -> getServerValues().multiplier;
             
             case "server_duration":
-                sb = plugin.getBoosterManager().getServerBooster();
-                if (sb != null && sb.isActive()) {
-                    return sb.getEndTime() == -1 ? "永久" : String.valueOf(sb.getTimeLeft() / 1000);
-                }
-                return "0";
+                return player -> getServerValues().duration.render();
             
             case "total_multiplier":
-                return String.format("%.2f", plugin.getBoosterManager().getEffectiveMultiplier(player, "", ""));
+                return new Total("", "");
             
             default:
-                return null;
+                if (lower.startsWith("total_")) {
+                    return compileTotal(identifier.substring("total_".length()));
+                }
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * 解析 total_<等级组>_<来源> 占位符的参数
+     * 等级组名称中可能包含下划线，因此优先匹配最长的已知等级组名称，
+     * 没有匹配的等级组时以第一个下划线分隔，省略来源表示任意来源
+     *
+     * @param parameters total_ 之后的部分
+     * @return 取值函数
+     */
+    private CompiledPlaceholder compileTotal(String parameters) {
+        String levelGroup = null;
+        for (String group : LevelApiUtil.getLevelGroupNames()) {
+            if ((parameters.equals(group) || parameters.startsWith(group + "_"))
+                    && (levelGroup == null || group.length() > levelGroup.length())) {
+                levelGroup = group;
+            }
+        }
+        if (levelGroup == null) {
+            int separator = parameters.indexOf('_');
+            levelGroup = separator >= 0 ? parameters.substring(0, separator) : parameters;
+        }
+        String source = parameters.length() > levelGroup.length() ? parameters.substring(levelGroup.length() + 1) : "";
+        return new Total(levelGroup, source);
+    }
+
+    /**
+     * 玩家退出时丢弃其缓存的占位符值
+     *
+     * @param event 玩家退出事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        playerValues.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * 获取玩家的占位符缓存，加成或设置变更后重新创建
+     */
+    private PlayerValues getPlayerValues(Player player) {
+        BoosterManager boosterManager = plugin.getBoosterManager();
+        UUID uuid = player.getUniqueId();
+        MultiplePlayerBoosters boosters = boosterManager.getPlayerBoosters(uuid);
+        long boosterVersion = boosters != null ? boosters.getVersion() : -1;
+        long globalVersion = boosterManager.getGlobalVersion();
+        Settings settings = plugin.getSettings();
+        
+        PlayerValues values = playerValues.get(uuid);
+        if (values == null || !values.isValid(boosters, boosterVersion, globalVersion, settings)) {
+            values = new PlayerValues(boosters, boosterVersion, globalVersion, settings,
+                    boosterManager.getPlayerBooster(uuid), findNextExpiry(boosters));
+            playerValues.put(uuid, values);
+        }
+        return values;
+    }
+
+    /**
+     * 获取全服加成的占位符缓存，全局加成变更后重新创建
+     */
+    private ServerValues getServerValues() {
+        BoosterManager boosterManager = plugin.getBoosterManager();
+        long globalVersion = boosterManager.getGlobalVersion();
+        ServerValues values = serverValues;
+        if (values == null || !values.isValid(globalVersion)) {
+            values = new ServerValues(globalVersion, boosterManager.getServerBooster());
+            serverValues = values;
+        }
+        return values;
+    }
+
+    /**
+     * 查找最早到期的活跃加成，只有永久加成时返回其中一个永久加成
+     */
+    private static PlayerBooster findNextExpiry(MultiplePlayerBoosters boosters) {
+        if (boosters == null) {
+            return null;
+        }
+        PlayerBooster next = null;
+        for (PlayerBooster booster : boosters.getActiveBoosters()) {
+            if (next == null || next.getEndTime() == -1
+                    || (booster.getEndTime() != -1 && booster.getEndTime() < next.getEndTime())) {
+                next = booster;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 格式化倍率，保留两位小数
+     */
+    private static String formatMultiplier(double multiplier) {
+        return String.format("%.2f", multiplier);
+    }
+
+    /**
+     * 一个玩家缓存的占位符值
+     * 创建时记录玩家加成容器、版本号、全局加成版本号和设置快照，任何一个变化都说明缓存已失效
+     */
+    private final class PlayerValues {
+        private final MultiplePlayerBoosters boosters;  // 创建时的玩家加成容器
+        private final long boosterVersion;              // 创建时的玩家加成版本号
+        private final long globalVersion;               // 创建时的全局加成版本号
+        private final Settings settings;                // 创建时的设置快照
+        private final PlayerBooster booster;            // 玩家的第一个活跃加成
+        private final PlayerBooster nextBooster;        // 玩家最早到期的活跃加成
+        private final DurationText duration;            // 玩家加成的剩余时间
+        private final DurationText nextExpiry;          // 最早到期加成的剩余时间
+        private final String playerMultiplier;          // 玩家加成倍率
+        private final String activeCount;               // 活跃加成数量
+        // 各个 total 占位符的最终倍率，第一次请求时计算
+        private final Map<Total, String> totals = new ConcurrentHashMap<>();
+        
+        private PlayerValues(MultiplePlayerBoosters boosters, long boosterVersion, long globalVersion,
+                             Settings settings, PlayerBooster booster, PlayerBooster nextBooster) {
+            this.boosters = boosters;
+            this.boosterVersion = boosterVersion;
+            this.globalVersion = globalVersion;
+            this.settings = settings;
+            this.booster = booster;
+            this.nextBooster = nextBooster;
+            this.duration = new DurationText(booster);
+            this.nextExpiry = new DurationText(nextBooster);
+            this.playerMultiplier = booster != null && booster.isActive() ? formatMultiplier(booster.getMultiplier()) : "1.00";
+            this.activeCount = String.valueOf(boosters != null ? boosters.getActiveBoosterCount() : 0);
+        }
+        
+        private boolean isValid(MultiplePlayerBoosters boosters, long boosterVersion, long globalVersion, Settings settings) {
+            return this.boosters == boosters && this.boosterVersion == boosterVersion
+                    && this.globalVersion == globalVersion && this.settings == settings
+                    && (booster == null || booster.isActive())
+                    && (nextBooster == null || nextBooster.isActive());
+        }
+        
+        private String getTotal(Player player, Total total) {
+            String result = totals.get(total);
+            if (result == null) {
+                result = formatMultiplier(plugin.getBoosterManager().getEffectiveMultiplier(player, total.levelGroup, total.source));
+                totals.put(total, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 编译后的占位符取值函数
+     */
+    private interface CompiledPlaceholder {
+        String apply(Player player);
+    }
+
+    /**
+     * 指定等级组和经验来源的最终倍率
+     * 按等级组和来源比较相等，编译缓存已满时每次解析出的新对象也能命中玩家缓存的计算结果
+     */
+    private final class Total implements CompiledPlaceholder {
+        private final String levelGroup;  // 等级组，空字符串表示不限等级组
+        private final String source;      // 经验来源，空字符串表示不限来源
+        
+        private Total(String levelGroup, String source) {
+            this.levelGroup = levelGroup;
+            this.source = source;
+        }
+        
+        @Override
+        public String apply(Player player) {
+            return getPlayerValues(player).getTotal(player, this);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Total)) {
+                return false;
+            }
+            Total other = (Total) o;
+            return levelGroup.equals(other.levelGroup) && source.equals(other.source);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * levelGroup.hashCode() + source.hashCode();
+        }
+    }
+
+    /**
+     * 全服加成缓存的占位符值
+     */
+    private static final class ServerValues {
+        private final long globalVersion;     // 创建时的全局加成版本号
+        private final ServerBooster booster;  // 全服加成
+        private final String multiplier;      // 全服加成倍率
+        private final DurationText duration;  // 全服加成的剩余时间
+        
+        private ServerValues(long globalVersion, ServerBooster booster) {
+            this.globalVersion = globalVersion;
+            this.booster = booster;
+            this.multiplier = booster != null && booster.isActive() ? formatMultiplier(booster.getMultiplier()) : "1.00";
+            this.duration = new DurationText(booster);
+        }
+        
+        private boolean isValid(long globalVersion) {
+            return this.globalVersion == globalVersion && (booster == null || booster.isActive());
+        }
+    }
+
+    /**
+     * 加成剩余时间的显示文本
+     * 只有显示的秒数变化时才重新生成字符串
+     */
+    private static final class DurationText {
+        private final PlayerBooster booster;
+        private volatile Rendered rendered = null;
+        
+        private DurationText(PlayerBooster booster) {
+            this.booster = booster;
+        }
+        
+        private String render() {
+            if (booster == null || !booster.isActive()) {
+                return "0";
+            }
+            if (booster.getEndTime() == -1) {
+                return "永久";
+            }
+            long seconds = booster.getTimeLeft() / 1000;
+            Rendered current = rendered;
+            if (current == null || current.seconds != seconds) {
+                current = new Rendered(seconds);
+                rendered = current;
+            }
+            return current.text;
+        }
+    }
+
+    /**
+     * 某一秒的剩余时间文本
+     */
+    private static final class Rendered {
+        private final long seconds;
+        private final String text;
+        
+        private Rendered(long seconds) {
+            this.seconds = seconds;
+            this.text = String.valueOf(seconds);
         }
     }
-} 
\ No newline at end of file
+}
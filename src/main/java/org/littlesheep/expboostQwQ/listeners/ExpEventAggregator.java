@@ -0,0 +1,294 @@
+package org.littlesheep.expboostQwQ.listeners;
+
+import com.github.cpjinan.plugin.akarilevel.common.event.exp.PlayerExpChangeEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.data.BoosterManager;
+import org.littlesheep.expboostQwQ.utils.LevelApiUtil;
+import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 经验事件合并器
+ * 同一tick内同一玩家、等级组和来源的经验事件只在第一次计算倍率，有加成时取消原事件并累计经验，
+ * 下一tick按合计值计算一次加成后通过AkariLevel一次性发放，不足1点的经验保留到下一次发放。
+ * 发放失败时补发未加成的经验；玩家退出和插件禁用时立即发放，已取消的事件不会丢失经验。
+ * 只处理主线程触发的事件，所有状态都只在主线程访问
+ */
+final class ExpEventAggregator {
+    
+    private final ExpboostQwQ plugin;
+    private final BoosterManager boosterManager;
+    // 当前tick内累计的经验
+    private final Map<Key, Bucket> buckets = new HashMap<>();
+    // 尚未发放的不足1点的经验
+    private final Map<Key, Double> remainders = new HashMap<>();
+    // 是否已经安排了发放任务
+    private boolean flushScheduled = false;
+    // 是否正在发放合并后的经验，发放时触发的经验事件不再处理
+    private boolean delivering = false;
+    // 是否已经提示过AkariLevel不支持合并
+    private boolean unsupportedWarned = false;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     * @param boosterManager 加成管理器
+     */
+    ExpEventAggregator(ExpboostQwQ plugin, BoosterManager boosterManager) {
+        this.plugin = plugin;
+        this.boosterManager = boosterManager;
+    }
+    
+    /**
+     * 是否正在发放合并后的经验
+     * @return 正在发放时返回true，此时触发的经验事件已经加成过
+     */
+    boolean isDelivering() {
+        return delivering;
+    }
+    
+    /**
+     * 尝试合并一次经验获得
+     *
+     * @param event 经验变更事件
+     * @param player 玩家
+     * @param levelGroup 等级组
+     * @param source 经验来源
+     * @param expAmount 获得的经验
+     * @return 事件是否已由合并器处理，返回false时调用方应按逐次加成处理
+     */
+    boolean offer(PlayerExpChangeEvent event, Player player, String levelGroup, String source, long expAmount) {
+        if (!Bukkit.isPrimaryThread() || !plugin.isEnabled() || !isSupported()) {
+            return false;
+        }
+        // 已被其他插件取消的事件不会发放经验，也不能计入合并
+        if (event.isCancelled()) {
+            return true;
+        }
+        
+        Key key = new Key(player.getUniqueId(), levelGroup, source);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            // 同一tick内倍率不变，只在第一次计算
+            bucket = new Bucket(player, boosterManager.getEffectiveMultiplier(player, levelGroup, source));
+            buckets.put(key, bucket);
+            scheduleFlush();
+        }
+        PluginMetrics.recordExpEvent(source, bucket.multiplier > 1.0);
+        
+        // 没有加成效果时不修改事件
+        if (bucket.multiplier <= 1.0) {
+            return true;
+        }
+        
+        event.setCancelled(true);
+        bucket.exp += expAmount;
+        bucket.count++;
+        return true;
+    }
+    
+    /**
+     * 立即发放玩家本tick累计的经验并移除其小数经验，在玩家退出时调用
+     * 玩家退出后无法再为其发放经验，因此不能等到下一tick
+     *
+     * @param uuid 玩家UUID
+     */
+    void flushPlayer(UUID uuid) {
+        List<Map.Entry<Key, Bucket>> batch = new ArrayList<>();
+        Iterator<Map.Entry<Key, Bucket>> iterator = buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Bucket> entry = iterator.next();
+            if (entry.getKey().uuid.equals(uuid)) {
+                batch.add(entry);
+                iterator.remove();
+            }
+        }
+        deliver(batch);
+        remainders.keySet().removeIf(key -> key.uuid.equals(uuid));
+    }
+    
+    /**
+     * 立即发放所有玩家本tick累计的经验，在插件禁用时调用
+     * 插件禁用后已安排的发放任务不会再执行
+     */
+    void flushAll() {
+        flushScheduled = false;
+        deliver(takeBuckets());
+    }
+    
+    /**
+     * 检查AkariLevel是否支持直接增加经验，不支持时只提示一次
+     */
+    private boolean isSupported() {
+        if (LevelApiUtil.isAddPlayerExpSupported()) {
+            return true;
+        }
+        if (!unsupportedWarned) {
+            unsupportedWarned = true;
+            LogUtil.warn("当前版本的 AkariLevel 不支持直接增加玩家经验，经验事件合并已停用");
+        }
+        return false;
+    }
+    
+    /**
+     * 安排在下一tick发放本tick累计的经验
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+    }
+    
+    /**
+     * 按合计值计算加成并发放经验
+     */
+    private void flush() {
+        flushScheduled = false;
+        if (buckets.isEmpty()) {
+            return;
+        }
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            deliver(takeBuckets());
+        } finally {
+            profiler.stop(TickProfiler.Section.LISTENER, start);
+        }
+    }
+    
+    /**
+     * 取出本tick累计的经验，发放过程中产生的新事件计入下一tick
+     * @return 本tick的累计数据
+     */
+    private List<Map.Entry<Key, Bucket>> takeBuckets() {
+        List<Map.Entry<Key, Bucket>> batch = new ArrayList<>(buckets.entrySet());
+        buckets.clear();
+        return batch;
+    }
+    
+    /**
+     * 发放累计的经验
+     * @param batch 取出的累计数据
+     */
+    private void deliver(List<Map.Entry<Key, Bucket>> batch) {
+        for (Map.Entry<Key, Bucket> entry : batch) {
+            Key key = entry.getKey();
+            Bucket bucket = entry.getValue();
+            if (bucket.count == 0) {
+                continue;
+            }
+            
+            double boosted = bucket.exp * bucket.multiplier + remainders.getOrDefault(key, 0.0);
+            long amount = (long) Math.floor(boosted);
+            double remainder = boosted - amount;
+            if (amount <= 0) {
+                keepRemainder(key, remainder);
+                continue;
+            }
+            
+            // 原事件已被取消，发放失败时补发未加成的经验，小数经验保持不变
+            if (!grant(bucket.player, key, amount)) {
+                LogUtil.warn("合并的经验发放失败，改为补发玩家 " + bucket.player.getName() + " 未加成的 " + bucket.exp + " 点经验");
+                if (!grant(bucket.player, key, bucket.exp)) {
+                    LogUtil.error("补发玩家 " + bucket.player.getName() + " 的 " + bucket.exp + " 点经验失败，这些经验已丢失");
+                }
+                continue;
+            }
+            keepRemainder(key, remainder);
+            
+            if (LogUtil.isDebugEnabled()) {
+                LogUtil.debug("玩家 " + bucket.player.getName() + " 合并 " + bucket.count + " 次经验获得 " +
+                        bucket.exp + " → " + amount + " (×" + bucket.multiplier + ")");
+            }
+            
+            if (plugin.getSettings().isExpBoostMessageEnabled()) {
+                plugin.getExpBoostNotifier().record(bucket.player, (int) bucket.exp, (int) amount, bucket.multiplier);
+            }
+        }
+    }
+    
+    /**
+     * 通过AkariLevel发放经验，发放时触发的经验事件不再加成
+     * @return 是否成功
+     */
+    private boolean grant(Player player, Key key, long amount) {
+        delivering = true;
+        try {
+            return LevelApiUtil.addPlayerExp(player, key.levelGroup, amount, key.source);
+        } finally {
+            delivering = false;
+        }
+    }
+    
+    /**
+     * 保存不足1点的经验，留到下一次发放
+     */
+    private void keepRemainder(Key key, double remainder) {
+        if (remainder > 0) {
+            remainders.put(key, remainder);
+        } else {
+            remainders.remove(key);
+        }
+    }
+    
+    /**
+     * 合并的键：玩家、等级组和来源
+     */
+    private static final class Key {
+        private final UUID uuid;
+        private final String levelGroup;
+        private final String source;
+        
+        private Key(UUID uuid, String levelGroup, String source) {
+            this.uuid = uuid;
+            this.levelGroup = levelGroup;
+            this.source = source;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return uuid.equals(other.uuid)
+                    && Objects.equals(levelGroup, other.levelGroup)
+                    && Objects.equals(source, other.source);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(uuid, levelGroup, source);
+        }
+    }
+    
+    /**
+     * 一个键在当前tick内累计的经验
+     */
+    private static final class Bucket {
+        private final Player player;
+        private final double multiplier;  // 本tick使用的倍率
+        private long exp = 0;             // 累计的原始经验
+        private int count = 0;            // 合并的事件数量
+        
+        private Bucket(Player player, double multiplier) {
+            this.player = player;
+            this.multiplier = multiplier;
+        }
+    }
+}
@@ -5,13 +5,17 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.littlesheep.expboostQwQ.ExpboostQwQ;
 import org.littlesheep.expboostQwQ.data.BoosterManager;
 import org.littlesheep.expboostQwQ.utils.LogUtil;
+import org.littlesheep.expboostQwQ.utils.PluginMetrics;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
 
 /**
  * AkariLevel经验获取事件监听器
- * 用于在玩家获得经验时应用经验倍率加成
+ * 用于在玩家获得经验时应用经验倍率加成，
+ * 开启经验事件合并时交给合并器在下一tick统一加成
  */
 public class ExpGainListener implements Listener {
     
@@ -19,6 +23,8 @@ public class ExpGainListener implements Listener {
     private final ExpboostQwQ plugin;
     // 加成管理器引用
     private final BoosterManager boosterManager;
+    // 经验事件合并器
+    private final ExpEventAggregator aggregator;
     
     /**
      * 构造函数
@@ -27,6 +33,7 @@ public class ExpGainListener implements Listener {
     public ExpGainListener(ExpboostQwQ plugin) {
         this.plugin = plugin;
         this.boosterManager = plugin.getBoosterManager();
+        this.aggregator = new ExpEventAggregator(plugin, boosterManager);
     }
     
     /**
@@ -37,6 +44,26 @@ public class ExpGainListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL)
     public void onExpGain(PlayerExpChangeEvent event) {
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            handleExpGain(event);
+        } finally {
+            profiler.stop(TickProfiler.Section.LISTENER, start);
+        }
+    }
+    
+    /**
+     * 对一次经验获得应用加成
+     * 
+     * @param event 玩家经验变更事件
+     */
+    private void handleExpGain(PlayerExpChangeEvent event) {
+        // 合并器发放的经验已经加成过
+        if (aggregator.isDelivering()) {
+            return;
+        }
+        
         // 从事件中获取相关信息
         Player player = event.getPlayer();        // 获取玩家对象
         String levelGroup = event.getLevelGroup(); // 获取等级组名称
@@ -48,13 +75,22 @@ public class ExpGainListener implements Listener {
             return;
         }
         
-        // 调试日志
-        LogUtil.debug("玩家 " + player.getName() + " 在等级组 " + levelGroup + 
-                " 从来源 " + source + " 获得了 " + expAmount + " 点经验");
+        // 调试日志，关闭调试模式时不拼接字符串
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("玩家 " + player.getName() + " 在等级组 " + levelGroup + 
+                    " 从来源 " + source + " 获得了 " + expAmount + " 点经验");
+        }
+        
+        // 开启合并时，同一tick内的经验在下一tick按合计值统一加成
+        if (plugin.getSettings().isExpAggregationEnabled()
+                && aggregator.offer(event, player, levelGroup, source, expAmount)) {
+            return;
+        }
         
         // 检查玩家在此等级组和经验来源下是否有经验加成
         // 这会同时检查玩家个人加成、全服加成和默认倍率
         double multiplier = boosterManager.getEffectiveMultiplier(player, levelGroup, source);
+        PluginMetrics.recordExpEvent(source, multiplier > 1.0);
         
         // 如果倍率不大于1.0，说明没有加成效果，直接返回不处理
         if (multiplier <= 1.0) {
@@ -69,27 +105,32 @@ public class ExpGainListener implements Listener {
         event.setExpAmount(newExpAmount);
         
         // 记录日志
-        LogUtil.debug("玩家 " + player.getName() + " 经验已加成 " + expAmount + 
-                " → " + newExpAmount + " (×" + multiplier + ")");
+        if (LogUtil.isDebugEnabled()) {
+            LogUtil.debug("玩家 " + player.getName() + " 经验已加成 " + expAmount + 
+                    " → " + newExpAmount + " (×" + multiplier + ")");
+        }
         
         // 如果在配置中启用了经验加成消息提示，且没有开启全局静默模式
-        if (plugin.getConfig().getBoolean("settings.show_exp_boost_message", true) && 
-            !plugin.getConfig().getBoolean("settings.silent_mode", false)) {
-            
-            // 获取玩家语言
-            String langCode = plugin.getLanguageManager().getPlayerLanguage(player.getUniqueId().toString());
-            
-            // 从语言文件中获取消息模板
-            String message = plugin.getLanguageManager().getMessage(
-                    langCode,
-                    "messages.exp_boost.exp_boosted", 
-                    "§a[ExpboostQwQ] §f获得经验 §e%original% §f→ §e%boosted% §7(×%multiplier%)")
-                    .replace("%original%", String.valueOf(expAmount))     // 替换原始经验值
-                    .replace("%boosted%", String.valueOf(newExpAmount))   // 替换加成后经验值
-                    .replace("%multiplier%", String.format("%.1f", multiplier)); // 替换倍率，保留一位小数
-            
-            // 向玩家发送经验加成消息
-            player.sendMessage(message);
+        if (plugin.getSettings().isExpBoostMessageEnabled()) {
+            // 交给提示合并器，同一窗口内的多次加成只发送一条汇总提示
+            plugin.getExpBoostNotifier().record(player, expAmount, newExpAmount, multiplier);
         }
     }
+    
+    /**
+     * 玩家退出时立即发放合并中的经验，并丢弃尚未发放的小数经验
+     * 
+     * @param event 玩家退出事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        aggregator.flushPlayer(event.getPlayer().getUniqueId());
+    }
+    
+    /**
+     * 立即发放所有合并中的经验，插件禁用时调用
+     */
+    public void flushAggregatedExp() {
+        aggregator.flushAll();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,92 @@
+package org.littlesheep.expboostQwQ.listeners;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.data.BoosterManager;
+import org.littlesheep.expboostQwQ.utils.LanguageManager;
+
+/**
+ * 玩家数据加载监听器
+ * 玩家登录时加载其加成分片和语言设置，退出时保存并卸载，使内存占用只与在线玩家数量相关
+ */
+public class PlayerDataListener implements Listener {
+    
+    // 加成管理器引用
+    private final BoosterManager boosterManager;
+    // 语言管理器引用
+    private final LanguageManager languageManager;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     */
+    public PlayerDataListener(ExpboostQwQ plugin) {
+        this.boosterManager = plugin.getBoosterManager();
+        this.languageManager = plugin.getLanguageManager();
+    }
+    
+    /**
+     * 玩家登录前在异步线程预先加载加成数据和语言设置，避免在主线程读取文件
+     * 使用MONITOR优先级，只为确定允许登录的玩家加载
+     *
+     * @param event 异步登录事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        boosterManager.loadPlayer(event.getUniqueId());
+        languageManager.loadPlayerLanguage(event.getUniqueId());
+    }
+    
+    /**
+     * 登录被拒绝时卸载预先加载的数据
+     * 白名单、服务器已满或封禁插件在异步登录之后拒绝登录时，不会再触发加入和退出事件，
+     * 不卸载的话数据会一直留在内存中
+     *
+     * @param event 登录事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() == PlayerLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        // 同一UUID的玩家仍然在线时（例如重复登录被拒绝），数据仍在使用
+        if (Bukkit.getPlayer(event.getPlayer().getUniqueId()) != null) {
+            return;
+        }
+        boosterManager.unloadPlayer(event.getPlayer().getUniqueId());
+        languageManager.unloadPlayerLanguage(event.getPlayer().getUniqueId());
+    }
+    
+    /**
+     * 玩家加入时确认数据已加载
+     * 正常情况下数据已在登录前加载完成，这里只处理预加载被跳过的情况
+     *
+     * @param event 玩家加入事件
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        boosterManager.loadPlayer(event.getPlayer().getUniqueId());
+        languageManager.loadPlayerLanguage(event.getPlayer().getUniqueId());
+    }
+    
+    /**
+     * 玩家退出时保存并卸载加成数据和语言设置
+     *
+     * @param event 玩家退出事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        boosterManager.unloadPlayer(event.getPlayer().getUniqueId());
+        languageManager.unloadPlayerLanguage(event.getPlayer().getUniqueId());
+    }
+}
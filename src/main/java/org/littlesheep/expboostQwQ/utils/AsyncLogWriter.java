@@ -0,0 +1,511 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 异步日志写入器
+ * 调用线程只把日志放入有界的无锁队列，由后台线程持有一个打开的FileChannel批量写入，
+ * 日志文件的I/O不会占用服务器主线程。
+ * 日志按日期写入 yyyy-MM-dd.log，过了午夜自动切换到新文件；
+ * 可选按大小切分为 yyyy-MM-dd.N.log，并在后台将已关闭的文件压缩为 .gz
+ */
+public class AsyncLogWriter {
+    
+    /**
+     * 队列已满时的处理方式
+     */
+    public enum OverflowPolicy {
+        // 等待写入线程腾出空间
+        BLOCK,
+        // 直接丢弃新日志
+        DROP,
+        // 队列超过3/4后按比例采样，队列满后丢弃
+        SAMPLE;
+        
+        /**
+         * 从配置字符串解析处理方式
+         * @param name 配置值
+         * @return 处理方式，无法识别时返回DROP
+         */
+        public static OverflowPolicy fromString(String name) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+            return DROP;
+        }
+    }
+    
+    // 每批最多写入的条数
+    private static final int MAX_BATCH = 512;
+    // 写入失败后重试的最短和最长等待时间
+    private static final long MIN_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // 日志文件名（含按大小切分的序号），用于启动时查找需要压缩的旧文件
+    private static final Pattern LOG_FILE_NAME = Pattern.compile("\\d{4}-\\d{2}-\\d{2}(\\.\\d+)?\\.log");
+    
+    private final Logger logger;
+    private final File logsDir;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final long flushIntervalNanos;
+    // 单个文件的最大字节数，0表示只按日期切换
+    private final long maxFileSize;
+    // 压缩已关闭日志文件的后台线程，未启用压缩时为null
+    private final ExecutorService compressExecutor;
+    
+    // 等待写入的日志，size单独计数以实现有界队列
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // 因队列已满而丢弃的日志数量，写入线程会定期报告
+    private final AtomicLong dropped = new AtomicLong();
+    // 采样计数器
+    private final AtomicLong sampleCounter = new AtomicLong();
+    
+    // 只在写入线程中使用
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private final SimpleDateFormat fileNameFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private final StringBuilder batch = new StringBuilder(8192);
+    // 缓存中尚未写入文件的日志条数，写入失败时计入丢弃数量
+    private int batchEntries;
+    private FileChannel channel;
+    // 当前文件已写入的字节数
+    private long channelSize;
+    // 下一个午夜的时间戳，到达后切换到新的日期文件
+    private long nextDayStart;
+    
+    // 当前正在写入的文件
+    private volatile File currentFile;
+    
+    private final Thread thread;
+    private volatile boolean running = true;
+    // 写入失败、正在等待重试，此时队列已满也不阻塞提交日志的线程
+    private volatile boolean failing = false;
+    
+    /**
+     * 构造函数，创建后立即启动写入线程
+     * @param logger 插件日志记录器，用于报告写入器自身的错误
+     * @param logsDir 日志目录
+     * @param capacity 队列容量
+     * @param overflowPolicy 队列已满时的处理方式
+     * @param sampleRate 采样模式下每N条保留1条
+     * @param flushIntervalMillis 批量写入的最长间隔（毫秒）
+     * @param maxFileSize 单个文件的最大字节数，0表示只按日期切换
+     * @param compress 是否压缩已关闭的日志文件
+     */
+    public AsyncLogWriter(Logger logger, File logsDir, int capacity, OverflowPolicy overflowPolicy,
+                          int sampleRate, long flushIntervalMillis, long maxFileSize, boolean compress) {
+        this.logger = logger;
+        this.logsDir = logsDir;
+        this.capacity = Math.max(16, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(10L, flushIntervalMillis));
+        this.maxFileSize = Math.max(0L, maxFileSize);
+        this.compressExecutor = compress ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread compressThread = new Thread(runnable, "ExpboostQwQ-LogCompressor");
+            compressThread.setDaemon(true);
+            compressThread.setPriority(Thread.MIN_PRIORITY);
+            return compressThread;
+        }) : null;
+        this.currentFile = new File(logsDir, new SimpleDateFormat("yyyy-MM-dd").format(new Date()) + ".log");
+        
+        this.thread = new Thread(this::run, "ExpboostQwQ-LogWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * 提交一条日志，时间戳取提交时的时间
+     * @param message 日志内容（不含时间戳）
+     */
+    public void append(String message) {
+        if (!running) {
+            return;
+        }
+        
+        int current = size.get();
+        if (overflowPolicy == OverflowPolicy.SAMPLE && current >= capacity - capacity / 4
+                && sampleCounter.incrementAndGet() % sampleRate != 0) {
+            dropped.incrementAndGet();
+            return;
+        }
+        
+        if (!reserve()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        
+        queue.offer(new Entry(System.currentTimeMillis(), message));
+        if (current + 1 >= MAX_BATCH) {
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * 新提交的日志是否可能被写入
+     * 写入器已停止，或队列已满且不是BLOCK模式时，提交的日志一定会被丢弃
+     *
+     * @return 是否可能被写入
+     */
+    public boolean isAccepting() {
+        if (!running) {
+            return false;
+        }
+        return size.get() < capacity || (overflowPolicy == OverflowPolicy.BLOCK && !failing);
+    }
+    
+    /**
+     * 获取等待写入的日志数量
+     * @return 队列中的日志条数
+     */
+    public int getQueueSize() {
+        return size.get();
+    }
+    
+    /**
+     * 获取当前正在写入的日志文件
+     * @return 日志文件
+     */
+    public File getCurrentFile() {
+        return currentFile;
+    }
+    
+    /**
+     * 在队列中占用一个位置
+     * @return 是否成功占用，失败表示日志需要丢弃
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (current < capacity) {
+                if (size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            
+            // 队列已满，只有BLOCK模式等待写入线程；写入线程自身不能等待自己
+            if (overflowPolicy != OverflowPolicy.BLOCK || !running || failing || Thread.currentThread() == thread) {
+                return false;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+    
+    /**
+     * 停止写入线程，写完队列中剩余的日志后关闭文件，并等待正在进行的压缩完成
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(timeoutMillis);
+            if (compressExecutor != null) {
+                compressExecutor.shutdown();
+                compressExecutor.awaitTermination(Math.max(0L, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 写入线程主循环
+     */
+    private void run() {
+        if (compressExecutor != null) {
+            compressPreviousDays();
+        }
+        
+        // 写入失败（例如磁盘暂时已满或切分文件失败）时关闭文件，等待一段时间后重新打开，写入线程不会退出
+        long retryNanos = 0;
+        while (running) {
+            try {
+                if (drain()) {
+                    if (failing) {
+                        failing = false;
+                        logger.log(Level.INFO, "日志文件写入已恢复");
+                    }
+                    retryNanos = 0;
+                } else {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (IOException e) {
+                if (!failing) {
+                    logger.log(Level.SEVERE, "写入日志文件出错，稍后重试: " + e.getMessage(), e);
+                } else {
+                    logger.log(Level.WARNING, "写入日志文件仍然失败: " + e.getMessage());
+                }
+                discardBatch();
+                retryNanos = retryNanos == 0 ? MIN_RETRY_NANOS : Math.min(retryNanos * 2, MAX_RETRY_NANOS);
+                LockSupport.parkNanos(retryNanos);
+            }
+        }
+        
+        // 写完剩余日志并刷新到磁盘
+        try {
+            while (drain()) {
+                // 继续写入直到队列为空
+            }
+            if (channel != null) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "关闭前写入剩余日志时出错: " + e.getMessage(), e);
+        } finally {
+            closeChannel();
+        }
+    }
+    
+    /**
+     * 写入失败后丢弃未写入的缓存并关闭文件，下一批日志写入前会重新打开文件
+     */
+    private void discardBatch() {
+        failing = true;
+        dropped.addAndGet(batchEntries);
+        batchEntries = 0;
+        batch.setLength(0);
+        closeChannel();
+    }
+    
+    /**
+     * 取出一批日志并写入文件
+     * @return 是否写入了任何内容
+     * @throws IOException 写入失败
+     */
+    private boolean drain() throws IOException {
+        batch.setLength(0);
+        boolean wrote = false;
+        
+        long droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            long now = System.currentTimeMillis();
+            prepareFile(now);
+            batch.append(dateFormat.format(new Date(now))).append(" [WARN] 日志队列已满，丢弃了 ")
+                    .append(droppedCount).append(" 条日志\n");
+            wrote = true;
+        }
+        
+        int count = 0;
+        Entry entry;
+        // 只有写入线程取出日志，先打开文件再移出队列，打开失败时日志留在队列中等待重试
+        while (count < MAX_BATCH && (entry = queue.peek()) != null) {
+            prepareFile(entry.time);
+            queue.poll();
+            size.decrementAndGet();
+            batch.append(dateFormat.format(new Date(entry.time))).append(' ').append(entry.message).append('\n');
+            batchEntries++;
+            count++;
+            wrote = true;
+        }
+        
+        if (!wrote) {
+            return false;
+        }
+        
+        writeBatch();
+        if (maxFileSize > 0 && channelSize >= maxFileSize) {
+            rotateBySize();
+        }
+        return true;
+    }
+    
+    /**
+     * 确保当前文件对应日志的日期，跨过午夜时先把已缓存的内容写入旧文件再切换
+     * @param time 日志时间戳
+     * @throws IOException 打开文件失败
+     */
+    private void prepareFile(long time) throws IOException {
+        if (channel != null && time < nextDayStart) {
+            return;
+        }
+        writeBatch();
+        
+        File previous = channel != null ? currentFile : null;
+        closeChannel();
+        
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        File file = new File(logsDir, fileNameFormat.format(calendar.getTime()) + ".log");
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        nextDayStart = calendar.getTimeInMillis();
+        
+        openChannel(file);
+        if (previous != null && !previous.equals(file)) {
+            compress(previous);
+        }
+    }
+    
+    /**
+     * 当前文件超过大小上限时，将其重命名为 yyyy-MM-dd.N.log 并重新打开一个空文件
+     * @throws IOException 重新打开文件失败
+     */
+    private void rotateBySize() throws IOException {
+        File active = currentFile;
+        String baseName = active.getName().substring(0, active.getName().length() - 4);
+        closeChannel();
+        
+        // 找到第一个未使用的序号（包括已压缩的文件）
+        File segment;
+        int index = 1;
+        do {
+            segment = new File(logsDir, baseName + "." + index + ".log");
+            index++;
+        } while (segment.exists() || new File(segment.getPath() + ".gz").exists());
+        
+        try {
+            Files.move(active.toPath(), segment.toPath());
+            compress(segment);
+        } catch (IOException e) {
+            // 重命名失败时继续写入原文件
+            logger.log(Level.WARNING, "无法切分日志文件 " + active.getName() + ": " + e.getMessage());
+        }
+        openChannel(active);
+    }
+    
+    /**
+     * 把缓存的内容写入当前文件
+     * @throws IOException 写入失败
+     */
+    private void writeBatch() throws IOException {
+        if (batch.length() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        channelSize += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        batch.setLength(0);
+        batchEntries = 0;
+    }
+    
+    /**
+     * 以追加模式打开日志文件
+     * @param file 日志文件
+     * @throws IOException 打开失败
+     */
+    private void openChannel(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSize = channel.size();
+        currentFile = file;
+    }
+    
+    /**
+     * 关闭当前文件
+     */
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "关闭日志文件时出错: " + e.getMessage());
+        }
+        channel = null;
+    }
+    
+    /**
+     * 压缩插件未运行期间留下的、今天之前的未压缩日志文件
+     */
+    private void compressPreviousDays() {
+        String today = fileNameFormat.format(new Date());
+        File[] files = logsDir.listFiles((dir, name) -> LOG_FILE_NAME.matcher(name).matches()
+                && name.substring(0, 10).compareTo(today) < 0);
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            compress(file);
+        }
+    }
+    
+    /**
+     * 在后台线程中将已关闭的日志文件压缩为 .gz 并删除原文件，未启用压缩时不做任何事
+     * @param file 已关闭的日志文件
+     */
+    private void compress(File file) {
+        if (compressExecutor == null) {
+            return;
+        }
+        try {
+            compressExecutor.execute(() -> gzip(file));
+        } catch (RejectedExecutionException e) {
+            // 插件正在禁用，未压缩的文件会在下次启动时处理
+        }
+    }
+    
+    /**
+     * 将日志文件压缩为 .gz 并删除原文件
+     * @param file 日志文件
+     */
+    private void gzip(File file) {
+        File target = new File(file.getPath() + ".gz");
+        File temp = new File(file.getPath() + ".gz.tmp");
+        try {
+            try (InputStream in = Files.newInputStream(file.toPath());
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp.toPath()))) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(file.toPath());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "压缩日志文件 " + file.getName() + " 时出错: " + e.getMessage());
+            temp.delete();
+        }
+    }
+    
+    /**
+     * 队列中的一条日志
+     */
+    private static final class Entry {
+        private final long time;
+        private final String message;
+        
+        private Entry(long time, String message) {
+            this.time = time;
+            this.message = message;
+        }
+    }
+}
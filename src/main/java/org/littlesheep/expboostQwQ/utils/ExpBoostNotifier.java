@@ -0,0 +1,174 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 经验加成提示合并器
+ * 在一个时间窗口内累计每个玩家的原始经验和加成后经验，每个窗口只发送一条汇总提示，
+ * 避免玩家在刷怪塔等场景中每秒收到大量聊天消息
+ */
+public class ExpBoostNotifier {
+    
+    private final ExpboostQwQ plugin;
+    // 每个玩家在当前窗口内累计的经验
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    // 定时发送汇总提示的任务
+    private BukkitTask flushTask = null;
+    // 合并窗口长度（tick），0表示每次都立即提示
+    private volatile long windowTicks = 0;
+    // 是否在动作栏显示提示
+    private volatile boolean actionBar = false;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     */
+    public ExpBoostNotifier(ExpboostQwQ plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+    
+    /**
+     * 重新读取配置并重新安排定时任务
+     */
+    public void reload() {
+        cancel();
+        
+        windowTicks = plugin.getSettings().getExpBoostMessageWindowTicks();
+        actionBar = plugin.getSettings().isExpBoostMessageActionBar();
+        
+        if (windowTicks > 0) {
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, windowTicks, windowTicks);
+        } else {
+            // 不再合并时，立即发出之前累计的提示
+            flush();
+        }
+    }
+    
+    /**
+     * 记录一次经验加成
+     * 合并窗口为0时立即提示，否则累计到窗口结束时统一提示
+     *
+     * @param player 玩家
+     * @param originalExp 原始经验
+     * @param boostedExp 加成后的经验
+     * @param multiplier 使用的倍率
+     */
+    public void record(Player player, int originalExp, int boostedExp, double multiplier) {
+        if (windowTicks == 0) {
+            send(player, 1, originalExp, boostedExp, multiplier);
+            return;
+        }
+        pending.compute(player.getUniqueId(), (uuid, current) -> {
+            Pending result = current != null ? current : new Pending();
+            result.add(originalExp, boostedExp, multiplier);
+            return result;
+        });
+    }
+    
+    /**
+     * 取消定时任务，插件禁用时调用
+     * 尚未发出的提示会被丢弃
+     */
+    public void cancel() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+    }
+    
+    /**
+     * 发出所有累计的提示
+     */
+    private void flush() {
+        TickProfiler profiler = plugin.getTickProfiler();
+        long start = profiler.start();
+        try {
+            sendPending();
+        } finally {
+            profiler.stop(TickProfiler.Section.LISTENER, start);
+        }
+    }
+    
+    /**
+     * 逐个玩家发出累计的提示
+     */
+    private void sendPending() {
+        for (UUID uuid : pending.keySet()) {
+            Pending total = pending.remove(uuid);
+            if (total == null) {
+                continue;
+            }
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null || !player.isOnline()) {
+                continue;
+            }
+            // 多次获得经验时显示平均倍率
+            double multiplier = total.count == 1 ? total.multiplier : (double) total.boostedExp / total.originalExp;
+            send(player, total.count, total.originalExp, total.boostedExp, multiplier);
+        }
+    }
+    
+    /**
+     * 向玩家发送提示
+     * @param player 玩家
+     * @param count 合并的经验获得次数
+     * @param originalExp 原始经验总和
+     * @param boostedExp 加成后经验总和
+     * @param multiplier 显示的倍率
+     */
+    private void send(Player player, int count, long originalExp, long boostedExp, double multiplier) {
+        String langCode = plugin.getLanguageManager().getPlayerLanguage(player.getUniqueId());
+        String message;
+        if (count == 1) {
+            message = plugin.getLanguageManager().format(
+                    langCode,
+                    "messages.exp_boost.exp_boosted",
+                    "§a[ExpboostQwQ] §f获得经验 §e%original% §f→ §e%boosted% §7(×%multiplier%)",
+                    "%original%", originalExp,
+                    "%boosted%", boostedExp,
+                    "%multiplier%", MessageTemplate.decimal(multiplier, 1));
+        } else {
+            message = plugin.getLanguageManager().format(
+                    langCode,
+                    "messages.exp_boost.exp_boosted_summary",
+                    "§a[ExpboostQwQ] §f%count% 次共获得经验 §e%original% §f→ §e%boosted% §7(×%multiplier%)",
+                    "%count%", count,
+                    "%original%", originalExp,
+                    "%boosted%", boostedExp,
+                    "%multiplier%", MessageTemplate.decimal(multiplier, 1));
+        }
+        
+        if (actionBar) {
+            player.spigot().sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText(message));
+        } else {
+            player.sendMessage(message);
+        }
+    }
+    
+    /**
+     * 一个玩家在当前窗口内累计的经验
+     */
+    private static final class Pending {
+        private int count = 0;
+        private long originalExp = 0;
+        private long boostedExp = 0;
+        private double multiplier = 1.0;
+        
+        private void add(int original, int boosted, double multiplier) {
+            this.count++;
+            this.originalExp += original;
+            this.boostedExp += boosted;
+            this.multiplier = multiplier;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package org.littlesheep.expboostQwQ.utils;
 
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.littlesheep.expboostQwQ.ExpboostQwQ;
 
 import java.io.File;
@@ -11,6 +14,9 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 语言管理器类
@@ -19,6 +25,12 @@ import java.util.Map;
 public class LanguageManager {
     private final ExpboostQwQ plugin;
     private final Map<String, FileConfiguration> languages = new HashMap<>();
+    // 每种语言预编译的消息模板，键为消息路径
+    private volatile Map<String, Map<String, MessageTemplate>> templates = new HashMap<>();
+    // 语言文件中缺失的消息使用默认文本编译的模板，键为默认文本
+    private final Map<String, MessageTemplate> fallbackTemplates = new ConcurrentHashMap<>();
+    // 玩家语言偏好存储
+    private final PlayerLanguageStore playerLanguages;
     private String defaultLanguage = "zh_CN";
     private File langFolder;
     
@@ -37,9 +49,47 @@ public class LanguageManager {
         // 加载所有语言文件
         loadLanguages();
         
+        // 初始化玩家语言存储，迁移旧版本保存在配置文件中的玩家语言
+        this.playerLanguages = new PlayerLanguageStore(plugin, new File(plugin.getDataFolder(), "playerlang"));
+        migratePlayerLanguages();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            playerLanguages.load(player.getUniqueId());
+        }
+        
         LogUtil.info("已加载 " + languages.size() + " 个语言文件，默认语言: " + defaultLanguage);
     }
     
+    /**
+     * 将配置文件 player_languages 中的玩家语言迁移到玩家语言存储
+     * 已经在存储中设置过语言的玩家不会被覆盖，配置文件本身不会被修改
+     */
+    private void migratePlayerLanguages() {
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("player_languages");
+        if (section == null) {
+            return;
+        }
+        
+        int migrated = 0;
+        for (String key : section.getKeys(false)) {
+            String langCode = section.getString(key);
+            if (langCode == null || langCode.isEmpty()) {
+                continue;
+            }
+            try {
+                if (playerLanguages.setIfAbsent(UUID.fromString(key), langCode)) {
+                    migrated++;
+                }
+            } catch (IllegalArgumentException e) {
+                LogUtil.warn("跳过无效的玩家UUID: " + key);
+            }
+        }
+        
+        if (migrated > 0) {
+            playerLanguages.flush();
+            LogUtil.info("已将 " + migrated + " 个玩家的语言设置迁移到 playerlang 文件夹，可以删除配置文件中的 player_languages 部分");
+        }
+    }
+    
     /**
      * 初始化语言文件夹，保存默认语言文件
      */
@@ -87,12 +137,16 @@ public class LanguageManager {
             return;
         }
         
+        Map<String, Map<String, MessageTemplate>> compiled = new HashMap<>();
         for (File file : files) {
             String langCode = file.getName().replace(".yml", "");
             FileConfiguration langConfig = YamlConfiguration.loadConfiguration(file);
             languages.put(langCode, langConfig);
+            compiled.put(langCode, compileTemplates(langConfig));
             LogUtil.debug("加载语言文件: " + langCode);
         }
+        templates = compiled;
+        fallbackTemplates.clear();
         
         // 如果默认语言不存在，尝试使用第一个可用的语言
         if (!languages.containsKey(defaultLanguage) && !languages.isEmpty()) {
@@ -102,6 +156,58 @@ public class LanguageManager {
         }
     }
     
+    /**
+     * 预编译语言文件中的所有消息
+     * @param langConfig 语言配置
+     * @return 消息路径到模板的映射
+     */
+    private Map<String, MessageTemplate> compileTemplates(FileConfiguration langConfig) {
+        Map<String, MessageTemplate> result = new HashMap<>();
+        for (String path : langConfig.getKeys(true)) {
+            Object value = langConfig.get(path);
+            if (value != null && !(value instanceof ConfigurationSection)) {
+                result.put(path, MessageTemplate.compile(value.toString()));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 获取预编译的消息模板
+     * 依次查找指定语言和默认语言，都没有时使用默认消息
+     *
+     * @param langCode 语言代码
+     * @param path 消息路径
+     * @param defaultMessage 默认消息（如果未找到）
+     * @return 消息模板
+     */
+    public MessageTemplate getTemplate(String langCode, String path, String defaultMessage) {
+        Map<String, Map<String, MessageTemplate>> current = templates;
+        Map<String, MessageTemplate> langTemplates = current.get(langCode);
+        if (langTemplates == null) {
+            langTemplates = current.get(defaultLanguage);
+        }
+        MessageTemplate template = langTemplates != null ? langTemplates.get(path) : null;
+        if (template == null) {
+            template = fallbackTemplates.computeIfAbsent(defaultMessage, MessageTemplate::compile);
+        }
+        return template;
+    }
+    
+    /**
+     * 获取消息文本并替换占位符
+     * 只遍历一次预编译的模板，不会为每个占位符产生中间字符串
+     *
+     * @param langCode 语言代码
+     * @param path 消息路径
+     * @param defaultMessage 默认消息（如果未找到）
+     * @param replacements 替换参数，格式为 {"%key1%", value1, "%key2%", value2, ...}
+     * @return 替换后的消息文本
+     */
+    public String format(String langCode, String path, String defaultMessage, Object... replacements) {
+        return getTemplate(langCode, path, defaultMessage).render(replacements);
+    }
+    
     /**
      * 获取指定语言代码的语言配置
      * @param langCode 语言代码
@@ -119,8 +225,7 @@ public class LanguageManager {
      * @return 消息文本
      */
     public String getMessage(String langCode, String path, String defaultMessage) {
-        FileConfiguration langConfig = getLanguage(langCode);
-        return langConfig != null ? langConfig.getString(path, defaultMessage) : defaultMessage;
+        return getTemplate(langCode, path, defaultMessage).getText();
     }
     
     /**
@@ -141,15 +246,7 @@ public class LanguageManager {
      * @return 替换后的消息文本
      */
     public String getMessage(String path, String defaultMessage, String... replacements) {
-        String message = getMessage(path, defaultMessage);
-        
-        if (replacements != null && replacements.length >= 2) {
-            for (int i = 0; i < replacements.length - 1; i += 2) {
-                message = message.replace(replacements[i], replacements[i + 1]);
-            }
-        }
-        
-        return message;
+        return getTemplate(defaultLanguage, path, defaultMessage).render((Object[]) replacements);
     }
     
     /**
@@ -215,23 +312,74 @@ public class LanguageManager {
      * @param uuid 用户UUID
      * @return 语言代码
      */
+    public String getPlayerLanguage(UUID uuid) {
+        String langCode = playerLanguages.get(uuid);
+        return langCode != null ? langCode : defaultLanguage;
+    }
+    
+    /**
+     * 获取用户语言，如果用户没有设置则返回默认语言
+     * @param uuid 用户UUID字符串
+     * @return 语言代码
+     */
     public String getPlayerLanguage(String uuid) {
-        FileConfiguration playerData = plugin.getConfig();
-        return playerData.getString("player_languages." + uuid, defaultLanguage);
+        try {
+            return getPlayerLanguage(UUID.fromString(uuid));
+        } catch (IllegalArgumentException e) {
+            return defaultLanguage;
+        }
     }
     
     /**
      * 设置用户语言
+     * 立即生效，语言设置会在后台写入 playerlang 文件夹
+     *
      * @param uuid 用户UUID
      * @param langCode 语言代码
      */
-    public void setPlayerLanguage(String uuid, String langCode) {
+    public void setPlayerLanguage(UUID uuid, String langCode) {
         if (languages.containsKey(langCode)) {
-            plugin.getConfig().set("player_languages." + uuid, langCode);
-            plugin.saveConfigWithComments();
-            LogUtil.debug("已为用户 " + uuid + " 设置语言: " + langCode);
+            playerLanguages.set(uuid, langCode);
+            LogUtil.debug(() -> "已为用户 " + uuid + " 设置语言: " + langCode);
         } else {
             LogUtil.warn("无法为用户 " + uuid + " 设置语言 '" + langCode + "'，该语言不存在");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 设置用户语言
+     * @param uuid 用户UUID字符串
+     * @param langCode 语言代码
+     */
+    public void setPlayerLanguage(String uuid, String langCode) {
+        try {
+            setPlayerLanguage(UUID.fromString(uuid), langCode);
+        } catch (IllegalArgumentException e) {
+            LogUtil.warn("无法为用户 " + uuid + " 设置语言，UUID无效");
+        }
+    }
+    
+    /**
+     * 加载玩家的语言设置，在玩家登录时调用
+     * @param uuid 玩家UUID
+     */
+    public void loadPlayerLanguage(UUID uuid) {
+        playerLanguages.load(uuid);
+    }
+    
+    /**
+     * 卸载玩家的语言设置，在玩家退出时调用
+     * @param uuid 玩家UUID
+     */
+    public void unloadPlayerLanguage(UUID uuid) {
+        playerLanguages.unload(uuid);
+    }
+    
+    /**
+     * 写入所有未保存的玩家语言设置，插件禁用时调用
+     */
+    public void shutdown() {
+        long timeoutSeconds = plugin.getConfig().getLong("settings.storage.shutdown_timeout_seconds", 10L);
+        playerLanguages.shutdown(TimeUnit.SECONDS.toMillis(Math.max(1L, timeoutSeconds)));
+    }
+}
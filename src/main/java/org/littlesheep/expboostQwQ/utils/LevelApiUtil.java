@@ -5,8 +5,9 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.littlesheep.expboostQwQ.ExpboostQwQ;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
 
 /**
  * AkariLevel API工具类
@@ -15,22 +16,104 @@ import java.util.HashMap;
 public class LevelApiUtil {
     
     private static boolean isAkariLevelEnabled = false;
+    private static ExpboostQwQ plugin;
+    // AkariLevel增加玩家经验的接口，旧版本AkariLevel没有这个接口时为null
+    private static Method addPlayerExpMethod = null;
+    // 读取等级组失败后重试的最长间隔（毫秒）
+    private static final long RETRY_MILLIS = 30_000L;
+    // 缓存的等级组目录，重载插件或超过缓存时间后重新读取
+    private static volatile LevelGroupCatalog catalog = LevelGroupCatalog.EMPTY;
     
     /**
      * 初始化工具类
      * @param plugin 插件实例
      */
     public static void init(ExpboostQwQ plugin) {
+        LevelApiUtil.plugin = plugin;
         try {
             Class.forName("com.github.cpjinan.plugin.akarilevel.api.LevelAPI");
             isAkariLevelEnabled = true;
             LogUtil.info("成功连接到 AkariLevel API");
+            try {
+                addPlayerExpMethod = LevelAPI.class.getMethod("addPlayerExp",
+                        Player.class, String.class, long.class, String.class);
+            } catch (NoSuchMethodException e) {
+                addPlayerExpMethod = null;
+                LogUtil.debug("当前版本的 AkariLevel 不支持直接增加玩家经验");
+            }
         } catch (ClassNotFoundException e) {
             isAkariLevelEnabled = false;
             LogUtil.error("未找到 AkariLevel 插件，部分功能可能无法使用");
         }
+        refresh();
+    }
+    
+    /**
+     * 重新从AkariLevel读取等级组目录
+     * 在插件重载时调用，AkariLevel的等级组配置变更后也可以手动调用
+     */
+    public static void refresh() {
+        if (!isAkariLevelEnabled) {
+            catalog = LevelGroupCatalog.EMPTY;
+            return;
+        }
+        long ttlMillis = plugin.getSettings().getLevelGroupCacheMillis();
+        long now = System.currentTimeMillis();
+        try {
+            long expiresAt = ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+            catalog = new LevelGroupCatalog(
+                    LevelAPI.INSTANCE.getLevelGroupNames(), LevelAPI.INSTANCE.getLevelGroups(), expiresAt);
+            LogUtil.debug(() -> "已缓存 " + catalog.getNames().size() + " 个等级组");
+        } catch (Exception e) {
+            // AkariLevel可能还在加载，沿用上一次的等级组并在稍后重试，不能让失败结果一直生效
+            LogUtil.error("获取等级组列表失败，将在稍后重试", e);
+            long retryMillis = ttlMillis > 0 ? Math.min(ttlMillis, RETRY_MILLIS) : RETRY_MILLIS;
+            catalog = catalog.withExpiry(now + retryMillis);
+        }
+    }
+    
+    /**
+     * 获取等级组目录，超过缓存时间时重新读取
+     * @return 等级组目录
+     */
+    private static LevelGroupCatalog getCatalog() {
+        LevelGroupCatalog current = catalog;
+        if (current.isExpired(System.currentTimeMillis())) {
+            refresh();
+            current = catalog;
+        }
+        return current;
     }
 
+    /**
+     * 检查是否可以直接为玩家增加经验
+     * @return AkariLevel是否提供了增加经验的接口
+     */
+    public static boolean isAddPlayerExpSupported() {
+        return isAkariLevelEnabled && addPlayerExpMethod != null;
+    }
+    
+    /**
+     * 为玩家增加经验，会触发AkariLevel的经验变更事件和升级处理
+     * @param player 玩家对象
+     * @param levelGroup 等级组名称
+     * @param amount 经验数量
+     * @param source 经验来源
+     * @return 是否成功
+     */
+    public static boolean addPlayerExp(Player player, String levelGroup, long amount, String source) {
+        if (!isAddPlayerExpSupported()) {
+            return false;
+        }
+        try {
+            addPlayerExpMethod.invoke(LevelAPI.INSTANCE, player, levelGroup, amount, source);
+            return true;
+        } catch (Exception e) {
+            LogUtil.error("为玩家 " + player.getName() + " 增加经验失败", e);
+            return false;
+        }
+    }
+    
     /**
      * 检查等级组功能是否启用
      * @return 是否启用
@@ -51,7 +134,7 @@ public class LevelApiUtil {
         try {
             // 由于无法确定AkariLevel API的确切方法，默认返回第一个等级组
             // 实际项目中需要根据具体API调整
-            ArrayList<String> groups = getLevelGroupNames();
+            List<String> groups = getLevelGroupNames();
             if (!groups.isEmpty()) {
                 return groups.get(0);  // 临时解决方案
             }
@@ -64,18 +147,13 @@ public class LevelApiUtil {
 
     /**
      * 获取所有等级组名称列表
-     * @return 等级组名称列表
+     * @return 不可修改的等级组名称列表
      */
-    public static ArrayList<String> getLevelGroupNames() {
+    public static List<String> getLevelGroupNames() {
         if (!isAkariLevelEnabled) {
-            return new ArrayList<>();
-        }
-        try {
-            return LevelAPI.INSTANCE.getLevelGroupNames();
-        } catch (Exception e) {
-            LogUtil.error("获取等级组列表失败", e);
-            return new ArrayList<>();
+            return LevelGroupCatalog.EMPTY.getNames();
         }
+        return getCatalog().getNames();
     }
     
     /**
@@ -87,32 +165,24 @@ public class LevelApiUtil {
         if (!isAkariLevelEnabled) {
             return false;
         }
-        try {
-            return getLevelGroupNames().contains(levelGroup);
-        } catch (Exception e) {
-            LogUtil.error("检查等级组是否存在失败", e);
-            return false;
-        }
+        return getCatalog().contains(levelGroup);
     }
     
     /**
      * 获取所有等级组配置
-     * @return 等级组配置映射
+     * @return 不可修改的等级组配置映射
      */
-    public static HashMap<String, ConfigurationSection> getLevelGroups() {
+    public static Map<String, ConfigurationSection> getLevelGroups() {
         if (!isAkariLevelEnabled) {
-            return new HashMap<>();
-        }
-        try {
-            return LevelAPI.INSTANCE.getLevelGroups();
-        } catch (Exception e) {
-            LogUtil.error("获取等级组配置失败", e);
-            return new HashMap<>();
+            return LevelGroupCatalog.EMPTY.getGroups();
         }
+        return getCatalog().getGroups();
     }
     
     /**
      * 获取指定等级组升级到某等级所需经验
+     * 已知等级组的结果会缓存到下次刷新目录
+     *
      * @param levelGroup 等级组编辑名
      * @param level 等级
      * @return 升级所需经验
@@ -122,7 +192,11 @@ public class LevelApiUtil {
             return 0;
         }
         try {
-            return LevelAPI.INSTANCE.getLevelExp(levelGroup, level);
+            LevelGroupCatalog current = getCatalog();
+            if (!current.contains(levelGroup)) {
+                return LevelAPI.INSTANCE.getLevelExp(levelGroup, level);
+            }
+            return current.getLevelExp(levelGroup, level, lv -> LevelAPI.INSTANCE.getLevelExp(levelGroup, lv));
         } catch (Exception e) {
             LogUtil.error("获取等级经验失败", e);
             return 0;
@@ -131,6 +205,8 @@ public class LevelApiUtil {
     
     /**
      * 获取指定等级组某等级名称
+     * 已知等级组的结果会缓存到下次刷新目录
+     *
      * @param levelGroup 等级组编辑名
      * @param level 等级
      * @return 等级名称
@@ -140,7 +216,11 @@ public class LevelApiUtil {
             return "";
         }
         try {
-            return LevelAPI.INSTANCE.getLevelName(levelGroup, level);
+            LevelGroupCatalog current = getCatalog();
+            if (!current.contains(levelGroup)) {
+                return LevelAPI.INSTANCE.getLevelName(levelGroup, level);
+            }
+            return current.getLevelName(levelGroup, level, lv -> LevelAPI.INSTANCE.getLevelName(levelGroup, lv));
         } catch (Exception e) {
             LogUtil.error("获取等级名称失败", e);
             return "";
@@ -0,0 +1,118 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * 等级组目录
+ * 保存从AkariLevel读取的等级组名称和配置，创建后不再修改，
+ * 查询等级组是否存在只需一次哈希查找，列出等级组也不再需要复制列表。
+ * 每个等级组的升级经验和等级名称在第一次查询时从AkariLevel读取并缓存，随目录一起失效
+ */
+final class LevelGroupCatalog {
+    
+    /**
+     * 没有任何等级组的目录，在AkariLevel不可用或读取失败时使用
+     */
+    static final LevelGroupCatalog EMPTY = new LevelGroupCatalog(
+            new ArrayList<>(), new HashMap<>(), Long.MAX_VALUE);
+    
+    private final List<String> names;                          // 等级组名称，保持AkariLevel返回的顺序
+    private final Set<String> nameSet;                         // 等级组名称集合，用于快速判断是否存在
+    private final Map<String, ConfigurationSection> groups;    // 等级组配置
+    private final long expiresAt;                              // 目录过期时间，Long.MAX_VALUE表示只在重载时刷新
+    
+    // 每个等级组已查询过的升级经验和等级名称，键为等级组名称
+    private final Map<String, Map<Long, Long>> levelExp = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, String>> levelNames = new ConcurrentHashMap<>();
+    
+    /**
+     * 构造函数
+     * @param names 等级组名称列表
+     * @param groups 等级组配置
+     * @param expiresAt 目录过期时间（毫秒时间戳）
+     */
+    LevelGroupCatalog(List<String> names, Map<String, ConfigurationSection> groups, long expiresAt) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.nameSet = Collections.unmodifiableSet(new HashSet<>(names));
+        this.groups = Collections.unmodifiableMap(new HashMap<>(groups));
+        this.expiresAt = expiresAt;
+    }
+    
+    /**
+     * 获取所有等级组名称
+     * @return 不可修改的等级组名称列表
+     */
+    List<String> getNames() {
+        return names;
+    }
+    
+    /**
+     * 检查等级组是否存在
+     * @param levelGroup 等级组名称
+     * @return 是否存在
+     */
+    boolean contains(String levelGroup) {
+        return nameSet.contains(levelGroup);
+    }
+    
+    /**
+     * 获取所有等级组配置
+     * @return 不可修改的等级组配置映射
+     */
+    Map<String, ConfigurationSection> getGroups() {
+        return groups;
+    }
+    
+    /**
+     * 检查目录是否已经过期
+     * @param now 当前时间戳（毫秒）
+     * @return 是否过期
+     */
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+    
+    /**
+     * 创建等级组相同、过期时间不同的目录
+     * 读取失败时沿用上一次的等级组，并在较短的时间后重试
+     * @param expiresAt 新的过期时间（毫秒时间戳）
+     * @return 新的目录
+     */
+    LevelGroupCatalog withExpiry(long expiresAt) {
+        return new LevelGroupCatalog(names, groups, expiresAt);
+    }
+    
+    /**
+     * 获取等级组升级到某等级所需经验，第一次查询时通过loader读取
+     * @param levelGroup 等级组名称
+     * @param level 等级
+     * @param loader 从AkariLevel读取经验的函数
+     * @return 升级所需经验
+     */
+    long getLevelExp(String levelGroup, long level, LongFunction<Long> loader) {
+        return levelExp.computeIfAbsent(levelGroup, group -> new ConcurrentHashMap<>())
+                .computeIfAbsent(level, loader::apply);
+    }
+    
+    /**
+     * 获取等级组某等级的名称，第一次查询时通过loader读取
+     * @param levelGroup 等级组名称
+     * @param level 等级
+     * @param loader 从AkariLevel读取等级名称的函数
+     * @return 等级名称
+     */
+    String getLevelName(String levelGroup, long level, LongFunction<String> loader) {
+        return levelNames.computeIfAbsent(levelGroup, group -> new ConcurrentHashMap<>())
+                .computeIfAbsent(level, loader::apply);
+    }
+}
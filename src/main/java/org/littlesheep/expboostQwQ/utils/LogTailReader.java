@@ -0,0 +1,140 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 日志尾部读取工具类
+ * 从文件末尾向前按块查找换行符，只读取并解码最后N行对应的字节，
+ * 读取开销只与请求的行数有关，与日志文件大小无关
+ */
+public class LogTailReader {
+    
+    // 每次向前读取的字节数
+    private static final int BLOCK_SIZE = 8192;
+    
+    /**
+     * 读取日志文件的最后N行
+     * 日志文件由插件以UTF-8写入，无法解析的字节会被替换而不是导致读取失败
+     *
+     * @param file 日志文件，.gz 压缩文件只能顺序解压，会边读边保留最后N行
+     * @param lines 要读取的行数
+     * @return 按时间顺序排列的日志行
+     * @throws IOException 如果读取失败
+     */
+    public static List<String> readLastLines(File file, int lines) throws IOException {
+        if (lines <= 0) {
+            return new ArrayList<>();
+        }
+        if (file.getName().endsWith(".gz")) {
+            return readLastLinesCompressed(file, lines);
+        }
+        
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            
+            // 文件末尾的换行符不算作新的一行
+            if (end > 0 && readByte(channel, buffer, end - 1) == '\n') {
+                end--;
+            }
+            
+            // 从末尾向前查找第N个换行符，它之后的内容就是最后N行
+            long start = 0;
+            long position = end;
+            int found = 0;
+            search:
+            while (position > 0) {
+                int length = (int) Math.min(BLOCK_SIZE, position);
+                position -= length;
+                readFully(channel, buffer, position, length);
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n' && ++found == lines) {
+                        start = position + i + 1;
+                        break search;
+                    }
+                }
+            }
+            
+            // 只解码需要的字节
+            int size = (int) (end - start);
+            if (size == 0) {
+                return new ArrayList<>();
+            }
+            ByteBuffer content = ByteBuffer.allocate(size);
+            readFully(channel, content, start, size);
+            return splitLines(new String(content.array(), 0, size, StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * 顺序解压 .gz 日志文件，只保留最后N行
+     * @param file 压缩的日志文件
+     * @param lines 要读取的行数
+     * @return 按时间顺序排列的日志行
+     * @throws IOException 如果读取失败
+     */
+    private static List<String> readLastLinesCompressed(File file, int lines) throws IOException {
+        ArrayDeque<String> tail = new ArrayDeque<>(lines);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (tail.size() == lines) {
+                    tail.pollFirst();
+                }
+                tail.addLast(line);
+            }
+        }
+        return new ArrayList<>(tail);
+    }
+    
+    /**
+     * 读取指定位置的一个字节
+     */
+    private static byte readByte(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        readFully(channel, buffer, position, 1);
+        return buffer.get(0);
+    }
+    
+    /**
+     * 从指定位置读取指定长度的字节到缓冲区开头
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("日志文件在读取过程中被截断");
+            }
+        }
+    }
+    
+    /**
+     * 按换行符拆分文本，兼容Windows换行符
+     */
+    private static List<String> splitLines(String text) {
+        List<String> result = new ArrayList<>();
+        Collections.addAll(result, text.split("\n", -1));
+        for (int i = 0; i < result.size(); i++) {
+            String line = result.get(i);
+            if (line.endsWith("\r")) {
+                result.set(i, line.substring(0, line.length() - 1));
+            }
+        }
+        return result;
+    }
+}
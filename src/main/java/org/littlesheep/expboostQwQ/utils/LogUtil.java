@@ -10,9 +10,9 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.nio.charset.StandardCharsets;
 
 /**
  * 日志工具类
@@ -20,13 +20,14 @@ import java.nio.charset.StandardCharsets;
  */
 public class LogUtil {
     private static Logger logger;
-    private static boolean debugMode = false;
-    private static File logFile;
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static volatile boolean debugMode = false;
+    private static File logsDir;
     private static final SimpleDateFormat fileNameFormat = new SimpleDateFormat("yyyy-MM-dd");
     private static final int MAX_LOG_LINES = 1000; // 最大日志行数限制
     private static ExpboostQwQ plugin;
     private static BukkitRunnable cleanupTask;
+    // 异步日志写入器，日志文件的I/O全部在后台线程完成
+    private static AsyncLogWriter logWriter;
     
     /**
      * 初始化日志工具类
@@ -38,7 +39,7 @@ public class LogUtil {
         debugMode = plugin.getConfig().getBoolean("settings.debug_mode", false);
         
         // 创建日志文件夹
-        File logsDir = new File(plugin.getDataFolder(), "logs");
+        logsDir = new File(plugin.getDataFolder(), "logs");
         if (!logsDir.exists()) {
             if (logsDir.mkdirs()) {
                 debug("创建日志目录成功");
@@ -48,28 +49,25 @@ public class LogUtil {
             }
         }
         
-        // 创建今天的日志文件
-        String fileName = fileNameFormat.format(new Date()) + ".log";
-        logFile = new File(logsDir, fileName);
-        try {
-            if (!logFile.exists()) {
-                if (logFile.createNewFile()) {
-                    debug("创建日志文件成功: " + logFile.getAbsolutePath());
-                    
-                    // 写入初始内容确保文件不为空（使用UTF-8编码）
-                    try (java.io.OutputStreamWriter writer = new java.io.OutputStreamWriter(
-                            new java.io.FileOutputStream(logFile), StandardCharsets.UTF_8)) {
-                        writer.write(dateFormat.format(new Date()) + " [INFO] 日志系统初始化\n");
-                        writer.flush();
-                    }
-                } else {
-                    logger.severe("无法创建日志文件，尽管调用了createNewFile方法");
-                }
-            } else {
-                debug("使用现有日志文件: " + logFile.getAbsolutePath());
-            }
-        } catch (IOException e) {
-            logger.severe("无法创建日志文件: " + e.getMessage());
+        // 今天的日志文件
+        File logFile = new File(logsDir, fileNameFormat.format(new Date()) + ".log");
+        boolean newFile = !logFile.exists();
+        
+        // 启动异步日志写入器，文件不存在时由写入线程创建，过了午夜自动切换到新日期的文件
+        logWriter = new AsyncLogWriter(logger, logsDir,
+                plugin.getConfig().getInt("settings.logs.queue.capacity", 8192),
+                AsyncLogWriter.OverflowPolicy.fromString(plugin.getConfig().getString("settings.logs.queue.overflow_policy", "drop")),
+                plugin.getConfig().getInt("settings.logs.queue.sample_rate", 10),
+                plugin.getConfig().getLong("settings.logs.queue.flush_interval_ms", 200L),
+                plugin.getConfig().getLong("settings.logs.rotation.max_file_size_mb", 0L) * 1024L * 1024L,
+                plugin.getConfig().getBoolean("settings.logs.rotation.compress", false));
+        
+        if (newFile) {
+            // 写入初始内容确保文件不为空
+            writeToFile("[INFO] 日志系统初始化");
+            debug("创建日志文件成功: " + logFile.getAbsolutePath());
+        } else {
+            debug("使用现有日志文件: " + logFile.getAbsolutePath());
         }
         
         // 如果配置了启动时检查，执行一次清理
@@ -115,16 +113,16 @@ public class LogUtil {
             return;
         }
         
-        File logsDir = logFile.getParentFile();
         if (logsDir == null || !logsDir.exists()) {
             return;
         }
+        File logFile = getCurrentLogFile();
         
         // 获取保留天数
         int keepDays = plugin.getConfig().getInt("settings.logs.keep_days", 30);
         long cutoffTime = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(keepDays);
         
-        File[] logFiles = logsDir.listFiles((dir, name) -> name.endsWith(".log"));
+        File[] logFiles = logsDir.listFiles((dir, name) -> isLogFileName(name));
         if (logFiles == null) {
             return;
         }
@@ -132,7 +130,7 @@ public class LogUtil {
         int deletedCount = 0;
         for (File file : logFiles) {
             try {
-                // 从文件名解析日期（格式：yyyy-MM-dd.log）
+                // 从文件名解析日期（格式：yyyy-MM-dd.log，切分或压缩后为 yyyy-MM-dd.N.log / yyyy-MM-dd.log.gz）
                 String fileName = file.getName();
                 // 确保文件名长度足够再进行截取
                 if (fileName.length() < 10) {
@@ -162,6 +160,27 @@ public class LogUtil {
         }
     }
     
+    /**
+     * 判断文件名是否为日志文件（包括按大小切分和压缩后的文件）
+     * @param name 文件名
+     * @return 是否为日志文件
+     */
+    private static boolean isLogFileName(String name) {
+        return name.endsWith(".log") || name.endsWith(".log.gz");
+    }
+    
+    /**
+     * 获取当前正在写入的日志文件
+     * @return 日志文件
+     */
+    private static File getCurrentLogFile() {
+        AsyncLogWriter writer = logWriter;
+        if (writer != null) {
+            return writer.getCurrentFile();
+        }
+        return new File(logsDir, fileNameFormat.format(new Date()) + ".log");
+    }
+    
     /**
      * 停止自动清理任务
      */
@@ -172,6 +191,18 @@ public class LogUtil {
         }
     }
     
+    /**
+     * 关闭日志工具，在插件禁用时调用
+     * 停止清理任务，并等待写入线程写完队列中剩余的日志
+     */
+    public static void shutdown() {
+        stopCleanupTask();
+        if (logWriter != null) {
+            logWriter.shutdown(5000L);
+            logWriter = null;
+        }
+    }
+    
     /**
      * 输出信息级别日志
      * @param message 日志内容
@@ -220,6 +251,37 @@ public class LogUtil {
         }
     }
     
+    /**
+     * 输出调试级别日志，仅在调试模式下才会生成日志内容
+     * 适合需要拼接多个变量的日志，调试模式关闭时不会产生任何字符串
+     *
+     * @param message 生成日志内容的函数
+     */
+    public static void debug(Supplier<String> message) {
+        if (debugMode) {
+            debug(message.get());
+        }
+    }
+    
+    /**
+     * 是否开启了调试模式
+     * 经验事件等频繁执行的代码应先检查此方法再拼接调试日志，避免创建字符串和lambda对象
+     *
+     * @return 是否开启调试模式
+     */
+    public static boolean isDebugEnabled() {
+        return debugMode;
+    }
+    
+    /**
+     * 获取等待写入文件的日志数量
+     * @return 队列中的日志条数，日志写入器未启动时为0
+     */
+    public static int getQueueDepth() {
+        AsyncLogWriter writer = logWriter;
+        return writer != null ? writer.getQueueSize() : 0;
+    }
+    
     /**
      * 记录玩家经验加成相关日志
      * @param player 玩家对象
@@ -251,6 +313,9 @@ public class LogUtil {
      * @param levelGroup 等级组
      */
     public static void expGain(Player player, double baseExp, double finalExp, double multiplier, String source, String levelGroup) {
+        if (!isDetailLogEnabled()) {
+            return;
+        }
         String logMessage = String.format("[经验获得] 玩家: %s, UUID: %s, 基础经验: %.2f, 最终经验: %.2f, 倍率: %.2f, 来源: %s, 等级组: %s",
                 player.getName(), player.getUniqueId(), baseExp, finalExp, multiplier,
                 source.isEmpty() ? "默认" : source,
@@ -266,6 +331,9 @@ public class LogUtil {
      * @param success 是否执行成功
      */
     public static void commandExecution(String sender, String command, boolean success) {
+        if (!isDetailLogEnabled()) {
+            return;
+        }
         String logMessage = String.format("[命令执行] 执行者: %s, 命令: %s, 状态: %s",
                 sender, command, success ? "成功" : "失败");
         debug(logMessage);
@@ -281,6 +349,9 @@ public class LogUtil {
      * @param type 类型（个人/全服/等级组）
      */
     public static void multiplierChange(Player player, double oldMultiplier, double newMultiplier, long duration, String type) {
+        if (!isDetailLogEnabled()) {
+            return;
+        }
         String logMessage = String.format("[倍率变化] 类型: %s, %s, 旧倍率: %.2f, 新倍率: %.2f, 持续时间: %s",
                 type,
                 player != null ? "玩家: " + player.getName() : "全服",
@@ -291,58 +362,34 @@ public class LogUtil {
         writeToFile(logMessage);
     }
     
+    /**
+     * 详细日志是否会被输出
+     * 调试模式关闭，且日志写入器未启动或队列已满会丢弃新日志时，没有任何输出目标，调用方据此跳过 String.format
+     *
+     * @return 是否需要生成详细日志
+     */
+    private static boolean isDetailLogEnabled() {
+        if (debugMode) {
+            return true;
+        }
+        AsyncLogWriter writer = logWriter;
+        return writer != null && writer.isAccepting();
+    }
+    
     /**
      * 将日志写入文件
+     * 只把日志放入异步写入器的队列，不在调用线程上进行文件I/O
      * @param message 日志消息
      */
-    private static synchronized void writeToFile(String message) {
-        if (logFile == null) {
-            logger.severe("日志文件对象为空，无法写入日志");
-            return;
-        }
-        
-        if (!logFile.exists()) {
-            try {
-                if (!logFile.createNewFile()) {
-                    logger.severe("日志文件不存在且无法创建");
-                    return;
-                }
-                logger.info("日志文件不存在，已重新创建: " + logFile.getAbsolutePath());
-            } catch (IOException e) {
-                logger.severe("创建日志文件失败: " + e.getMessage());
-                return;
+    private static void writeToFile(String message) {
+        AsyncLogWriter writer = logWriter;
+        if (writer == null) {
+            if (logger != null) {
+                logger.severe("日志文件对象为空，无法写入日志");
             }
-        }
-        
-        if (!logFile.canWrite()) {
-            logger.severe("日志文件不可写入: " + logFile.getAbsolutePath());
             return;
         }
-        
-        // 使用 OutputStreamWriter 并指定编码，而不是 FileWriter
-        java.io.OutputStreamWriter writer = null;
-        try {
-            // 使用 UTF-8 编码写入文件
-            writer = new java.io.OutputStreamWriter(
-                new java.io.FileOutputStream(logFile, true), StandardCharsets.UTF_8);
-            
-            writer.write(dateFormat.format(new Date()) + " " + message + "\n");
-            writer.flush();
-            
-            if (debugMode) {
-                logger.fine("成功写入日志: " + message);
-            }
-        } catch (IOException e) {
-            logger.severe("写入日志文件失败: " + e.getMessage());
-        } finally {
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    logger.severe("关闭日志文件失败: " + e.getMessage());
-                }
-            }
-        }
+        writer.append(message);
     }
     
     /**
@@ -360,7 +407,8 @@ public class LogUtil {
      * @return 日志内容
      */
     public static String[] getRecentLogs(int lines) {
-        if (logFile == null || !logFile.exists()) {
+        File logFile = getCurrentLogFile();
+        if (!logFile.exists()) {
             return new String[]{"没有找到日志文件"};
         }
 
@@ -372,49 +420,13 @@ public class LogUtil {
         // 限制最大行数
         lines = Math.min(lines, MAX_LOG_LINES);
         
-        // 尝试不同的字符集读取文件
-        java.util.List<String> allLines = new java.util.ArrayList<>();
-        java.nio.charset.Charset[] charsets = {
-            StandardCharsets.UTF_8,
-            StandardCharsets.ISO_8859_1,
-            java.nio.charset.Charset.forName("GBK"),
-            java.nio.charset.Charset.forName("GB2312"),
-            java.nio.charset.Charset.defaultCharset()
-        };
-        
-        Exception lastException = null;
-        boolean readSuccess = false;
-        
-        for (java.nio.charset.Charset charset : charsets) {
-            try {
-                debug("尝试使用字符集 " + charset.name() + " 读取当前日志文件");
-                allLines = readLinesWithCharset(logFile, charset);
-                readSuccess = true;
-                debug("使用 " + charset.name() + " 成功读取当前日志文件");
-                break;
-            } catch (Exception e) {
-                debug("使用 " + charset.name() + " 读取当前日志文件失败: " + e.getMessage());
-                lastException = e;
-            }
-        }
-        
-        // 如果所有字符集都失败，尝试按字节读取文件
-        if (!readSuccess) {
-            try {
-                debug("尝试按字节读取当前日志文件");
-                allLines = readFileByBytes(logFile);
-                readSuccess = true;
-                debug("按字节读取当前日志文件成功");
-            } catch (Exception e) {
-                debug("按字节读取当前日志文件失败: " + e.getMessage());
-                lastException = e;
-            }
-        }
-        
-        // 如果仍然失败，返回错误信息
-        if (!readSuccess) {
-            error("无法以任何编码方式读取当前日志文件", lastException);
-            return new String[]{"无法读取日志文件: " + (lastException != null ? lastException.getMessage() : "未知错误")};
+        // 从文件末尾读取，当前文件可能刚按大小切分过，行数不够时继续读取当天较早的分段
+        java.util.List<String> allLines;
+        try {
+            allLines = readLogSegments(findLogSegments(logsDir, logFile.getName().substring(0, 10)), lines);
+        } catch (IOException e) {
+            error("读取当前日志文件时出错", e);
+            return new String[]{"无法读取日志文件: " + e.getMessage()};
         }
         
         // 如果文件为空
@@ -433,48 +445,74 @@ public class LogUtil {
     }
     
     /**
-     * 使用指定字符集读取文件的所有行
-     * @param file 要读取的文件
-     * @param charset 字符集
-     * @return 文件内容的行列表
-     * @throws IOException 如果读取失败
+     * 查找指定日期的所有日志分段，按从新到旧排序
+     * 当天正在写入（或已压缩）的 yyyy-MM-dd.log 最新，其次是序号从大到小的 yyyy-MM-dd.N.log
+     * @param logsDir 日志目录
+     * @param date 日期（yyyy-MM-dd格式）
+     * @return 日志分段列表
+     */
+    private static java.util.List<File> findLogSegments(File logsDir, String date) {
+        String prefix = date + ".";
+        File[] files = logsDir.listFiles((dir, name) -> name.startsWith(prefix) && isLogFileName(name));
+        if (files == null) {
+            return java.util.Collections.emptyList();
+        }
+        
+        java.util.List<File> segments = new java.util.ArrayList<>();
+        for (File file : files) {
+            // 压缩过程中原文件和压缩文件可能同时存在，只读取原文件
+            String name = file.getName();
+            if (name.endsWith(".gz") && new File(logsDir, name.substring(0, name.length() - 3)).exists()) {
+                continue;
+            }
+            segments.add(file);
+        }
+        segments.sort((a, b) -> Integer.compare(getSegmentIndex(b, prefix), getSegmentIndex(a, prefix)));
+        return segments;
+    }
+    
+    /**
+     * 获取日志分段的序号，没有序号的文件视为最新的分段
+     * @param file 日志文件
+     * @param prefix 日期前缀（yyyy-MM-dd.）
+     * @return 分段序号
      */
-    private static java.util.List<String> readLinesWithCharset(File file, java.nio.charset.Charset charset) throws IOException {
-        return java.nio.file.Files.readAllLines(file.toPath(), charset);
+    private static int getSegmentIndex(File file, String prefix) {
+        String name = file.getName();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        // 没有序号时为空，否则为 ".N"
+        String index = name.substring(prefix.length() - 1, name.length() - 4);
+        if (index.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.parseInt(index.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
     
     /**
-     * 按字节读取文件，跳过无法解析的字符
-     * @param file 要读取的文件
-     * @return 文件内容的行列表
+     * 从新到旧依次读取日志分段的末尾，直到读够指定行数
+     * @param segments 从新到旧排序的日志分段
+     * @param lines 需要的行数
+     * @return 按时间顺序排列的日志行
      * @throws IOException 如果读取失败
      */
-    private static java.util.List<String> readFileByBytes(File file) throws IOException {
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        StringBuilder currentLine = new StringBuilder();
-        
-        try (java.io.FileInputStream fis = new java.io.FileInputStream(file)) {
-            int b;
-            while ((b = fis.read()) != -1) {
-                // 如果是换行符，添加当前行并重置
-                if (b == '\n') {
-                    lines.add(currentLine.toString());
-                    currentLine = new StringBuilder();
-                } 
-                // 如果是可打印字符，添加到当前行
-                else if (b >= 32 && b < 127) {
-                    currentLine.append((char) b);
-                }
-                // 跳过其他无法打印的字符
-            }
-            
-            // 添加最后一行（如果有）
-            if (currentLine.length() > 0) {
-                lines.add(currentLine.toString());
+    private static java.util.List<String> readLogSegments(java.util.List<File> segments, int lines) throws IOException {
+        java.util.List<String> result = new java.util.ArrayList<>();
+        for (File segment : segments) {
+            debug("从文件末尾读取 " + segment.getName() + " 的最后 " + (lines - result.size()) + " 行");
+            java.util.List<String> segmentLines = LogTailReader.readLastLines(segment, lines - result.size());
+            segmentLines.addAll(result);
+            result = segmentLines;
+            if (result.size() >= lines) {
+                break;
             }
         }
-        
-        return lines;
+        return result;
     }
     
     /**
@@ -482,23 +520,9 @@ public class LogUtil {
      * @return 日志文件列表
      */
     public static File[] getLogFiles() {
-        if (logFile == null) {
-            File pluginDataFolder = plugin.getDataFolder();
-            if (!pluginDataFolder.exists()) {
-                return new File[0];
-            }
-            
-            File logsDir = new File(pluginDataFolder, "logs");
-            if (!logsDir.exists() || !logsDir.isDirectory()) {
-                return new File[0];
-            }
-            
-            return logsDir.listFiles((dir, name) -> name.endsWith(".log"));
-        }
-        
-        File logsDir = logFile.getParentFile();
-        if (logsDir != null && logsDir.exists() && logsDir.isDirectory()) {
-            File[] files = logsDir.listFiles((dir, name) -> name.endsWith(".log"));
+        File logsDir = LogUtil.logsDir != null ? LogUtil.logsDir : new File(plugin.getDataFolder(), "logs");
+        if (logsDir.exists() && logsDir.isDirectory()) {
+            File[] files = logsDir.listFiles((dir, name) -> isLogFileName(name));
             if (files == null) {
                 return new File[0];
             }
@@ -509,6 +533,7 @@ public class LogUtil {
     
     /**
      * 从指定日期的日志文件中读取日志
+     * 当天的日志按大小切分或压缩后，会依次读取最新的分段直到读够行数
      * @param date 日期（yyyy-MM-dd格式）
      * @param lines 要读取的行数
      * @return 日志内容
@@ -524,12 +549,7 @@ public class LogUtil {
         }
         
         // 获取日志目录
-        File logsDir;
-        if (logFile != null) {
-            logsDir = logFile.getParentFile();
-        } else {
-            logsDir = new File(plugin.getDataFolder(), "logs");
-        }
+        File logsDir = LogUtil.logsDir != null ? LogUtil.logsDir : new File(plugin.getDataFolder(), "logs");
         
         if (!logsDir.exists() || !logsDir.isDirectory()) {
             return new String[]{"日志目录不存在或不可访问"};
@@ -537,74 +557,31 @@ public class LogUtil {
         
         debug("正在查找日期为 " + date + " 的日志文件");
         
-        // 创建目标日志文件对象
-        File targetLog = new File(logsDir, date + ".log");
-        debug("目标日志文件路径: " + targetLog.getAbsolutePath());
-        
-        if (!targetLog.exists()) {
-            debug("目标日志文件不存在: " + targetLog.getAbsolutePath());
+        java.util.List<File> segments = findLogSegments(logsDir, date);
+        if (segments.isEmpty()) {
+            debug("目标日志文件不存在: " + new File(logsDir, date + ".log").getAbsolutePath());
             return new String[]{"找不到指定日期的日志文件: " + date};
         }
         
-        if (!targetLog.isFile()) {
-            debug("目标路径不是文件: " + targetLog.getAbsolutePath());
-            return new String[]{"指定路径不是有效的文件"};
-        }
-        
         // 确保日志文件可读
-        if (!targetLog.canRead()) {
-            debug("目标日志文件不可读: " + targetLog.getAbsolutePath());
-            return new String[]{"无法读取日志文件：权限不足"};
+        for (File segment : segments) {
+            if (!segment.isFile() || !segment.canRead()) {
+                debug("目标日志文件不可读: " + segment.getAbsolutePath());
+                return new String[]{"无法读取日志文件：权限不足"};
+            }
         }
         
-        debug("文件存在且可读，正在读取内容");
+        debug("找到 " + segments.size() + " 个日志分段，正在读取内容");
         
         // 限制最大行数
         lines = Math.min(lines, MAX_LOG_LINES);
         
-        // 尝试不同的字符集读取文件
-        java.util.List<String> allLines = new java.util.ArrayList<>();
-        java.nio.charset.Charset[] charsets = {
-            StandardCharsets.UTF_8,
-            StandardCharsets.ISO_8859_1,
-            java.nio.charset.Charset.forName("GBK"),
-            java.nio.charset.Charset.forName("GB2312"),
-            java.nio.charset.Charset.defaultCharset()
-        };
-        
-        Exception lastException = null;
-        boolean readSuccess = false;
-        
-        for (java.nio.charset.Charset charset : charsets) {
-            try {
-                debug("尝试使用字符集 " + charset.name() + " 读取文件");
-                allLines = readLinesWithCharset(targetLog, charset);
-                readSuccess = true;
-                debug("使用 " + charset.name() + " 成功读取文件");
-                break;
-            } catch (Exception e) {
-                debug("使用 " + charset.name() + " 读取文件失败: " + e.getMessage());
-                lastException = e;
-            }
-        }
-        
-        // 如果所有字符集都失败，尝试按字节读取文件
-        if (!readSuccess) {
-            try {
-                debug("尝试按字节读取文件");
-                allLines = readFileByBytes(targetLog);
-                readSuccess = true;
-                debug("按字节读取文件成功");
-            } catch (Exception e) {
-                debug("按字节读取文件失败: " + e.getMessage());
-                lastException = e;
-            }
-        }
-        
-        // 如果仍然失败，返回错误信息
-        if (!readSuccess || allLines.isEmpty()) {
-            error("无法以任何编码方式读取日志文件", lastException);
-            return new String[]{"无法读取日志文件: " + (lastException != null ? lastException.getMessage() : "未知错误")};
+        java.util.List<String> allLines;
+        try {
+            allLines = readLogSegments(segments, lines);
+        } catch (IOException e) {
+            error("读取日志文件时出错", e);
+            return new String[]{"无法读取日志文件: " + e.getMessage()};
         }
         
         debug("成功读取文件，共 " + allLines.size() + " 行");
@@ -629,15 +606,15 @@ public class LogUtil {
      * @return 删除的文件数量
      */
     public static int forceCleanup() {
-        File logsDir = logFile.getParentFile();
         if (logsDir == null || !logsDir.exists()) {
             return 0;
         }
+        File logFile = getCurrentLogFile();
         
         int keepDays = plugin.getConfig().getInt("settings.logs.keep_days", 30);
         long cutoffTime = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(keepDays);
         
-        File[] logFiles = logsDir.listFiles((dir, name) -> name.endsWith(".log"));
+        File[] logFiles = logsDir.listFiles((dir, name) -> isLogFileName(name));
         if (logFiles == null) {
             return 0;
         }
@@ -675,12 +652,12 @@ public class LogUtil {
      * @return 删除的文件数量
      */
     public static int cleanupLogs() {
-        if (logFile == null || !logFile.getParentFile().exists()) {
+        if (logsDir == null || !logsDir.exists()) {
             return 0;
         }
 
-        File logDir = logFile.getParentFile();
-        File[] logFiles = logDir.listFiles((dir, name) -> name.endsWith(".log"));
+        File logFile = getCurrentLogFile();
+        File[] logFiles = logsDir.listFiles((dir, name) -> isLogFileName(name));
         if (logFiles == null) {
             return 0;
         }
@@ -0,0 +1,175 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的消息模板
+ * 语言文件加载时把消息拆分为固定文本和 %name% 占位符，
+ * 渲染时只需一次遍历就能写入预先分配好容量的 StringBuilder，不再需要逐个 replace 产生中间字符串
+ */
+public final class MessageTemplate {
+    
+    // 每个占位符预留的字符数
+    private static final int SLOT_CAPACITY = 16;
+    // 小数位数对应的倍数
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L};
+    
+    private final String text;        // 原始消息文本
+    private final String[] literals;  // 固定文本，比占位符多一段
+    private final String[] slots;     // 占位符，包含两侧的 % 符号
+    private final int capacity;       // 渲染结果的预估长度
+    
+    private MessageTemplate(String text, String[] literals, String[] slots) {
+        this.text = text;
+        this.literals = literals;
+        this.slots = slots;
+        this.capacity = text.length() + slots.length * SLOT_CAPACITY;
+    }
+    
+    /**
+     * 编译消息模板
+     * 占位符的格式为 %name%，name 只能包含字母、数字和下划线，其余的 % 按普通文本处理
+     *
+     * @param text 消息文本
+     * @return 编译后的模板
+     */
+    public static MessageTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int literalStart = 0;
+        int index = text.indexOf('%');
+        while (index >= 0) {
+            int end = index + 1;
+            while (end < text.length() && isNameChar(text.charAt(end))) {
+                end++;
+            }
+            if (end < text.length() && end > index + 1 && text.charAt(end) == '%') {
+                literals.add(text.substring(literalStart, index));
+                slots.add(text.substring(index, end + 1).intern());
+                literalStart = end + 1;
+                index = text.indexOf('%', literalStart);
+            } else {
+                index = text.indexOf('%', index + 1);
+            }
+        }
+        literals.add(text.substring(literalStart));
+        return new MessageTemplate(text, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+    
+    /**
+     * 渲染消息
+     * 没有提供值的占位符保持原样
+     *
+     * @param replacements 替换参数，格式为 {"%key1%", value1, "%key2%", value2, ...}，
+     *                     值可以是字符串、整数、浮点数或 {@link #decimal(double, int)}
+     * @return 渲染后的消息
+     */
+    public String render(Object... replacements) {
+        if (slots.length == 0) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(capacity);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            appendValue(builder, slots[i], replacements);
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+    
+    /**
+     * 获取原始消息文本
+     *
+     * @return 未替换占位符的消息文本
+     */
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * 创建保留固定小数位数的数值，渲染时直接写入数字，不经过 String.format
+     * @param value 数值
+     * @param scale 小数位数，0到6
+     * @return 可以作为替换值的数值
+     */
+    public static Decimal decimal(double value, int scale) {
+        return new Decimal(value, scale);
+    }
+    
+    /**
+     * 写入占位符对应的值
+     */
+    private static void appendValue(StringBuilder builder, String slot, Object[] replacements) {
+        if (replacements != null) {
+            for (int i = 0; i + 1 < replacements.length; i += 2) {
+                Object key = replacements[i];
+                if (key == slot || slot.equals(key)) {
+                    Object value = replacements[i + 1];
+                    if (value instanceof Decimal) {
+                        ((Decimal) value).appendTo(builder);
+                    } else if (value instanceof Integer || value instanceof Long) {
+                        builder.append(((Number) value).longValue());
+                    } else {
+                        builder.append(value);
+                    }
+                    return;
+                }
+            }
+        }
+        builder.append(slot);
+    }
+    
+    /**
+     * 判断是否为占位符名称中允许的字符
+     */
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+    
+    /**
+     * 保留固定小数位数的数值
+     */
+    public static final class Decimal {
+        private final double value;
+        private final int scale;
+        
+        private Decimal(double value, int scale) {
+            this.value = value;
+            this.scale = Math.max(0, Math.min(scale, POWERS_OF_TEN.length - 1));
+        }
+        
+        /**
+         * 按四舍五入写入数值
+         * @param builder 目标 StringBuilder
+         */
+        private void appendTo(StringBuilder builder) {
+            if (Double.isNaN(value) || Double.isInfinite(value)
+                    || Math.abs(value) >= Long.MAX_VALUE / POWERS_OF_TEN[scale]) {
+                builder.append(value);
+                return;
+            }
+            long power = POWERS_OF_TEN[scale];
+            long scaled = Math.round(Math.abs(value) * power);
+            if (value < 0 && scaled != 0) {
+                builder.append('-');
+            }
+            builder.append(scaled / power);
+            if (scale > 0) {
+                builder.append('.');
+                long fraction = scaled % power;
+                for (long digit = power / 10; digit > 1 && fraction < digit; digit /= 10) {
+                    builder.append('0');
+                }
+                builder.append(fraction);
+            }
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            appendTo(builder);
+            return builder.toString();
+        }
+    }
+}
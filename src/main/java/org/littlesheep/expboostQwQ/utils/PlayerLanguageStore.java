@@ -0,0 +1,230 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import org.bukkit.Bukkit;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 玩家语言偏好存储
+ * 每个设置过语言的玩家在 playerlang 文件夹中有一个单独的文件，
+ * 在线玩家的语言保存在以UUID为键的内存缓存中，玩家登录时加载，退出时移出缓存。
+ * 修改只更新缓存，在一个保存窗口内合并后由后台线程批量写入
+ */
+public class PlayerLanguageStore {
+    
+    // 缓存中表示玩家没有设置语言的标记
+    private static final String NOT_SET = "";
+    
+    private final ExpboostQwQ plugin;
+    // 语言文件夹
+    private final File folder;
+    // 已加载玩家的语言，值为 NOT_SET 表示使用默认语言
+    private final Map<UUID, String> cache = new ConcurrentHashMap<>();
+    // 后台写入线程
+    private final ExecutorService executor;
+    // 是否已经安排了保存任务
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // 合并窗口（tick）
+    private final long saveDelayTicks;
+    
+    // 等待写入的修改，多次修改同一玩家只写入最后一次
+    private final Object pendingLock = new Object();
+    private Map<UUID, String> pending = new HashMap<>();
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     * @param folder 保存玩家语言文件的文件夹
+     */
+    public PlayerLanguageStore(ExpboostQwQ plugin, File folder) {
+        this.plugin = plugin;
+        this.folder = folder;
+        this.saveDelayTicks = Math.max(1L, plugin.getConfig().getLong("settings.storage.save_delay_ticks", 20L));
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ExpboostQwQ-LanguageStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!folder.exists() && !folder.mkdirs()) {
+            LogUtil.error("无法创建玩家语言文件夹: " + folder.getPath());
+        }
+    }
+    
+    /**
+     * 获取玩家的语言
+     * 玩家不在缓存中时（例如离线玩家）会直接读取文件，但不会放入缓存
+     *
+     * @param uuid 玩家UUID
+     * @return 语言代码，玩家没有设置时返回null
+     */
+    public String get(UUID uuid) {
+        String langCode = cache.get(uuid);
+        if (langCode == null) {
+            langCode = read(uuid);
+        }
+        return langCode.isEmpty() ? null : langCode;
+    }
+    
+    /**
+     * 设置玩家的语言，立即生效，稍后在后台写入文件
+     * @param uuid 玩家UUID
+     * @param langCode 语言代码
+     */
+    public void set(UUID uuid, String langCode) {
+        cache.computeIfPresent(uuid, (id, old) -> langCode);
+        synchronized (pendingLock) {
+            pending.put(uuid, langCode);
+        }
+        scheduleFlush();
+    }
+    
+    /**
+     * 只在玩家没有设置语言时设置，用于迁移旧数据
+     * @param uuid 玩家UUID
+     * @param langCode 语言代码
+     * @return 是否设置成功
+     */
+    public boolean setIfAbsent(UUID uuid, String langCode) {
+        if (get(uuid) != null) {
+            return false;
+        }
+        set(uuid, langCode);
+        return true;
+    }
+    
+    /**
+     * 加载玩家的语言到缓存，已加载时不做任何事
+     * 可以在异步线程调用（例如玩家登录前）
+     *
+     * @param uuid 玩家UUID
+     */
+    public void load(UUID uuid) {
+        if (!cache.containsKey(uuid)) {
+            cache.putIfAbsent(uuid, read(uuid));
+        }
+    }
+    
+    /**
+     * 将玩家移出缓存，在玩家退出时调用
+     * 尚未写入的修改仍会正常写入
+     *
+     * @param uuid 玩家UUID
+     */
+    public void unload(UUID uuid) {
+        cache.remove(uuid);
+    }
+    
+    /**
+     * 立即把所有修改交给后台线程写入
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        Map<UUID, String> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            executor.execute(() -> write(batch));
+        } catch (RejectedExecutionException e) {
+            // 写入线程已关闭，直接在当前线程写入
+            write(batch);
+        }
+    }
+    
+    /**
+     * 插件禁用时调用，写入所有修改并等待后台线程结束
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        flush();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LogUtil.warn("等待玩家语言写入完成超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        cache.clear();
+    }
+    
+    /**
+     * 安排一次保存，同一保存窗口内的多次修改只会写入一次
+     */
+    private void scheduleFlush() {
+        // 插件禁用过程中不能再注册任务，最终数据会由shutdown写入
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskLater(plugin, this::flush, saveDelayTicks);
+        }
+    }
+    
+    /**
+     * 读取玩家的语言，优先使用尚未写入的修改
+     * @param uuid 玩家UUID
+     * @return 语言代码，没有设置时返回 NOT_SET
+     */
+    private String read(UUID uuid) {
+        synchronized (pendingLock) {
+            String pendingLangCode = pending.get(uuid);
+            if (pendingLangCode != null) {
+                return pendingLangCode;
+            }
+        }
+        File file = getFile(uuid);
+        if (!file.exists()) {
+            return NOT_SET;
+        }
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            LogUtil.warn("读取玩家 " + uuid + " 的语言设置失败: " + e.getMessage());
+            return NOT_SET;
+        }
+    }
+    
+    /**
+     * 写入一批修改，先写入临时文件再替换，避免写入中途出错导致文件损坏
+     * @param batch 玩家UUID到语言代码的映射
+     */
+    private void write(Map<UUID, String> batch) {
+        for (Map.Entry<UUID, String> entry : batch.entrySet()) {
+            File file = getFile(entry.getKey());
+            File tempFile = new File(folder, file.getName() + ".tmp");
+            try {
+                Files.write(tempFile.toPath(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                LogUtil.error("保存玩家 " + entry.getKey() + " 的语言设置失败: " + e.getMessage(), e);
+            }
+        }
+        LogUtil.debug(() -> "已保存 " + batch.size() + " 个玩家的语言设置");
+    }
+    
+    /**
+     * 获取玩家的语言文件
+     */
+    private File getFile(UUID uuid) {
+        return new File(folder, uuid + ".txt");
+    }
+}
@@ -0,0 +1,304 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 插件运行指标
+ * 计数器和直方图都基于LongAdder，多个线程同时记录时不会竞争同一个变量，记录一次指标只需几次加法。
+ * 指标可以通过 /expbooster metrics 查看，也可以由 PrometheusExporter 导出为Prometheus文本格式
+ */
+public final class PluginMetrics {
+    
+    // 按来源统计时最多记录的来源数量，超过后计入 other，避免任意的来源名称无限增加
+    private static final int MAX_SOURCES = 64;
+    private static final String OTHER_SOURCE = "other";
+    
+    // 处理的经验事件和其中得到加成的事件，按来源统计
+    private static final Map<String, LongAdder> EXP_EVENTS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> BOOSTED_EXP_EVENTS = new ConcurrentHashMap<>();
+    // 倍率计算耗时，1微秒到5毫秒
+    private static final Histogram MULTIPLIER_RESOLVE = new Histogram(
+            1_000L, 5_000L, 10_000L, 50_000L, 100_000L, 500_000L, 1_000_000L, 5_000_000L);
+    // 加成数据写入存储的耗时，1毫秒到5秒
+    private static final Histogram STORAGE_FLUSH = new Histogram(
+            1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L, 100_000_000L, 500_000_000L,
+            1_000_000_000L, 5_000_000_000L);
+    // 写入存储文件的字节数
+    private static final LongAdder STORAGE_BYTES = new LongAdder();
+    // 占位符请求次数
+    private static final LongAdder PLACEHOLDER_REQUESTS = new LongAdder();
+    
+    private PluginMetrics() {
+    }
+    
+    /**
+     * 记录一次经验事件
+     * @param source 经验来源
+     * @param boosted 是否得到了加成
+     */
+    public static void recordExpEvent(String source, boolean boosted) {
+        counter(EXP_EVENTS, source).increment();
+        if (boosted) {
+            counter(BOOSTED_EXP_EVENTS, source).increment();
+        }
+    }
+    
+    /**
+     * 记录一次倍率计算的耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public static void recordMultiplierResolve(long nanos) {
+        MULTIPLIER_RESOLVE.record(nanos);
+    }
+    
+    /**
+     * 记录一次加成数据写入的耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public static void recordStorageFlush(long nanos) {
+        STORAGE_FLUSH.record(nanos);
+    }
+    
+    /**
+     * 记录写入存储文件的字节数
+     * YAML存储记录文件的实际大小，SQLite存储记录每批写入数据的估算大小
+     * @param bytes 字节数
+     */
+    public static void recordStorageBytes(long bytes) {
+        STORAGE_BYTES.add(bytes);
+    }
+    
+    /**
+     * 记录一次占位符请求
+     */
+    public static void recordPlaceholderRequest() {
+        PLACEHOLDER_REQUESTS.increment();
+    }
+    
+    /**
+     * 获取处理的经验事件总数
+     * @return 事件数量
+     */
+    public static long getExpEvents() {
+        return sum(EXP_EVENTS);
+    }
+    
+    /**
+     * 获取得到加成的经验事件总数
+     * @return 事件数量
+     */
+    public static long getBoostedExpEvents() {
+        return sum(BOOSTED_EXP_EVENTS);
+    }
+    
+    /**
+     * 获取每个来源的经验事件数量
+     * @return 按来源名称排序的 [处理数量, 加成数量]
+     */
+    public static Map<String, long[]> getExpEventsBySource() {
+        Map<String, long[]> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : EXP_EVENTS.entrySet()) {
+            LongAdder boosted = BOOSTED_EXP_EVENTS.get(entry.getKey());
+            result.put(entry.getKey(), new long[] {entry.getValue().sum(), boosted != null ? boosted.sum() : 0L});
+        }
+        return result;
+    }
+    
+    /**
+     * 获取倍率计算耗时
+     * @return 直方图
+     */
+    public static Histogram getMultiplierResolve() {
+        return MULTIPLIER_RESOLVE;
+    }
+    
+    /**
+     * 获取加成数据写入耗时
+     * @return 直方图
+     */
+    public static Histogram getStorageFlush() {
+        return STORAGE_FLUSH;
+    }
+    
+    /**
+     * 获取写入存储文件的字节数
+     * @return 字节数
+     */
+    public static long getStorageBytes() {
+        return STORAGE_BYTES.sum();
+    }
+    
+    /**
+     * 获取占位符请求次数
+     * @return 请求次数
+     */
+    public static long getPlaceholderRequests() {
+        return PLACEHOLDER_REQUESTS.sum();
+    }
+    
+    /**
+     * 导出为Prometheus文本格式
+     * @return 指标文本
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder(2048);
+        
+        writeHeader(out, "expboostqwq_exp_events_total", "counter", "Exp change events processed, by source");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(EXP_EVENTS).entrySet()) {
+            writeSourceSample(out, "expboostqwq_exp_events_total", entry.getKey(), entry.getValue().sum());
+        }
+        writeHeader(out, "expboostqwq_exp_events_boosted_total", "counter", "Exp change events boosted, by source");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(BOOSTED_EXP_EVENTS).entrySet()) {
+            writeSourceSample(out, "expboostqwq_exp_events_boosted_total", entry.getKey(), entry.getValue().sum());
+        }
+        
+        MULTIPLIER_RESOLVE.writePrometheus(out, "expboostqwq_multiplier_resolve_seconds",
+                "Time spent resolving the effective multiplier");
+        STORAGE_FLUSH.writePrometheus(out, "expboostqwq_storage_flush_seconds",
+                "Time spent writing booster data to storage");
+        
+        writeHeader(out, "expboostqwq_storage_written_bytes_total", "counter", "Bytes written to storage files");
+        out.append("expboostqwq_storage_written_bytes_total ").append(STORAGE_BYTES.sum()).append('\n');
+        writeHeader(out, "expboostqwq_log_queue_depth", "gauge", "Log entries waiting to be written");
+        out.append("expboostqwq_log_queue_depth ").append(LogUtil.getQueueDepth()).append('\n');
+        writeHeader(out, "expboostqwq_placeholder_requests_total", "counter", "PlaceholderAPI requests served");
+        out.append("expboostqwq_placeholder_requests_total ").append(PLACEHOLDER_REQUESTS.sum()).append('\n');
+        return out.toString();
+    }
+    
+    /**
+     * 获取来源对应的计数器，来源数量达到上限后新的来源计入 other
+     */
+    private static LongAdder counter(Map<String, LongAdder> counters, String source) {
+        String key = source == null || source.isEmpty() ? OTHER_SOURCE : source;
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= MAX_SOURCES) {
+                key = OTHER_SOURCE;
+            }
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        return counter;
+    }
+    
+    private static long sum(Map<String, LongAdder> counters) {
+        long total = 0;
+        for (LongAdder counter : counters.values()) {
+            total += counter.sum();
+        }
+        return total;
+    }
+    
+    private static void writeHeader(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void writeSourceSample(StringBuilder out, String name, String source, long value) {
+        out.append(name).append("{source=\"");
+        // 按Prometheus文本格式转义标签值
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append("\"} ").append(value).append('\n');
+    }
+    
+    /**
+     * 耗时直方图
+     * 每个区间一个LongAdder，导出时再累加为Prometheus要求的累计计数
+     */
+    public static final class Histogram {
+        
+        private final long[] bounds;         // 各区间的上限（纳秒）
+        private final LongAdder[] buckets;   // 各区间的数量，最后一个区间没有上限
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        
+        private Histogram(long... bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        private void record(long nanos) {
+            int index = 0;
+            while (index < bounds.length && nanos > bounds[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            sumNanos.add(nanos);
+            count.increment();
+        }
+        
+        /**
+         * 获取记录次数
+         * @return 次数
+         */
+        public long getCount() {
+            return count.sum();
+        }
+        
+        /**
+         * 获取平均耗时
+         * @return 平均耗时（纳秒），没有记录时为0
+         */
+        public long getMeanNanos() {
+            long total = count.sum();
+            return total == 0 ? 0 : sumNanos.sum() / total;
+        }
+        
+        /**
+         * 估算分位数，返回分位数所在区间的上限
+         * @param quantile 分位数，例如0.99
+         * @return 耗时上限（纳秒），落在最后一个区间时返回-1，没有记录时为0
+         */
+        public long getQuantileUpperBoundNanos(double quantile) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return bounds[i];
+                }
+            }
+            return -1;
+        }
+        
+        private void writePrometheus(StringBuilder out, String name, String help) {
+            writeHeader(out, name, "histogram", help);
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{le=\"")
+                        .append((double) bounds[i] / TimeUnit.SECONDS.toNanos(1))
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[bounds.length].sum();
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append((double) sumNanos.sum() / TimeUnit.SECONDS.toNanos(1)).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prometheus指标接口
+ * 使用JDK自带的HTTP服务器在本机地址提供 /metrics，内容由 PluginMetrics 生成。
+ * 只监听回环地址，需要从其他机器采集时请通过反向代理转发
+ */
+public class PrometheusExporter {
+    
+    private final HttpServer server;
+    // 处理请求的后台线程
+    private final ExecutorService executor;
+    
+    private PrometheusExporter(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+    
+    /**
+     * 启动指标接口
+     * @param port 监听端口
+     * @return 已启动的指标接口
+     * @throws IOException 端口被占用等原因导致无法监听
+     */
+    public static PrometheusExporter start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ExpboostQwQ-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/metrics", PrometheusExporter::handle);
+        server.setExecutor(executor);
+        server.start();
+        return new PrometheusExporter(server, executor);
+    }
+    
+    /**
+     * 停止指标接口，插件禁用时调用
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * 处理一次指标请求
+     */
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = PluginMetrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
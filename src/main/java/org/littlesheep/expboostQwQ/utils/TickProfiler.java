@@ -0,0 +1,329 @@
+package org.littlesheep.expboostQwQ.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+
+import java.util.Arrays;
+
+/**
+ * 每tick耗时统计
+ * 记录插件自身在主线程上每个tick消耗的时间（经验事件处理、过期处理、保存、命令和占位符），
+ * 保存最近若干tick的结果，用于判断服务器掉TPS时是否由本插件造成。
+ * 异步线程上的工作不占用tick时间，不计入统计；嵌套的计时只计入最外层的分类，避免重复计算
+ */
+public class TickProfiler {
+    
+    // 每tick的时间预算（纳秒）
+    public static final long TICK_BUDGET_NANOS = 50_000_000L;
+    // 未计时的开始时间，System.nanoTime可能返回负数，因此不能用-1
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    // 两次超时警告之间的最短间隔（毫秒）
+    private static final long WARN_INTERVAL_MILLIS = 60_000L;
+    
+    /**
+     * 统计的工作分类
+     */
+    public enum Section {
+        LISTENER("listener"),
+        EXPIRATION("expiration"),
+        SAVE("save"),
+        COMMAND("command"),
+        PLACEHOLDER("placeholder");
+        
+        private final String key;
+        
+        Section(String key) {
+            this.key = key;
+        }
+        
+        /**
+         * 获取分类名称，用于语言文件和日志
+         * @return 分类名称
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+    
+    private static final Section[] SECTIONS = Section.values();
+    
+    private final ExpboostQwQ plugin;
+    // 每tick结束时归档的任务
+    private BukkitTask tickTask = null;
+    // 是否启用统计
+    private volatile boolean enabled = false;
+    // 超过此耗时时发出警告（纳秒），0表示不警告
+    private long warnThresholdNanos = 0;
+    
+    // 以下字段只在主线程访问
+    // 最近各tick的总耗时和各分类的耗时，环形缓冲区
+    private long[] totals = new long[0];
+    private long[][] sectionTotals = new long[SECTIONS.length][0];
+    private int cursor = 0;      // 下一个写入位置
+    private int filled = 0;      // 已写入的tick数
+    // 当前tick各分类的累计耗时
+    private final long[] current = new long[SECTIONS.length];
+    private int depth = 0;       // 当前的计时嵌套层数
+    // 上次发出警告的时间，以及此后被忽略的超时次数
+    private long lastWarnAt = 0;
+    private int suppressedWarnings = 0;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件主类实例
+     */
+    public TickProfiler(ExpboostQwQ plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+    
+    /**
+     * 重新读取配置，窗口大小变化时清空已有的统计
+     */
+    public void reload() {
+        cancel();
+        
+        int window = Math.max(1, plugin.getSettings().getTickProfilerWindowTicks());
+        double warnPercent = plugin.getSettings().getTickProfilerWarnPercent();
+        warnThresholdNanos = warnPercent > 0 ? (long) (TICK_BUDGET_NANOS * warnPercent / 100.0) : 0L;
+        if (totals.length != window) {
+            totals = new long[window];
+            sectionTotals = new long[SECTIONS.length][window];
+            cursor = 0;
+            filled = 0;
+        }
+        
+        enabled = plugin.getSettings().isTickProfilerEnabled();
+        if (enabled) {
+            tickTask = Bukkit.getScheduler().runTaskTimer(plugin, this::endTick, 1L, 1L);
+        }
+    }
+    
+    /**
+     * 取消归档任务，插件禁用时调用
+     */
+    public void cancel() {
+        enabled = false;
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+    }
+    
+    /**
+     * 开始计时
+     * 未启用或不在主线程时不计时，调用方仍应在finally中调用 {@link #stop(Section, long)}
+     *
+     * @return 开始时间，传给 stop
+     */
+    public long start() {
+        if (!enabled || !Bukkit.isPrimaryThread()) {
+            return NOT_TIMED;
+        }
+        depth++;
+        return System.nanoTime();
+    }
+    
+    /**
+     * 结束计时并计入当前tick
+     * @param section 工作分类
+     * @param startNanos start 返回的开始时间
+     */
+    public void stop(Section section, long startNanos) {
+        if (startNanos == NOT_TIMED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        // 嵌套的计时已经包含在外层中
+        if (--depth == 0) {
+            current[section.ordinal()] += elapsed;
+        }
+    }
+    
+    /**
+     * 归档当前tick的耗时，由每tick执行一次的任务调用
+     * 本任务之后同一tick内的工作计入下一个tick
+     */
+    private void endTick() {
+        long total = 0;
+        for (int i = 0; i < SECTIONS.length; i++) {
+            long nanos = current[i];
+            sectionTotals[i][cursor] = nanos;
+            total += nanos;
+        }
+        totals[cursor] = total;
+        cursor = (cursor + 1) % totals.length;
+        if (filled < totals.length) {
+            filled++;
+        }
+        
+        if (warnThresholdNanos > 0 && total > warnThresholdNanos) {
+            warn(total);
+        }
+        Arrays.fill(current, 0L);
+    }
+    
+    /**
+     * 发出超时警告，每分钟最多一次，期间被忽略的次数附在下一次警告中
+     * @param total 本tick的总耗时（纳秒）
+     */
+    private void warn(long total) {
+        long now = System.currentTimeMillis();
+        if (now - lastWarnAt < WARN_INTERVAL_MILLIS) {
+            suppressedWarnings++;
+            return;
+        }
+        lastWarnAt = now;
+        
+        StringBuilder message = new StringBuilder(128);
+        message.append("插件在一个tick内耗时 ").append(formatMillis(total)).append("ms，占tick预算的 ")
+                .append(formatPercent(total)).append("% (");
+        for (int i = 0; i < SECTIONS.length; i++) {
+            if (i > 0) {
+                message.append(", ");
+            }
+            message.append(SECTIONS[i].getKey()).append('=').append(formatMillis(current[i])).append("ms");
+        }
+        message.append(')');
+        if (suppressedWarnings > 0) {
+            message.append("，此前还有 ").append(suppressedWarnings).append(" 次超时未提示");
+            suppressedWarnings = 0;
+        }
+        LogUtil.warn(message.toString());
+    }
+    
+    /**
+     * 是否启用了统计
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 生成最近若干tick的统计报告，只能在主线程调用
+     * @return 统计报告
+     */
+    public Report report() {
+        int count = filled;
+        long[] sorted = new long[count];
+        // 缓冲区未写满时有效数据在开头，写满后全部有效，顺序不影响统计
+        System.arraycopy(totals, 0, sorted, 0, count);
+        Arrays.sort(sorted);
+        
+        long[] sectionMean = new long[SECTIONS.length];
+        long[] sectionMax = new long[SECTIONS.length];
+        for (int i = 0; i < SECTIONS.length; i++) {
+            long sum = 0;
+            long max = 0;
+            for (int j = 0; j < count; j++) {
+                long nanos = sectionTotals[i][j];
+                sum += nanos;
+                max = Math.max(max, nanos);
+            }
+            sectionMean[i] = count == 0 ? 0 : sum / count;
+            sectionMax[i] = max;
+        }
+        return new Report(count, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                count == 0 ? 0 : sorted[count - 1], sectionMean, sectionMax);
+    }
+    
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * quantile) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+    
+    /**
+     * 将纳秒格式化为保留两位小数的毫秒
+     * @param nanos 耗时（纳秒）
+     * @return 毫秒数
+     */
+    public static MessageTemplate.Decimal formatMillis(long nanos) {
+        return MessageTemplate.decimal(nanos / 1_000_000.0, 2);
+    }
+    
+    /**
+     * 将纳秒格式化为占tick预算的百分比
+     * @param nanos 耗时（纳秒）
+     * @return 百分比
+     */
+    public static MessageTemplate.Decimal formatPercent(long nanos) {
+        return MessageTemplate.decimal(nanos * 100.0 / TICK_BUDGET_NANOS, 2);
+    }
+    
+    /**
+     * 统计报告
+     */
+    public static final class Report {
+        
+        private final int ticks;            // 统计的tick数
+        private final long p50Nanos;        // 每tick总耗时的中位数
+        private final long p99Nanos;        // 每tick总耗时的P99
+        private final long maxNanos;        // 每tick总耗时的最大值
+        private final long[] sectionMean;   // 各分类的平均耗时
+        private final long[] sectionMax;    // 各分类的最大耗时
+        
+        private Report(int ticks, long p50Nanos, long p99Nanos, long maxNanos, long[] sectionMean, long[] sectionMax) {
+            this.ticks = ticks;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.sectionMean = sectionMean;
+            this.sectionMax = sectionMax;
+        }
+        
+        /**
+         * 获取统计的tick数
+         * @return tick数
+         */
+        public int getTicks() {
+            return ticks;
+        }
+        
+        /**
+         * 获取每tick总耗时的中位数
+         * @return 耗时（纳秒）
+         */
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+        
+        /**
+         * 获取每tick总耗时的P99
+         * @return 耗时（纳秒）
+         */
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+        
+        /**
+         * 获取单个tick内的最大总耗时
+         * @return 耗时（纳秒）
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+        
+        /**
+         * 获取分类的平均每tick耗时
+         * @param section 工作分类
+         * @return 耗时（纳秒）
+         */
+        public long getSectionMeanNanos(Section section) {
+            return sectionMean[section.ordinal()];
+        }
+        
+        /**
+         * 获取分类在单个tick内的最大耗时
+         * @param section 工作分类
+         * @return 耗时（纳秒）
+         */
+        public long getSectionMaxNanos(Section section) {
+            return sectionMax[section.ordinal()];
+        }
+    }
+}
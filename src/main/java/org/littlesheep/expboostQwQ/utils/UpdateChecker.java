@@ -51,11 +51,11 @@ public class UpdateChecker {
                 
                 int statusCode = connection.getResponseCode();
                 if (statusCode != 200) {
-                    String errorMsg = plugin.getLanguageManager().getMessage(
+                    String errorMsg = plugin.getLanguageManager().format(
                             plugin.getLanguageManager().getDefaultLanguage(),
                             "messages.command.update_check_error",
-                            "§c[ExpboostQwQ] 检查更新时发生错误: %error%")
-                            .replace("%error%", "状态码: " + statusCode);
+                            "§c[ExpboostQwQ] 检查更新时发生错误: %error%",
+                            "%error%", "状态码: " + statusCode);
                     LogUtil.error(errorMsg);
                     return;
                 }
@@ -76,12 +76,12 @@ public class UpdateChecker {
                     if (!currentVersion.equals(latestVersion)) {
                         updateAvailable = true;
                         
-                        String updateAvailableMsg = plugin.getLanguageManager().getMessage(
+                        String updateAvailableMsg = plugin.getLanguageManager().format(
                                 plugin.getLanguageManager().getDefaultLanguage(),
                                 "messages.command.update_available",
-                                "§b[ExpboostQwQ] §f检测到新版本: §a%latest_version% §f(当前版本: §c%current_version%§f)")
-                                .replace("%latest_version%", latestVersion)
-                                .replace("%current_version%", currentVersion);
+                                "§b[ExpboostQwQ] §f检测到新版本: §a%latest_version% §f(当前版本: §c%current_version%§f)",
+                                "%latest_version%", latestVersion,
+                                "%current_version%", currentVersion);
                         
                         LogUtil.info(updateAvailableMsg);
                         
@@ -96,14 +96,14 @@ public class UpdateChecker {
                         Bukkit.getOnlinePlayers().stream()
                                 .filter(player -> player.hasPermission("expboostqwq.admin"))
                                 .forEach(player -> {
-                                    String langCode = plugin.getLanguageManager().getPlayerLanguage(player.getUniqueId().toString());
+                                    String langCode = plugin.getLanguageManager().getPlayerLanguage(player.getUniqueId());
                                     
-                                    String playerUpdateMsg = plugin.getLanguageManager().getMessage(
+                                    String playerUpdateMsg = plugin.getLanguageManager().format(
                                             langCode,
                                             "messages.command.update_available",
-                                            "§b[ExpboostQwQ] §f检测到新版本: §a%latest_version% §f(当前版本: §c%current_version%§f)")
-                                            .replace("%latest_version%", latestVersion)
-                                            .replace("%current_version%", currentVersion);
+                                            "§b[ExpboostQwQ] §f检测到新版本: §a%latest_version% §f(当前版本: §c%current_version%§f)",
+                                            "%latest_version%", latestVersion,
+                                            "%current_version%", currentVersion);
                                     
                                     player.sendMessage(playerUpdateMsg);
                                     
@@ -115,21 +115,21 @@ public class UpdateChecker {
                                     player.sendMessage(playerDownloadMsg);
                                 });
                     } else {
-                        String noUpdateMsg = plugin.getLanguageManager().getMessage(
+                        String noUpdateMsg = plugin.getLanguageManager().format(
                                 plugin.getLanguageManager().getDefaultLanguage(),
                                 "messages.command.no_update_available",
-                                "§b[ExpboostQwQ] §f你正在使用最新版本 (v%current_version%)")
-                                .replace("%current_version%", currentVersion);
+                                "§b[ExpboostQwQ] §f你正在使用最新版本 (v%current_version%)",
+                                "%current_version%", currentVersion);
                         
                         LogUtil.info(noUpdateMsg);
                     }
                 }
             } catch (Exception e) {
-                String errorMsg = plugin.getLanguageManager().getMessage(
+                String errorMsg = plugin.getLanguageManager().format(
                         plugin.getLanguageManager().getDefaultLanguage(),
                         "messages.command.update_check_error",
-                        "§c[ExpboostQwQ] 检查更新时发生错误: %error%")
-                        .replace("%error%", e.getMessage());
+                        "§c[ExpboostQwQ] 检查更新时发生错误: %error%",
+                        "%error%", e.getMessage());
                 
                 LogUtil.error(errorMsg, e);
             }
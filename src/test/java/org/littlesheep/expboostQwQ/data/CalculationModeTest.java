@@ -0,0 +1,84 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 加成计算方式的测试
+ * 包括三种倍率的合并，以及玩家多个加成按各自方式合并的结果
+ */
+class CalculationModeTest {
+    
+    private static final double DELTA = 1e-9;
+    private static final long START = 1_700_000_000_000L;
+    
+    private BoosterClock.ManualClock clock;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new BoosterClock.ManualClock(START);
+        BoosterClock.install(clock);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        BoosterClock.install(null);
+    }
+    
+    @Test
+    void multiplyCombinesByProduct() {
+        assertEquals(1.5 * 2.0 * 3.0, CalculationMode.MULTIPLY.combine(1.5, 2.0, 3.0), DELTA);
+        assertEquals(1.0, CalculationMode.MULTIPLY.combine(1.0, 1.0, 1.0), DELTA);
+    }
+    
+    @Test
+    void addCombinesBonusesOnTopOfBase() {
+        // 1.0 + 0.5 + 1.0 + 2.0
+        assertEquals(4.5, CalculationMode.ADD.combine(1.5, 2.0, 3.0), DELTA);
+        assertEquals(1.0, CalculationMode.ADD.combine(1.0, 1.0, 1.0), DELTA);
+    }
+    
+    @Test
+    void highestPicksLargestButNeverBelowBase() {
+        assertEquals(3.0, CalculationMode.HIGHEST.combine(1.5, 3.0, 2.0), DELTA);
+        assertEquals(2.5, CalculationMode.HIGHEST.combine(2.5, 1.0, 1.0), DELTA);
+        assertEquals(1.0, CalculationMode.HIGHEST.combine(0.5, 0.5, 0.5), DELTA);
+    }
+    
+    @Test
+    void resolvePlayerUsesModeSpecificAggregation() {
+        MultiplePlayerBoosters boosters = new MultiplePlayerBoosters(UUID.randomUUID());
+        boosters.addBooster(new PlayerBooster(2.0, -1L, "", ""));
+        boosters.addBooster(new PlayerBooster(1.5, START + 60_000L, "", ""));
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        
+        assertEquals(3.0, CalculationMode.MULTIPLY.resolvePlayer(snapshot, BoosterSymbols.ANY, BoosterSymbols.ANY), DELTA);
+        assertEquals(2.5, CalculationMode.ADD.resolvePlayer(snapshot, BoosterSymbols.ANY, BoosterSymbols.ANY), DELTA);
+        assertEquals(2.0, CalculationMode.HIGHEST.resolvePlayer(snapshot, BoosterSymbols.ANY, BoosterSymbols.ANY), DELTA);
+    }
+    
+    @Test
+    void expiredBoosterNoLongerCounts() {
+        MultiplePlayerBoosters boosters = new MultiplePlayerBoosters(UUID.randomUUID());
+        boosters.addBooster(new PlayerBooster(2.0, -1L, "", ""));
+        boosters.addBooster(new PlayerBooster(3.0, START + 60_000L, "", ""));
+        assertEquals(6.0, CalculationMode.MULTIPLY.resolvePlayer(boosters.getSnapshot(),
+                BoosterSymbols.ANY, BoosterSymbols.ANY), DELTA);
+        
+        clock.advance(60_000L);
+        assertEquals(2.0, CalculationMode.MULTIPLY.resolvePlayer(boosters.getSnapshot(),
+                BoosterSymbols.ANY, BoosterSymbols.ANY), DELTA);
+    }
+    
+    @Test
+    void fromStringFallsBackToMultiply() {
+        assertEquals(CalculationMode.ADD, CalculationMode.fromString("ADD"));
+        assertEquals(CalculationMode.HIGHEST, CalculationMode.fromString("highest"));
+        assertEquals(CalculationMode.MULTIPLY, CalculationMode.fromString("unknown"));
+    }
+}
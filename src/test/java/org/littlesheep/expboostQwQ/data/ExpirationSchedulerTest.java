@@ -0,0 +1,126 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.littlesheep.expboostQwQ.ExpboostQwQ;
+import org.littlesheep.expboostQwQ.utils.TickProfiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 加成过期调度器的测试
+ * 插件未启用时调度器不会注册唤醒任务，测试中推进 ManualClock 后直接调用 fire
+ */
+class ExpirationSchedulerTest {
+    
+    private static final long START = 1_700_000_000_000L;
+    
+    private BoosterClock.ManualClock clock;
+    private ExpirationScheduler scheduler;
+    private final List<String> fired = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        clock = new BoosterClock.ManualClock(START);
+        BoosterClock.install(clock);
+        
+        ExpboostQwQ plugin = mock(ExpboostQwQ.class);
+        when(plugin.isEnabled()).thenReturn(false);
+        when(plugin.getTickProfiler()).thenReturn(mock(TickProfiler.class));
+        scheduler = new ExpirationScheduler(plugin);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        BoosterClock.install(null);
+    }
+    
+    @Test
+    void firesDueEntriesInEndTimeOrder() {
+        scheduler.schedule(START + 3000, () -> fired.add("c"));
+        scheduler.schedule(START + 1000, () -> fired.add("a"));
+        scheduler.schedule(START + 2000, () -> fired.add("b"));
+        
+        clock.advance(2000);
+        scheduler.fire();
+        assertEquals(Arrays.asList("a", "b"), fired);
+        assertEquals(1, scheduler.size());
+        
+        clock.advance(1000);
+        scheduler.fire();
+        assertEquals(Arrays.asList("a", "b", "c"), fired);
+        assertEquals(0, scheduler.size());
+    }
+    
+    @Test
+    void sameEndTimeFiresInScheduleOrder() {
+        scheduler.schedule(START + 1000, () -> fired.add("first"));
+        scheduler.schedule(START + 1000, () -> fired.add("second"));
+        scheduler.schedule(START + 1000, () -> fired.add("third"));
+        
+        clock.advance(1000);
+        scheduler.fire();
+        assertEquals(Arrays.asList("first", "second", "third"), fired);
+    }
+    
+    @Test
+    void nothingFiresBeforeEndTime() {
+        scheduler.schedule(START + 1000, () -> fired.add("a"));
+        
+        clock.advance(999);
+        scheduler.fire();
+        assertEquals(Collections.emptyList(), fired);
+        assertEquals(1, scheduler.size());
+        
+        clock.advance(1);
+        scheduler.fire();
+        assertEquals(Collections.singletonList("a"), fired);
+    }
+    
+    @Test
+    void permanentBoostersAreNotScheduled() {
+        scheduler.schedule(-1L, () -> fired.add("permanent"));
+        assertEquals(0, scheduler.size());
+    }
+    
+    @Test
+    void entriesScheduledByCallbackWaitForNextWakeUp() {
+        scheduler.schedule(START + 1000, () -> {
+            fired.add("a");
+            scheduler.schedule(START + 1000, () -> fired.add("b"));
+        });
+        
+        clock.advance(1000);
+        scheduler.fire();
+        assertEquals(Collections.singletonList("a"), fired);
+        assertEquals(1, scheduler.size());
+        
+        scheduler.fire();
+        assertEquals(Arrays.asList("a", "b"), fired);
+    }
+    
+    @Test
+    void cancelRemovesOnlyOwnerEntries() {
+        UUID owner = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        scheduler.schedule(owner, START + 1000, () -> fired.add("owner"));
+        scheduler.schedule(other, START + 2000, () -> fired.add("other"));
+        scheduler.schedule(owner, START + 3000, () -> fired.add("owner"));
+        
+        scheduler.cancel(owner);
+        assertEquals(1, scheduler.size());
+        
+        clock.advance(3000);
+        scheduler.fire();
+        assertEquals(Collections.singletonList("other"), fired);
+    }
+}
@@ -0,0 +1,129 @@
+package org.littlesheep.expboostQwQ.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 玩家倍率快照的测试
+ * 覆盖限制条件的匹配、过期加成的排除和快照的失效时间
+ */
+class MultiplierSnapshotTest {
+    
+    private static final double DELTA = 1e-9;
+    private static final long START = 1_700_000_000_000L;
+    // 符号表是全局的，使用测试专用的名称避免与其他测试冲突
+    private static final String GROUP = "snapshot_test_group";
+    private static final String OTHER_GROUP = "snapshot_test_other_group";
+    private static final String SOURCE = "snapshot_test_source";
+    
+    private BoosterClock.ManualClock clock;
+    private MultiplePlayerBoosters boosters;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new BoosterClock.ManualClock(START);
+        BoosterClock.install(clock);
+        boosters = new MultiplePlayerBoosters(UUID.randomUUID());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        BoosterClock.install(null);
+    }
+    
+    @Test
+    void unconditionalBoosterMatchesEverything() {
+        boosters.addBooster(new PlayerBooster(2.0, -1L, "", ""));
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        
+        assertEquals(2.0, snapshot.resolveMultiply(GROUP, SOURCE), DELTA);
+        assertEquals(2.0, snapshot.resolveMultiply("", ""), DELTA);
+        assertEquals(2.0, snapshot.resolveMultiply("never_seen_group", "never_seen_source"), DELTA);
+    }
+    
+    @Test
+    void levelGroupConditionMatchesOnlyThatGroup() {
+        boosters.addBooster(new PlayerBooster(2.0, -1L, GROUP, ""));
+        boosters.addBooster(new PlayerBooster(3.0, -1L, OTHER_GROUP, ""));
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        
+        assertEquals(2.0, snapshot.resolveMultiply(GROUP, SOURCE), DELTA);
+        assertEquals(3.0, snapshot.resolveMultiply(OTHER_GROUP, ""), DELTA);
+        assertEquals(1.0, snapshot.resolveMultiply("", SOURCE), DELTA);
+        assertEquals(1.0, snapshot.resolveMultiply("never_seen_group", ""), DELTA);
+    }
+    
+    @Test
+    void combinedConditionRequiresBothToMatch() {
+        boosters.addBooster(new PlayerBooster(1.5, -1L, "", ""));
+        boosters.addBooster(new PlayerBooster(2.0, -1L, GROUP, SOURCE));
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        
+        assertEquals(3.0, snapshot.resolveMultiply(GROUP, SOURCE), DELTA);
+        assertEquals(2.5, snapshot.resolveAdd(GROUP, SOURCE), DELTA);
+        assertEquals(2.0, snapshot.resolveHighest(GROUP, SOURCE), DELTA);
+        
+        assertEquals(1.5, snapshot.resolveMultiply(GROUP, "other_source"), DELTA);
+        assertEquals(1.5, snapshot.resolveAdd(OTHER_GROUP, SOURCE), DELTA);
+        assertEquals(1.5, snapshot.resolveHighest("", SOURCE), DELTA);
+    }
+    
+    @Test
+    void expiredBoostersAreExcluded() {
+        boosters.addBooster(new PlayerBooster(2.0, START + 1000L, "", ""));
+        boosters.addBooster(new PlayerBooster(3.0, START + 5000L, GROUP, ""));
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        assertEquals(2, snapshot.getBoosterCount());
+        assertEquals(START + 1000L, snapshot.getExpiresAt());
+        assertEquals(6.0, snapshot.resolveMultiply(GROUP, ""), DELTA);
+        
+        clock.advance(1000L);
+        MultiplierSnapshot rebuilt = boosters.getSnapshot();
+        assertNotSame(snapshot, rebuilt);
+        assertEquals(1, rebuilt.getBoosterCount());
+        assertEquals(START + 5000L, rebuilt.getExpiresAt());
+        assertEquals(3.0, rebuilt.resolveMultiply(GROUP, ""), DELTA);
+        assertEquals(1.0, rebuilt.resolveMultiply("", ""), DELTA);
+        
+        clock.advance(4000L);
+        assertTrue(boosters.getSnapshot().isEmpty());
+    }
+    
+    @Test
+    void snapshotIsReusedUntilChangedOrExpired() {
+        boosters.addBooster(new PlayerBooster(2.0, START + 1000L, "", ""));
+        MultiplierSnapshot snapshot = boosters.getSnapshot();
+        
+        clock.advance(999L);
+        assertTrue(snapshot.isValidAt(clock.now()));
+        assertSame(snapshot, boosters.getSnapshot());
+        
+        boosters.addBooster(new PlayerBooster(1.5, -1L, "", ""));
+        MultiplierSnapshot changed = boosters.getSnapshot();
+        assertNotSame(snapshot, changed);
+        assertEquals(3.0, changed.resolveMultiply("", ""), DELTA);
+        
+        clock.advance(1L);
+        assertFalse(changed.isValidAt(clock.now()));
+        assertEquals(1.5, boosters.getSnapshot().resolveMultiply("", ""), DELTA);
+    }
+    
+    @Test
+    void emptySnapshotIsNeutral() {
+        MultiplierSnapshot snapshot = MultiplierSnapshot.EMPTY;
+        assertTrue(snapshot.isEmpty());
+        assertTrue(snapshot.isValidAt(Long.MAX_VALUE - 1));
+        assertEquals(1.0, snapshot.resolveMultiply(GROUP, SOURCE), DELTA);
+        assertEquals(1.0, snapshot.resolveAdd(GROUP, SOURCE), DELTA);
+        assertEquals(1.0, snapshot.resolveHighest(GROUP, SOURCE), DELTA);
+    }
+}